@@ -2,16 +2,9 @@ package com.kAIS.KAIMyEntity;
 
 import com.kAIS.KAIMyEntity.renderer.MMDModelManager;
 // import com.kAIS.KAIMyEntity.renderer.MMDTextureManager;  // ← 이미 삭제됨
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 import net.minecraft.client.Minecraft;
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
@@ -21,9 +14,6 @@ public class KAIMyEntityClient {
     public static final Logger logger = LogManager.getLogger();
     static final Minecraft MCinstance = Minecraft.getInstance();
     static final String gameDirectory = MCinstance.gameDirectory.getAbsolutePath();
-    static final int BUFFER = 512;
-    static final long TOOBIG = 0x6400000;
-    static final int TOOMANY = 1024;
 
     public static void initClient() {
         checkKAIMyEntityFolder();
@@ -34,63 +24,6 @@ public class KAIMyEntityClient {
         logger.info("KAIMyEntityClient initialized (URDF only)");
     }
 
-    private static String validateFilename(String filename, String intendedDir) throws java.io.IOException {
-        File f = new File(filename);
-        String canonicalPath = f.getCanonicalPath();
-
-        File iD = new File(intendedDir);
-        String canonicalID = iD.getCanonicalPath();
-
-        if (canonicalPath.startsWith(canonicalID)) {
-            return canonicalPath;
-        } else {
-            throw new IllegalStateException("File is outside extraction target directory.");
-        }
-    }
-
-    public static final void unzip(String filename, String targetDir) throws java.io.IOException {
-        FileInputStream fis = new FileInputStream(filename);
-        ZipInputStream zis = new ZipInputStream(new BufferedInputStream(fis));
-        ZipEntry entry;
-        int entries = 0;
-        long total = 0;
-        try {
-            while ((entry = zis.getNextEntry()) != null) {
-                logger.info("Extracting: " + entry);
-                int count;
-                byte data[] = new byte[BUFFER];
-                String name = validateFilename(targetDir+entry.getName(), ".");
-                File targetFile = new File(name);
-                if (entry.isDirectory()) {
-                    logger.info("Creating directory " + name);
-                    new File(name).mkdir();
-                    continue;
-                }
-                if (!targetFile.getParentFile().exists()){
-                    targetFile.getParentFile().mkdirs();
-                }
-                FileOutputStream fos = new FileOutputStream(name);
-                BufferedOutputStream dest = new BufferedOutputStream(fos, BUFFER);
-                while (total + BUFFER <= TOOBIG && (count = zis.read(data, 0, BUFFER)) != -1) {
-                    dest.write(data, 0, count);
-                    total += count;
-                }
-                dest.flush();
-                dest.close();
-                zis.closeEntry();
-                entries++;
-                if (entries > TOOMANY) {
-                    throw new IllegalStateException("Too many files to unzip.");
-                }
-                if (total + BUFFER > TOOBIG) {
-                    throw new IllegalStateException("File being unzipped is too big.");
-                }
-            }
-        } finally {
-            zis.close();
-        }
-    }
-
     private static void checkKAIMyEntityFolder(){
         File KAIMyEntityFolder = new File(gameDirectory + "/KAIMyEntity");
         if (!KAIMyEntityFolder.exists()){
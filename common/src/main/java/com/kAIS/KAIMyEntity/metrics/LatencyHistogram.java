@@ -0,0 +1,122 @@
+package com.kAIS.KAIMyEntity.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 고정 버킷 지연 히스토그램 (락 없음, 여러 스레드에서 record 가능)
+ * - 버킷: 1µs ~ 100s, 10단계/decade 로그 스케일 (상한 기준, 오차 ≤ 26%)
+ * - 백분위는 버킷 상한값으로 보고
+ */
+public final class LatencyHistogram {
+    /** 버킷 상한 [µs] */
+    static final long[] BOUNDS_US;
+    private static final long[] BOUNDS_NANOS;
+
+    static {
+        double[] steps = {1.0, 1.25, 1.6, 2.0, 2.5, 3.2, 4.0, 5.0, 6.3, 8.0};
+        int decades = 8; // 1µs .. 100s
+        BOUNDS_US = new long[decades * steps.length + 1];
+        int k = 0;
+        double scale = 1.0;
+        for (int d = 0; d < decades; d++) {
+            for (double s : steps) BOUNDS_US[k++] = Math.round(s * scale);
+            scale *= 10.0;
+        }
+        BOUNDS_US[k] = Long.MAX_VALUE / 1000L; // overflow 버킷
+        BOUNDS_NANOS = new long[BOUNDS_US.length];
+        for (int i = 0; i < BOUNDS_US.length; i++) BOUNDS_NANOS[i] = BOUNDS_US[i] * 1000L;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_US.length);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        total.incrementAndGet();
+        sumNanos.addAndGet(nanos);
+        long m;
+        while (nanos > (m = maxNanos.get()) && !maxNanos.compareAndSet(m, nanos)) { }
+    }
+
+    static int bucketOf(long nanos) {
+        // 이진 탐색: nanos <= bound 인 첫 버킷
+        int lo = 0, hi = BOUNDS_NANOS.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (nanos <= BOUNDS_NANOS[mid]) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        total.set(0);
+        sumNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    public Snapshot snapshot() {
+        long[] c = new long[counts.length()];
+        for (int i = 0; i < c.length; i++) c[i] = counts.get(i);
+        return new Snapshot(c, total.get(), sumNanos.get(), maxNanos.get());
+    }
+
+    /** 불변 스냅샷 (표시/내보내기용) */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sumNanos;
+        private final long maxNanos;
+
+        public static final Snapshot EMPTY = new Snapshot(new long[BOUNDS_US.length], 0, 0, 0);
+
+        Snapshot(long[] counts, long count, long sumNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.sumNanos = sumNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long count() { return count; }
+        public double meanMicros() { return count == 0 ? 0 : sumNanos / 1000.0 / count; }
+        public double maxMicros() { return maxNanos / 1000.0; }
+
+        /** p: 0~100 → 해당 백분위가 속한 버킷 상한 [µs] */
+        public long percentileMicros(double p) {
+            long n = 0;
+            for (long c : counts) n += c;
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(p / 100.0 * n);
+            if (rank < 1) rank = 1;
+            long acc = 0;
+            for (int i = 0; i < counts.length; i++) {
+                acc += counts[i];
+                if (acc >= rank) return Math.min(BOUNDS_US[i], (long) Math.ceil(maxMicros()));
+            }
+            return (long) Math.ceil(maxMicros());
+        }
+
+        /** 두 스냅샷 합산 (rolling window 용) */
+        public Snapshot plus(Snapshot o) {
+            long[] c = new long[counts.length];
+            for (int i = 0; i < c.length; i++) c[i] = counts[i] + o.counts[i];
+            return new Snapshot(c, count + o.count, sumNanos + o.sumNanos, Math.max(maxNanos, o.maxNanos));
+        }
+
+        public int bucketCount() { return counts.length; }
+        public long bucketUpperMicros(int i) { return BOUNDS_US[i]; }
+        public long bucketCountAt(int i) { return counts[i]; }
+    }
+
+    /** µs 값을 사람이 읽기 쉬운 단위로 */
+    public static String formatMicros(double us) {
+        if (us < 1000) return String.format("%.0fµs", us);
+        if (us < 1_000_000) return String.format("%.1fms", us / 1000.0);
+        return String.format("%.2fs", us / 1_000_000.0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.kAIS.KAIMyEntity.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * VMC 패킷 → 화면/Webots 까지의 구간별 지연 추적
+ * - 각 프레임은 수신 시각(System.nanoTime)을 들고 파이프라인을 통과
+ * - 각 단계 끝에서 "수신 → 현재" 누적 지연을 기록 (단계 간 차이 = 해당 단계 비용 + 대기)
+ */
+public final class PipelineTrace {
+    private PipelineTrace() {}
+
+    public enum Stage {
+        DECODE("decode"),            // OSC 파싱 완료 (수신 스레드)
+        COMMIT("commit"),            // 스냅샷 커밋 완료
+        RETARGET("retarget"),        // 관절 벡터 발행 완료
+        APPLY("apply"),              // 틱 스레드가 관절 벡터 적용
+        CONTROLLER("controller"),    // 컨트롤러 스텝 반영
+        RENDER("render"),            // 반영된 자세가 처음 렌더된 시점
+        WEBOTS_SEND("webots_send");  // Webots 가 명령을 수신(응답 200)
+
+        public final String label;
+
+        Stage(String label) { this.label = label; }
+    }
+
+    private static final Map<Stage, LatencyHistogram> HISTOGRAMS = new EnumMap<>(Stage.class);
+
+    static {
+        for (Stage s : Stage.values()) HISTOGRAMS.put(s, new LatencyHistogram());
+    }
+
+    /** originNanos(수신 시각) 부터 지금까지의 지연을 stage 에 기록. originNanos ≤ 0 이면 무시 */
+    public static void record(Stage stage, long originNanos) {
+        if (originNanos <= 0) return;
+        HISTOGRAMS.get(stage).record(System.nanoTime() - originNanos);
+    }
+
+    public static LatencyHistogram.Snapshot snapshot(Stage stage) {
+        return HISTOGRAMS.get(stage).snapshot();
+    }
+
+    public static void reset() {
+        for (LatencyHistogram h : HISTOGRAMS.values()) h.reset();
+    }
+
+    /** 화면 표시용 요약 (기록 없는 단계는 생략) */
+    public static List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        for (Stage s : Stage.values()) {
+            LatencyHistogram.Snapshot snap = snapshot(s);
+            if (snap.count() == 0) continue;
+            lines.add(String.format("%-11s p50 %s  p90 %s  p99 %s  (n=%d)",
+                    s.label,
+                    LatencyHistogram.formatMicros(snap.percentileMicros(50)),
+                    LatencyHistogram.formatMicros(snap.percentileMicros(90)),
+                    LatencyHistogram.formatMicros(snap.percentileMicros(99)),
+                    snap.count()));
+        }
+        return lines;
+    }
+
+    /**
+     * CSV 내보내기
+     * - 요약: stage,count,mean_us,p50_us,p90_us,p99_us,max_us
+     * - 히스토그램: stage,bucket_upper_us,count
+     */
+    public static void exportCsv(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            w.println("stage,count,mean_us,p50_us,p90_us,p99_us,max_us");
+            List<LatencyHistogram.Snapshot> snaps = new ArrayList<>();
+            for (Stage s : Stage.values()) {
+                LatencyHistogram.Snapshot snap = snapshot(s);
+                snaps.add(snap);
+                w.printf("%s,%d,%.1f,%d,%d,%d,%.1f%n", s.label, snap.count(), snap.meanMicros(),
+                        snap.percentileMicros(50), snap.percentileMicros(90), snap.percentileMicros(99),
+                        snap.maxMicros());
+            }
+            w.println();
+            w.println("stage,bucket_upper_us,count");
+            Stage[] stages = Stage.values();
+            for (int i = 0; i < stages.length; i++) {
+                LatencyHistogram.Snapshot snap = snaps.get(i);
+                for (int b = 0; b < snap.bucketCount(); b++) {
+                    if (snap.bucketCountAt(b) == 0) continue;
+                    w.printf("%s,%d,%d%n", stages[i].label, snap.bucketUpperMicros(b), snap.bucketCountAt(b));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.kAIS.KAIMyEntity.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 최근 구간만 보는 지연 히스토그램 (락 없음)
+ * - 시간을 slice 단위로 나눈 링 버퍼, 각 slice 는 LatencyHistogram
+ * - snapshot(window) = 최근 window 에 걸친 slice 합산 (slice 단위로 올림)
+ * - 누적(total)도 함께 유지
+ * - slice 교체 순간 동시에 기록된 샘플 몇 개는 빠질 수 있음 (표시용 근사)
+ */
+public final class RollingLatencyHistogram {
+    private final long sliceNanos;
+    private final LatencyHistogram[] slices;
+    private final AtomicLongArray sliceEpoch;
+    private final LatencyHistogram total = new LatencyHistogram();
+
+    /**
+     * @param sliceMillis slice 길이 [ms]
+     * @param sliceCount  보관할 slice 수 (최대 창 = sliceMillis * sliceCount)
+     */
+    public RollingLatencyHistogram(long sliceMillis, int sliceCount) {
+        this.sliceNanos = sliceMillis * 1_000_000L;
+        this.slices = new LatencyHistogram[sliceCount];
+        this.sliceEpoch = new AtomicLongArray(sliceCount);
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new LatencyHistogram();
+            sliceEpoch.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void record(long nanos) {
+        total.record(nanos);
+        long epoch = Math.floorDiv(System.nanoTime(), sliceNanos);
+        int idx = (int) Math.floorMod(epoch, (long) slices.length);
+        long e = sliceEpoch.get(idx);
+        if (e != epoch && sliceEpoch.compareAndSet(idx, e, epoch)) {
+            slices[idx].reset();
+        }
+        slices[idx].record(nanos);
+    }
+
+    /** 최근 windowMillis 구간 합산 */
+    public LatencyHistogram.Snapshot snapshot(long windowMillis) {
+        long now = Math.floorDiv(System.nanoTime(), sliceNanos);
+        long n = Math.min(slices.length, Math.max(1, (windowMillis * 1_000_000L + sliceNanos - 1) / sliceNanos));
+        LatencyHistogram.Snapshot acc = LatencyHistogram.Snapshot.EMPTY;
+        for (int i = 0; i < slices.length; i++) {
+            long e = sliceEpoch.get(i);
+            if (e > now - n && e <= now) acc = acc.plus(slices[i].snapshot());
+        }
+        return acc;
+    }
+
+    /** 시작(또는 reset) 이후 전체 */
+    public LatencyHistogram.Snapshot total() {
+        return total.snapshot();
+    }
+
+    public void reset() {
+        total.reset();
+        for (int i = 0; i < slices.length; i++) {
+            sliceEpoch.set(i, Long.MIN_VALUE);
+            slices[i].reset();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.kAIS.KAIMyEntity.mixin;
 
 import com.kAIS.KAIMyEntity.renderer.IMMDModel;
 import com.kAIS.KAIMyEntity.renderer.MMDModelManager;
+import com.kAIS.KAIMyEntity.renderer.ModelBindings;
 import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
@@ -26,8 +27,6 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.lang.reflect.Field;
-
 @Mixin(PlayerRenderer.class)
 public abstract class KAIMyEntityPlayerRendererMixin
         extends LivingEntityRenderer<AbstractClientPlayer, PlayerModel<AbstractClientPlayer>> {
@@ -50,6 +49,12 @@ public abstract class KAIMyEntityPlayerRendererMixin
     private static final float HALF_PI = (float)(Math.PI / 2.0);
     private static final float PI      = (float)(Math.PI);
 
+    // 매 프레임 할당 방지 (렌더 경로에서는 읽기만)
+    private static final ResourceLocation WHITE_TEXTURE = ResourceLocation.parse("minecraft:textures/misc/white.png");
+    private static final Vector3f ZERO = new Vector3f();
+    private static final Quaternionf MMD_UPRIGHT = upright(FORWARD_NEG_Z, ROLL_180_Z);
+    private static final Quaternionf URDF_UPRIGHT = upright(FORWARD_NEG_Z_URDF, ROLL_180_Z_URDF);
+
     public KAIMyEntityPlayerRendererMixin(EntityRendererProvider.Context ctx,
                                           PlayerModel<AbstractClientPlayer> model,
                                           float shadowRadius) {
@@ -61,13 +66,12 @@ public abstract class KAIMyEntityPlayerRendererMixin
                        PoseStack pose, MultiBufferSource buffers, int packedLight, CallbackInfo ci) {
 
         // 1) 모델 획득
-        URDFModelOpenGLWithSTL urdfFromTickLoop = tryGetClientTickLoopRenderer();
+        URDFModelOpenGLWithSTL urdfFromTickLoop = ModelBindings.activeRenderer();
         URDFModelOpenGLWithSTL urdfFromManager = null;
         IMMDModel generic = null;
 
-        String playerName = player.getName().getString();
-        MMDModelManager.Model m = MMDModelManager.GetModel("EntityPlayer_" + playerName);
-        if (m == null) m = MMDModelManager.GetModel("EntityPlayer");
+        // UUID 바인딩 조회 1번 (처음 보는 플레이어만 이름 조회, 로드 대기 없음)
+        MMDModelManager.Model m = ModelBindings.resolve(player);
         if (m != null) {
             generic = m.model;
             if (generic instanceof URDFModelOpenGLWithSTL) {
@@ -93,11 +97,10 @@ public abstract class KAIMyEntityPlayerRendererMixin
         }
 
         // 3) 텍스처
-        ResourceLocation whiteTexture = ResourceLocation.parse("minecraft:textures/misc/white.png");
         ResourceLocation tex = (generic != null ? generic.getTexture() : null);
         RenderType renderType = (tex != null)
                 ? RenderType.entitySolid(tex)
-                : RenderType.entitySolid(whiteTexture);
+                : RenderType.entitySolid(WHITE_TEXTURE);
         VertexConsumer vertexConsumer = buffers.getBuffer(renderType);
 
         pose.pushPose();
@@ -107,17 +110,9 @@ public abstract class KAIMyEntityPlayerRendererMixin
 
         // 좌표계 보정
         if (urdf == null) {
-            Quaternionf q = new Quaternionf()
-                    .rotateX(-HALF_PI)
-                    .rotateY(FORWARD_NEG_Z ? +HALF_PI : -HALF_PI);
-            if (ROLL_180_Z) q.rotateZ(PI);
-            pose.mulPose(q);
+            pose.mulPose(MMD_UPRIGHT);
         } else if (APPLY_URDF_UPRIGHT_IN_MIXIN) {
-            Quaternionf q = new Quaternionf()
-                    .rotateX(-HALF_PI)
-                    .rotateY(FORWARD_NEG_Z_URDF ? +HALF_PI : -HALF_PI);
-            if (ROLL_180_Z_URDF) q.rotateZ(PI);
-            pose.mulPose(q);
+            pose.mulPose(URDF_UPRIGHT);
         }
 
         // 스케일 (MMD만 적용)
@@ -142,7 +137,7 @@ public abstract class KAIMyEntityPlayerRendererMixin
                 player,
                 entityYaw,
                 player.getXRot(),
-                new Vector3f(0f, 0f, 0f),
+                ZERO,
                 tickDelta,
                 pose,
                 adjustedLight
@@ -152,7 +147,7 @@ public abstract class KAIMyEntityPlayerRendererMixin
                 player,
                 entityYaw,
                 player.getXRot(),
-                new Vector3f(0f, 0f, 0f),
+                ZERO,
                 tickDelta,
                 pose,
                 vertexConsumer,
@@ -166,16 +161,12 @@ public abstract class KAIMyEntityPlayerRendererMixin
         ci.cancel();
     }
 
-    /** 런타임에 ClientTickLoop.renderer 조회 */
-    private static URDFModelOpenGLWithSTL tryGetClientTickLoopRenderer() {
-        try {
-            Class<?> cls = Class.forName("com.kAIS.KAIMyEntity.neoforge.ClientTickLoop");
-            Field f = cls.getField("renderer");
-            Object o = f.get(null);
-            if (o instanceof URDFModelOpenGLWithSTL) {
-                return (URDFModelOpenGLWithSTL) o;
-            }
-        } catch (Throwable ignored) { }
-        return null;
+    /** 좌표계 보정 회전 (클래스 로드 때 1번) */
+    private static Quaternionf upright(boolean forwardNegZ, boolean roll180) {
+        Quaternionf q = new Quaternionf()
+                .rotateX(-HALF_PI)
+                .rotateY(forwardNegZ ? +HALF_PI : -HALF_PI);
+        if (roll180) q.rotateZ(PI);
+        return q;
     }
 }
@@ -20,6 +20,9 @@ public interface IMMDModel {
     long GetModelLong();
     String GetModelDir();
 
+    /** 모델 풀에서 제거될 때 호출: 공유 자산 참조/GPU 자원 해제 (기본: 없음) */
+    default void Release() {}
+
     /** ✅ 새 경로: VertexConsumer로 버텍스를 기록해서 MC 렌더 파이프라인을 사용 */
     default void renderToBuffer(Entity entityIn,
                                 float entityYaw, float entityPitch, Vector3f entityTrans, float tickDelta,
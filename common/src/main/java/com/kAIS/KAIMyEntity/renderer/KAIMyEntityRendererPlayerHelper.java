@@ -8,9 +8,9 @@ public class KAIMyEntityRendererPlayerHelper {
     }
 
     public static void ResetPhysics(Player player) {
-        MMDModelManager.Model m = MMDModelManager.GetModel("EntityPlayer_" + player.getName().getString());
+        MMDModelManager.Model m = MMDModelManager.GetModelNonBlocking("EntityPlayer_" + player.getName().getString());
         if (m == null)
-            m = MMDModelManager.GetModel("EntityPlayer");
+            m = MMDModelManager.GetModelNonBlocking("EntityPlayer");
         
         if (m != null && m.model != null) {
             m.model.ResetPhysics();
@@ -1,13 +1,20 @@
 package com.kAIS.KAIMyEntity.renderer;
 
 import com.kAIS.KAIMyEntity.KAIMyEntityClient;
+import com.kAIS.KAIMyEntity.urdf.ModelPack;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,33 +24,165 @@ import net.minecraft.client.Minecraft;
 public class MMDModelManager {
     static final Logger logger = LogManager.getLogger();
     static final Minecraft MCinstance = Minecraft.getInstance();
-    static Map<String, Model> models;
+    /**
+     * 모델 레지스트리 (렌더 스레드 mixin, 클라이언트 틱, 키 핸들러, 네트워크 recordRenderCall 에서 동시 접근)
+     * - 조회는 ConcurrentHashMap.get 1번 (잠금 없음)
+     * - 로드는 키당 1개만 (loading 의 future 를 공유)
+     */
+    static final Map<String, Model> models = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<Model>> loading = new ConcurrentHashMap<>();
+    /** 로드 실패한 키 → 실패 시각 (매 프레임 재시도 방지) */
+    private static final Map<String, Long> failedAt = new ConcurrentHashMap<>();
+    static final long FAILED_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+    /** ReloadModel 마다 증가: 그 전에 시작한 로드 결과는 버림 */
+    private static final AtomicInteger generation = new AtomicInteger();
+    /** 비동기 로드용 (코어 절반, 1~4개: 다른 로봇은 병렬 파싱, 같은 로봇은 URDFAssetCache 가 1번만) */
+    private static final int LOADER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final AtomicInteger loaderThreadId = new AtomicInteger();
+    private static final ExecutorService loader = Executors.newFixedThreadPool(LOADER_THREADS, r -> {
+        Thread t = new Thread(r, "KAIMyEntity-ModelLoader-" + loaderThreadId.incrementAndGet());
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
     static String gameDirectory = MCinstance.gameDirectory.getAbsolutePath();
 
+    // ------------ 모델 풀 (modelPoolMaxCount) ------------
+    private static final int DEFAULT_POOL_MAX_COUNT = 20;
+    /** 0 = 무제한 */
+    private static volatile int poolMaxCount = DEFAULT_POOL_MAX_COUNT;
+    /** models 등록/제거/ReloadModel 을 묶는 잠금 (세대 확인과 등록이 ReloadModel 사이에 끼지 않게) */
+    private static final Object poolLock = new Object();
+    private static final LongAdder poolHits = new LongAdder();
+    private static final LongAdder poolMisses = new LongAdder();
+    private static final LongAdder poolEvictions = new LongAdder();
+    private static final LongAdder loadDeduplicated = new LongAdder();
+
+    // ------------ 시작 시 미리 로드 ------------
+    private static final AtomicInteger preloadTotal = new AtomicInteger();
+    private static final AtomicInteger preloadDone = new AtomicInteger();
+    private static final AtomicInteger preloadFailed = new AtomicInteger();
+    private static volatile long preloadStartNanos;
+    private static volatile long preloadElapsedMillis = -1;
+
+    /** 미리 로드 진행 상황 (done 에 failed 포함) */
+    public record PreloadProgress(int total, int done, int failed, long elapsedMillis) {
+        public boolean finished() { return done >= total; }
+        public float fraction() { return total == 0 ? 1f : (float) done / total; }
+    }
+
+    /** 풀 상태 (로그/디버그용) */
+    public record PoolStats(int size, int maxCount, long hits, long misses, long evictions,
+                            int loading, long deduplicated) {}
+
     public static void Init() {
-        models = new HashMap<>();
+        models.clear();
+        failedAt.clear();
+        ModelBindings.clear();
         logger.info("MMDModelManager.Init() finished");
     }
 
+    /** 풀 최대 모델 수 (KAIMyEntityConfig.modelPoolMaxCount, 0 = 무제한), 줄이면 즉시 정리 */
+    public static void setPoolMaxCount(int maxCount) {
+        poolMaxCount = Math.max(0, maxCount);
+        logger.info("Model pool max count: {}", poolMaxCount == 0 ? "unlimited" : poolMaxCount);
+        trimPool();
+    }
+
     /**
-     * 모델 로딩 - URDF만 지원
+     * 클라이언트 시작 시 KAIMyEntity/<폴더>/robot.urdf, KAIMyEntity/<이름>.zip 을 전부 백그라운드에서 로드
+     * - 로드 = URDF 파싱 + STL 로드 + 인스턴스 생성 + ResetPhysics (첫 FK 계산까지)
+     * - 키는 폴더 이름 → 렌더 mixin 의 GetModelNonBlocking("EntityPlayer_" + 이름) 등이 첫 프레임부터 바로 찾음
+     * - 풀 최대 수를 넘는 폴더는 건너뜀 (넣자마자 밀려나므로)
+     * - 블로킹 없음, 진행 상황은 getPreloadProgress()
+     */
+    public static void Preload() {
+        File root = new File(gameDirectory, "KAIMyEntity");
+        java.util.TreeSet<String> names = new java.util.TreeSet<>();
+        File[] files = root.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (f.isDirectory() && new File(f, "robot.urdf").isFile()) {
+                    names.add(f.getName());
+                } else if (f.isFile() && ModelPack.isPack(f)) {
+                    names.add(f.getName().substring(0, f.getName().length() - ModelPack.EXTENSION.length()));
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            logger.info("Preload: no models under {}", root.getAbsolutePath());
+            return;
+        }
+        String[] models = names.toArray(new String[0]);
+        int max = poolMaxCount;
+        int count = max > 0 ? Math.min(max, models.length) : models.length;
+        if (count < models.length) {
+            logger.warn("Preload: {} models found, loading first {} (modelPoolMaxCount)", models.length, count);
+        }
+
+        preloadTotal.set(count);
+        preloadDone.set(0);
+        preloadFailed.set(0);
+        preloadElapsedMillis = -1;
+        preloadStartNanos = System.nanoTime();
+        logger.info("Preload: {} models on {} threads", count, LOADER_THREADS);
+
+        for (int i = 0; i < count; i++) {
+            String name = models[i];
+            startLoad(name, name, true).whenComplete((m, t) -> onPreloaded(name, m != null));
+        }
+    }
+
+    private static void onPreloaded(String name, boolean ok) {
+        if (!ok) preloadFailed.incrementAndGet();
+        int done = preloadDone.incrementAndGet();
+        int total = preloadTotal.get();
+        logger.info("Preload {}/{}: {} {}", done, total, ok ? "✓" : "✗", name);
+        if (done == total) {
+            preloadElapsedMillis = (System.nanoTime() - preloadStartNanos) / 1_000_000L;
+            logger.info("Preload finished: {} loaded, {} failed in {} ms",
+                    total - preloadFailed.get(), preloadFailed.get(), preloadElapsedMillis);
+        }
+    }
+
+    public static PreloadProgress getPreloadProgress() {
+        long elapsed = preloadElapsedMillis;
+        if (elapsed < 0) {
+            elapsed = preloadStartNanos == 0 ? 0 : (System.nanoTime() - preloadStartNanos) / 1_000_000L;
+        }
+        return new PreloadProgress(preloadTotal.get(), preloadDone.get(), preloadFailed.get(), elapsed);
+    }
+
+    /**
+     * 모델 원본: KAIMyEntity/<이름>/robot.urdf, 없으면 KAIMyEntity/<이름>.zip (모델 팩), 둘 다 없으면 null
+     */
+    static File modelSource(String modelName) {
+        File urdfFile = new File(gameDirectory + "/KAIMyEntity/" + modelName, "robot.urdf");
+        if (urdfFile.isFile()) return urdfFile;
+        File pack = new File(gameDirectory + "/KAIMyEntity/" + modelName + ModelPack.EXTENSION);
+        return pack.isFile() ? pack : null;
+    }
+
+    /**
+     * 모델 로딩 - URDF만 지원 (폴더 또는 zip 모델 팩)
      */
     public static IMMDModel LoadModel(String modelName) {
         File modelDir = new File(gameDirectory + "/KAIMyEntity/" + modelName);
         String modelDirStr = modelDir.getAbsolutePath();
+        File source = modelSource(modelName);
 
-        if (!modelDir.exists()) {
+        if (!modelDir.exists() && source == null) {
             logger.error("Model directory not found: " + modelDirStr);
             return null;
         }
 
         // URDF만 체크
-        File urdfFile = new File(modelDir, "robot.urdf");
-        if (urdfFile.isFile()) {
+        if (source != null) {
             logger.info("Loading URDF: " + modelName);
+            // 팩이면 modelDir 자리에 .zip 경로 (VMC 매핑 등은 상위 KAIMyEntity 폴더에서 찾음)
             IMMDModel urdfModel = com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL.Create(
-                urdfFile.getAbsolutePath(), 
-                modelDirStr
+                source.getAbsolutePath(),
+                ModelPack.isPack(source) ? source.getAbsolutePath() : modelDirStr
             );
             if (urdfModel != null) {
                 logger.info("✓ URDF loaded: " + modelName);
@@ -56,40 +195,186 @@ public class MMDModelManager {
     }
 
     /**
-     * 모델 가져오기 (캐시 포함)
+     * 모델 가져오기 (없으면 이 스레드에서 로드, 다른 스레드가 로드 중이면 그 결과를 기다림)
+     * - 블로킹: 렌더/클라이언트 스레드(렌더 콜, 패킷, 키 처리)에서는 GetModelNonBlocking
      */
     public static Model GetModel(String modelName, String uuid) {
         String fullName = modelName + uuid;
-        Model model = models.get(fullName);
-        
-        if (model == null) {
-            IMMDModel m = LoadModel(modelName);
-            if (m == null) {
-                return null;
-            }
+        Model model = lookup(fullName);
+        if (model != null) return model;
+        if (recentlyFailed(fullName)) return null;
+        return startLoad(fullName, modelName, false).join();
+    }
 
-            // URDF 모델 등록
-            URDFModelData urdfData = new URDFModelData();
-            urdfData.entityName = fullName;
-            urdfData.model = m;
-            urdfData.modelName = modelName;
-            
-            m.ResetPhysics();
-            
-            models.put(fullName, urdfData);
-            logger.info("✓ Model registered: " + fullName);
-            
-            model = urdfData;
+    /**
+     * 렌더 경로용: 로드된 모델만 즉시 반환 (블로킹 없음)
+     * - 없으면 백그라운드 로드를 걸어두고 null (다음 프레임부터 보임)
+     */
+    public static Model GetModelNonBlocking(String modelName, String uuid) {
+        String fullName = modelName + uuid;
+        Model model = lookup(fullName);
+        if (model != null) return model;
+        if (!recentlyFailed(fullName) && !loading.containsKey(fullName)) {
+            startLoad(fullName, modelName, true);
         }
+        return null;
+    }
+
+    public static Model GetModelNonBlocking(String modelName) {
+        return GetModelNonBlocking(modelName, "");
+    }
+
+    /** 조회 + 사용 시각 갱신 (LRU 기준) */
+    private static Model lookup(String fullName) {
+        Model model = models.get(fullName);
+        if (model != null) touch(model);
         return model;
     }
 
+    /** 사용 시각 갱신 (ModelBindings 로 바로 찾은 경우도 LRU/히트에 반영) */
+    static void touch(Model model) {
+        model.lastUsedNanos = System.nanoTime();
+        poolHits.increment();
+    }
+
+    static boolean isLoading(String fullName) {
+        return loading.containsKey(fullName);
+    }
+
+    /** 실패 기록 지움 (핫 리로드로 폴더/팩이 바뀜 → 다음 조회에서 바로 다시 로드) */
+    static void clearFailure(String fullName) {
+        failedAt.remove(fullName);
+    }
+
+    private static boolean recentlyFailed(String fullName) {
+        Long t = failedAt.get(fullName);
+        return t != null && System.nanoTime() - t < FAILED_RETRY_NANOS;
+    }
+
+    /** 키당 로드 1개: 이미 진행 중이면 그 future 를 반환 */
+    private static CompletableFuture<Model> startLoad(String fullName, String modelName, boolean async) {
+        CompletableFuture<Model> mine = new CompletableFuture<>();
+        CompletableFuture<Model> existing = loading.putIfAbsent(fullName, mine);
+        if (existing != null) {
+            loadDeduplicated.increment();
+            return existing;
+        }
+        Runnable task = () -> runLoad(fullName, modelName, mine);
+        if (async) {
+            loader.execute(task);
+        } else {
+            task.run();
+        }
+        return mine;
+    }
+
+    private static void runLoad(String fullName, String modelName, CompletableFuture<Model> future) {
+        int gen = generation.get();
+        Model result = null;
+        try {
+            // 앞선 로드가 방금 끝났을 수 있음
+            result = models.get(fullName);
+            if (result == null) {
+                poolMisses.increment();
+                IMMDModel m = LoadModel(modelName);
+                if (m == null) {
+                    failedAt.put(fullName, System.nanoTime());
+                } else {
+                    // URDF 모델 등록
+                    URDFModelData urdfData = new URDFModelData();
+                    urdfData.entityName = fullName;
+                    urdfData.model = m;
+                    urdfData.modelName = modelName;
+                    urdfData.lastUsedNanos = System.nanoTime();
+
+                    m.ResetPhysics();
+
+                    boolean registered;
+                    synchronized (poolLock) {
+                        registered = generation.get() == gen;
+                        if (registered) {
+                            models.put(fullName, urdfData);
+                            failedAt.remove(fullName);
+                        }
+                    }
+                    if (registered) {
+                        logger.info("✓ Model registered: " + fullName);
+                        trimPool();
+                        ModelBindings.clear(); // 기본 모델에 묶였던 플레이어가 자기 모델로 다시 조회
+                        result = urdfData;
+                    } else {
+                        urdfData.release(); // 로드 중 ReloadModel
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            logger.error("Failed to load model: " + fullName, t);
+            failedAt.put(fullName, System.nanoTime());
+        } finally {
+            loading.remove(fullName, future);
+            future.complete(result);
+        }
+    }
+
     public static Model GetModel(String modelName){
         return GetModel(modelName, "");
     }
 
+    /** 최대 수를 넘으면 가장 오래 안 그린 모델부터 제거 + 자원 해제 (등록 시에만, 렌더 경로 아님) */
+    private static void trimPool() {
+        int max = poolMaxCount;
+        if (max <= 0) return;
+        synchronized (poolLock) {
+            while (models.size() > max) {
+                Map.Entry<String, Model> oldest = null;
+                for (Map.Entry<String, Model> e : models.entrySet()) {
+                    if (oldest == null || e.getValue().lastUsedNanos - oldest.getValue().lastUsedNanos < 0) oldest = e;
+                }
+                if (oldest == null) break;
+                Model evicted = oldest.getValue();
+                if (!models.remove(oldest.getKey(), evicted)) continue;
+                poolEvictions.increment();
+                ModelBindings.clear();
+                evicted.release();
+                logger.info("Model evicted from pool: {} ({}/{})", evicted.entityName, models.size(), max);
+            }
+        }
+    }
+
+    public static PoolStats getPoolStats() {
+        return new PoolStats(models.size(), poolMaxCount, poolHits.sum(), poolMisses.sum(), poolEvictions.sum(),
+                loading.size(), loadDeduplicated.sum());
+    }
+
+    public static void logPoolStats() {
+        PoolStats s = getPoolStats();
+        logger.info("=== Model Pool ===");
+        logger.info("  Models: {}/{} | Hits: {} | Misses: {} | Evictions: {}",
+                s.size(), s.maxCount() == 0 ? "unlimited" : s.maxCount(), s.hits(), s.misses(), s.evictions());
+        logger.info("  Loading: {} | Deduplicated loads: {}", s.loading(), s.deduplicated());
+        PreloadProgress p = getPreloadProgress();
+        if (p.total() > 0) {
+            logger.info("  Preload: {}/{} ({} failed, {} ms)", p.done(), p.total(), p.failed(), p.elapsedMillis());
+        }
+        logger.info("  URDF assets: {} cached | {} loads | {} released",
+                com.kAIS.KAIMyEntity.urdf.URDFAssetCache.size(),
+                com.kAIS.KAIMyEntity.urdf.URDFAssetCache.loadCount(),
+                com.kAIS.KAIMyEntity.urdf.URDFAssetCache.releasedCount());
+        if (ModelHotReloader.isRunning()) {
+            logger.info("  Hot reload: {} swaps | {} failures", ModelHotReloader.swapCount(), ModelHotReloader.failureCount());
+        }
+    }
+
     public static void ReloadModel() {
-        models.clear();
+        synchronized (poolLock) {
+            generation.incrementAndGet();
+            for (Model m : models.values()) m.release();
+            models.clear();
+            failedAt.clear();
+        }
+        ModelBindings.clear();
+        // 공유 URDF/메시도 버려야 수정한 파일이 다시 읽힘
+        com.kAIS.KAIMyEntity.urdf.URDFAssetCache.clear();
     }
 
     // ========== 모델 클래스 ==========
@@ -115,7 +400,24 @@ public class MMDModelManager {
  //           KAIMyEntityClient.reloadProperties = false;
         }
         
+        /** 마지막 조회 시각 (System.nanoTime, 풀 LRU 기준) */
+        volatile long lastUsedNanos;
+        private boolean released = false;
+
         public boolean isURDFModel() { return true; }
+
+        /**
+         * 풀에서 제거될 때: 모델 자원 해제 (한 번만)
+         * - model 참조는 남김 (다른 스레드가 이번 프레임에 아직 그리는 중일 수 있음)
+         */
+        synchronized void release() {
+            if (released || model == null) return;
+            released = true;
+            model.Release();
+        }
+
+        /** 풀에서 빠져 자원이 해제됐으면 true (핫 리로드가 교체를 건너뜀) */
+        synchronized boolean isReleased() { return released; }
     }
 
     /**
@@ -0,0 +1,151 @@
+package com.kAIS.KAIMyEntity.renderer;
+
+import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.UUID;
+
+/**
+ * 엔티티 UUID → 모델 조회 캐시 (렌더 경로용)
+ * - 렌더 훅은 UUID 두 long 으로 한 번 조회 (문자열/박싱/할당 없음)
+ * - 처음 보는 플레이어만 이름 기반 조회("EntityPlayer_이름" → "EntityPlayer") 후 결과를 기억
+ * - 이름 규칙 조회의 캐시일 뿐 (직접 묶는 API 없음) → 언제 비워도 다음 프레임에 같은 결과로 다시 채워짐
+ * - 테이블은 쓰기 때 복사 (읽기는 잠금 없음, 쓰기는 새 플레이어/모델 등록 때만)
+ * - 모델 등록/제거/ReloadModel/핫 리로드 때 전부 비움 → 다음 프레임에 다시 조회
+ * - "모델 없음" 은 로드 실패 재시도 간격 뒤에 다시 조회 (폴더를 새로 넣거나 고치면 반영)
+ */
+public final class ModelBindings {
+    /** "모델 없음" 표시 (매 프레임 이름 조회 반복 방지) */
+    private static final MMDModelManager.Model NONE = new MMDModelManager.URDFModelData();
+    private static final int INITIAL_CAPACITY = 16;
+    /** 월드를 오래 돌면 떠난 플레이어가 쌓임 → 이 이상이면 새로 시작 */
+    private static final int MAX_BINDINGS = 1024;
+
+    private static volatile Table table = new Table(INITIAL_CAPACITY);
+    /** clear 마다 증가: 그 전에 시작한 조회 결과는 바인딩하지 않음 */
+    private static volatile int epoch = 0;
+    /** 에디터/틱 루프가 쓰는 활성 URDF 렌더러 (로더별 ClientTickLoop 가 등록) */
+    private static volatile URDFModelOpenGLWithSTL activeRenderer;
+
+    private ModelBindings() {}
+
+    /** UUID 로 열린 주소 테이블 (키 2개 + 값, 크기는 2의 거듭제곱) */
+    private static final class Table {
+        final long[] msb;
+        final long[] lsb;
+        final MMDModelManager.Model[] values;
+        final long[] retryAt;   // NONE 항목의 다시 조회할 시각 (nanoTime)
+        final int mask;
+        final int size;
+
+        Table(int capacity) {
+            this(new long[capacity], new long[capacity], new MMDModelManager.Model[capacity], new long[capacity], 0);
+        }
+
+        private Table(long[] msb, long[] lsb, MMDModelManager.Model[] values, long[] retryAt, int size) {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.values = values;
+            this.retryAt = retryAt;
+            this.mask = values.length - 1;
+            this.size = size;
+        }
+
+        /** 항목 위치 (없으면 -1) */
+        int find(long hi, long lo) {
+            for (int i = slot(hi, lo) & mask; ; i = (i + 1) & mask) {
+                if (values[i] == null) return -1;
+                if (msb[i] == hi && lsb[i] == lo) return i;
+            }
+        }
+
+        /** 새 테이블 반환 (반 이상 차면 두 배로) */
+        Table with(long hi, long lo, MMDModelManager.Model model, long retry) {
+            int capacity = values.length;
+            if ((size + 1) * 2 > capacity) capacity <<= 1;
+            Table t = new Table(capacity);
+            int n = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null && !(msb[i] == hi && lsb[i] == lo)) {
+                    t.put(msb[i], lsb[i], values[i], retryAt[i]);
+                    n++;
+                }
+            }
+            t.put(hi, lo, model, retry);
+            return new Table(t.msb, t.lsb, t.values, t.retryAt, n + 1);
+        }
+
+        private void put(long hi, long lo, MMDModelManager.Model model, long retry) {
+            int i = slot(hi, lo) & mask;
+            while (values[i] != null) i = (i + 1) & mask;
+            msb[i] = hi;
+            lsb[i] = lo;
+            values[i] = model;
+            retryAt[i] = retry;
+        }
+
+        private static int slot(long hi, long lo) {
+            long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * 플레이어 모델 (렌더 스레드, 블로킹 없음)
+     * - 바인딩 있으면 조회 1번, 없으면 이름 조회 후 바인딩 (로드 중이면 null, 다음 프레임 다시)
+     * - "모델 없음" 바인딩은 재시도 시각이 지나면 다시 이름 조회
+     */
+    public static MMDModelManager.Model resolve(Player player) {
+        UUID id = player.getUUID();
+        long hi = id.getMostSignificantBits();
+        long lo = id.getLeastSignificantBits();
+        Table t = table;
+        int i = t.find(hi, lo);
+        if (i < 0) return resolveSlow(player, hi, lo);
+        MMDModelManager.Model m = t.values[i];
+        if (m == NONE) {
+            return System.nanoTime() - t.retryAt[i] < 0 ? null : resolveSlow(player, hi, lo);
+        }
+        MMDModelManager.touch(m);
+        return m;
+    }
+
+    private static MMDModelManager.Model resolveSlow(Player player, long hi, long lo) {
+        int seen = epoch;
+        boolean pending = false;
+        String name = "EntityPlayer_" + player.getName().getString();
+        MMDModelManager.Model m = MMDModelManager.GetModelNonBlocking(name);
+        if (m == null) {
+            pending = MMDModelManager.isLoading(name);
+            m = MMDModelManager.GetModelNonBlocking("EntityPlayer");
+            if (m == null) pending |= MMDModelManager.isLoading("EntityPlayer");
+        }
+        // 로드 중이면 바인딩하지 않음 (등록되면 clear 되지만, 그 전에 NONE 을 박아두면 안 됨)
+        // NONE 은 로드 실패 재시도 간격 뒤에 다시 조회 (실패 직후엔 로드를 시작하지 않으므로 pending 이 false)
+        if (m != null) {
+            bind(hi, lo, m, 0L, seen);
+        } else if (!pending) {
+            bind(hi, lo, NONE, System.nanoTime() + MMDModelManager.FAILED_RETRY_NANOS, seen);
+        }
+        return m;
+    }
+
+    private static synchronized void bind(long hi, long lo, MMDModelManager.Model model, long retryAt, int seen) {
+        if (seen != epoch) return; // 조회 도중 모델 등록/제거됨 → 다음 프레임에 다시
+        Table t = table;
+        if (t.size >= MAX_BINDINGS) t = new Table(INITIAL_CAPACITY);
+        table = t.with(hi, lo, model, retryAt);
+    }
+
+    /** 전부 비움 (모델 등록/제거, ReloadModel, 핫 리로드) */
+    public static synchronized void clear() {
+        epoch++;
+        if (table.size > 0) table = new Table(INITIAL_CAPACITY);
+    }
+
+    public static int size() { return table.size; }
+
+    public static URDFModelOpenGLWithSTL activeRenderer() { return activeRenderer; }
+
+    public static void setActiveRenderer(URDFModelOpenGLWithSTL renderer) { activeRenderer = renderer; }
+}
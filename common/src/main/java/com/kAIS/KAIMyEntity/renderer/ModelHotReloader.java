@@ -0,0 +1,354 @@
+package com.kAIS.KAIMyEntity.renderer;
+
+import com.kAIS.KAIMyEntity.urdf.ModelPack;
+import com.kAIS.KAIMyEntity.urdf.URDFAssetCache;
+import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL;
+import com.kAIS.KAIMyEntity.urdf.URDFRobotDefinition;
+import com.kAIS.KAIMyEntity.urdf.URDFRobotModel;
+import com.kAIS.KAIMyEntity.urdf.control.VMCListenerController;
+import com.kAIS.KAIMyEntity.urdf.control.VmcRetargetMap;
+import com.kAIS.KAIMyEntity.webots.WebotsController;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * KAIMyEntity 폴더 감시 → 바뀐 모델만 다시 로드 (Ctrl+G 전체 리로드 대신)
+ * - robot.urdf / *.stl / <이름>.zip(모델 팩) : 그 모델의 공유 정의만 감시 스레드에서 다시 파싱
+ *   → 클라이언트 스레드에서 인스턴스 내부를 한 번에 교체 (관절 위치/속도/목표 유지, 엔티티/컨트롤러 참조 그대로)
+ * - vmc_retarget.properties : 리타게터만 풀어둠 → 다음 틱에 새 테이블로 다시 바인딩
+ * - model.properties : 속성만 다시 읽음
+ * - 저장 1번에 이벤트가 여러 개 오므로 폴더별로 모아서 QUIET_MILLIS 동안 조용하면 처리
+ * - 파싱 실패 시 이전 모델 유지 (고치고 다시 저장하면 재시도)
+ */
+public final class ModelHotReloader {
+    private static final Logger logger = LogManager.getLogger();
+    private static final long QUIET_MILLIS = 300;
+    private static final String URDF_FILE = "robot.urdf";
+    private static final String PROPERTIES_FILE = "model.properties";
+
+    /** 바뀐 파일 종류 */
+    enum Change { GEOMETRY, RETARGET, PROPERTIES }
+
+    private static ModelHotReloader instance;
+
+    private final Path root;
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> dirs = new HashMap<>();
+    /** 모델 폴더 이름 → 모인 변경 (감시 스레드 전용) */
+    private final Map<String, EnumSet<Change>> dirty = new LinkedHashMap<>();
+    private long lastEventNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final LongAdder swaps = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private ModelHotReloader(Path root) throws IOException {
+        this.root = root;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        registerTree(root);
+        this.thread = new Thread(this::watchLoop, "KAIMyEntity-HotReload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** 감시 시작 (이미 돌고 있으면 무시) */
+    public static synchronized void start() {
+        if (instance != null) return;
+        Path root = Paths.get(MMDModelManager.gameDirectory, "KAIMyEntity");
+        if (!Files.isDirectory(root)) {
+            logger.warn("Hot reload disabled: {} not found", root);
+            return;
+        }
+        try {
+            instance = new ModelHotReloader(root);
+            logger.info("✓ Hot reload watching {} ({} folders)", root, instance.dirs.size());
+        } catch (IOException e) {
+            logger.warn("Hot reload disabled: {}", e.toString());
+        }
+    }
+
+    public static synchronized void stop() {
+        if (instance == null) return;
+        instance.running = false;
+        try {
+            instance.watcher.close();
+        } catch (IOException ignored) {
+        }
+        instance = null;
+    }
+
+    public static synchronized boolean isRunning() {
+        return instance != null;
+    }
+
+    public static synchronized long swapCount() {
+        return instance != null ? instance.swaps.sum() : 0;
+    }
+
+    public static synchronized long failureCount() {
+        return instance != null ? instance.failures.sum() : 0;
+    }
+
+    // ========== 감시 ==========
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                dirs.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watchLoop() {
+        try {
+            while (running) {
+                WatchKey key = dirty.isEmpty()
+                        ? watcher.take()
+                        : watcher.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handle(key);
+                }
+                if (!dirty.isEmpty() && System.nanoTime() - lastEventNanos >= TimeUnit.MILLISECONDS.toNanos(QUIET_MILLIS)) {
+                    flush();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stop()
+        } catch (Throwable t) {
+            logger.error("Hot reload watcher stopped", t);
+        }
+    }
+
+    private void handle(WatchKey key) {
+        Path dir = dirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 이벤트 유실 → 로드된 모델 전부 확인
+                logger.warn("Hot reload: watch overflow, rechecking all loaded models");
+                for (MMDModelManager.Model m : MMDModelManager.models.values()) {
+                    mark(m.modelName, Change.GEOMETRY);
+                }
+                mark(activeFolder(), Change.GEOMETRY);
+                continue;
+            }
+            if (dir == null) continue;
+            Path path = dir.resolve((Path) event.context());
+            Path rel = root.relativize(path);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(path);
+                } catch (IOException e) {
+                    logger.warn("Hot reload: cannot watch {}: {}", path, e.toString());
+                }
+                // 폴더째 복사하면 안의 파일 이벤트가 등록 전에 지나갈 수 있음
+                mark(rel.getName(0).toString(), Change.GEOMETRY);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && rel.getNameCount() == 1) {
+                mark(rel.toString(), Change.GEOMETRY); // 모델 폴더 삭제
+            }
+            classify(rel);
+        }
+        if (!key.reset()) dirs.remove(key);
+    }
+
+    /** KAIMyEntity 기준 상대 경로 → (모델 폴더, 변경 종류) */
+    private void classify(Path rel) {
+        String file = rel.getFileName().toString();
+        String lower = file.toLowerCase(Locale.ROOT);
+        if (rel.getNameCount() == 1) {
+            // 최상위 vmc_retarget.properties 는 폴더에 파일이 없는 모든 모델의 기본 테이블
+            if (file.equals(VmcRetargetMap.FILE_NAME)) {
+                for (MMDModelManager.Model m : MMDModelManager.models.values()) {
+                    mark(m.modelName, Change.RETARGET);
+                }
+                mark(activeFolder(), Change.RETARGET);
+            } else if (lower.endsWith(ModelPack.EXTENSION)) {
+                mark(file.substring(0, file.length() - ModelPack.EXTENSION.length()), Change.GEOMETRY);
+            } else if (lower.endsWith(".urdf")) {
+                mark(file, Change.GEOMETRY); // 최상위 *.urdf 를 직접 쓰는 활성 렌더러
+            }
+            return;
+        }
+        String folder = rel.getName(0).toString();
+        // 활성 렌더러는 robot.urdf 가 아닌 *.urdf 도 씀
+        if (lower.endsWith(".urdf") || lower.endsWith(".stl")) {
+            mark(folder, Change.GEOMETRY);
+        } else if (file.equals(VmcRetargetMap.FILE_NAME)) {
+            mark(folder, Change.RETARGET);
+        } else if (rel.getNameCount() == 2 && file.equals(PROPERTIES_FILE)) {
+            mark(folder, Change.PROPERTIES);
+        }
+    }
+
+    private void mark(String folder, Change change) {
+        if (folder == null) return;
+        dirty.computeIfAbsent(folder, k -> EnumSet.noneOf(Change.class)).add(change);
+        lastEventNanos = System.nanoTime();
+    }
+
+    private void flush() {
+        List<Map.Entry<String, EnumSet<Change>>> batch = new ArrayList<>(dirty.entrySet());
+        dirty.clear();
+        for (Map.Entry<String, EnumSet<Change>> e : batch) {
+            try {
+                reload(e.getKey(), e.getValue());
+            } catch (Throwable t) {
+                failures.increment();
+                logger.error("Hot reload failed: {}", e.getKey(), t);
+            }
+        }
+    }
+
+    /**
+     * 활성 렌더러 (ClientTickLoop.renderer, ensureActiveRenderer 가 만든 것) 의 KAIMyEntity 기준 폴더
+     * - 풀 밖이라 MMDModelManager.models 에 없음 → 따로 찾음, KAIMyEntity 밖(config/)이면 null
+     */
+    private String activeFolder() {
+        URDFModelOpenGLWithSTL r = ModelBindings.activeRenderer();
+        if (r == null) return null;
+        Path urdf = r.getDefinition().getUrdfFile().toPath().toAbsolutePath().normalize();
+        Path base = root.toAbsolutePath().normalize();
+        if (!urdf.startsWith(base) || urdf.equals(base)) return null;
+        return base.relativize(urdf).getName(0).toString();
+    }
+
+    // ========== 다시 로드 ==========
+
+    private void reload(String folder, EnumSet<Change> changes) {
+        File modelDir = root.resolve(folder).toFile();
+        File packFile = root.resolve(folder + ModelPack.EXTENSION).toFile();
+        // 폴더가 있으면 폴더, 없으면 팩 (MMDModelManager.LoadModel 과 같은 규칙)
+        File source = MMDModelManager.modelSource(folder);
+        List<MMDModelManager.Model> affected = new ArrayList<>();
+        for (MMDModelManager.Model m : MMDModelManager.models.values()) {
+            if (folder.equals(m.modelName) && m.model instanceof URDFModelOpenGLWithSTL) affected.add(m);
+        }
+        // VMC/에디터가 움직이는 활성 렌더러도 같은 폴더면 함께 교체 (풀에 없음)
+        URDFModelOpenGLWithSTL active = folder.equals(activeFolder()) ? ModelBindings.activeRenderer() : null;
+        for (MMDModelManager.Model m : affected) {
+            if (m.model == active) active = null;
+        }
+
+        if (changes.contains(Change.GEOMETRY)) {
+            // 폴더/팩이 생기거나 바뀜 → 실패 기록과 "모델 없음" 바인딩을 버려 다음 프레임에 다시 조회
+            MMDModelManager.clearFailure(folder);
+            ModelBindings.clear();
+            // 안 쓰는 모델도 캐시는 버림 (다음 로드 때 새 파일을 읽도록)
+            URDFAssetCache.invalidate(new File(modelDir, URDF_FILE));
+            URDFAssetCache.invalidate(packFile);
+            if (active != null) URDFAssetCache.invalidate(active.getDefinition().getUrdfFile());
+            if (source == null) affected.clear(); // 폴더/팩이 없어짐 → 풀 모델은 그대로
+            if (!affected.isEmpty() || active != null) {
+                String dir = source != null && ModelPack.isPack(source) ? source.getAbsolutePath() : modelDir.getAbsolutePath();
+                swapGeometry(folder, source, dir, affected, active);
+            }
+        } else if (changes.contains(Change.RETARGET) && (!affected.isEmpty() || active != null)) {
+            URDFModelOpenGLWithSTL activeRenderer = active;
+            MMDModelManager.MCinstance.execute(() -> {
+                VMCListenerController.VmcListener listener = VMCListenerController.VmcListener.getInstance();
+                for (MMDModelManager.Model m : affected) {
+                    listener.unbindRetargeter(((URDFModelOpenGLWithSTL) m.model).getRobotModel());
+                }
+                if (activeRenderer != null) listener.unbindRetargeter(activeRenderer.getRobotModel());
+                logger.info("♻ VMC retarget table reloaded: {}", folder);
+            });
+        }
+        if (changes.contains(Change.PROPERTIES) && !affected.isEmpty()) {
+            MMDModelManager.MCinstance.execute(() -> {
+                for (MMDModelManager.Model m : affected) m.loadModelProperties(true);
+                logger.info("♻ model.properties reloaded: {}", folder);
+            });
+        }
+    }
+
+    /** 감시 스레드에서 파싱/메시 로드 → 클라이언트 스레드에서 교체 */
+    private void swapGeometry(String folder, File source, String modelDir,
+                              List<MMDModelManager.Model> affected, URDFModelOpenGLWithSTL active) {
+        long start = System.nanoTime();
+        List<URDFRobotDefinition> acquired = new ArrayList<>(affected.size() + 1);
+        int needed = affected.size() + (active != null ? 1 : 0);
+        for (int i = 0; i < needed; i++) {
+            URDFRobotDefinition def;
+            if (i < affected.size()) {
+                // 인스턴스마다 사용자 1명 (실제 로드는 첫 번째만)
+                def = URDFAssetCache.acquire(source, modelDir);
+            } else {
+                // 활성 렌더러는 자기 *.urdf / 메시 폴더 그대로
+                URDFRobotDefinition current = active.getDefinition();
+                def = URDFAssetCache.acquire(current.getUrdfFile(), current.getModelDir());
+            }
+            if (def == null) {
+                for (URDFRobotDefinition d : acquired) URDFAssetCache.release(d);
+                failures.increment();
+                logger.warn("✗ Hot reload of {} failed, keeping previous model", folder);
+                return;
+            }
+            acquired.add(def);
+        }
+        long loadMillis = (System.nanoTime() - start) / 1_000_000L;
+
+        MMDModelManager.MCinstance.execute(() -> {
+            int swapped = 0;
+            for (int i = 0; i < affected.size(); i++) {
+                MMDModelManager.Model m = affected.get(i);
+                URDFRobotDefinition def = acquired.get(i);
+                synchronized (m) {
+                    // 그 사이 풀에서 빠졌거나 ReloadModel 됨 → 교체하지 않고 반납
+                    if (m.isReleased()) {
+                        URDFAssetCache.release(def);
+                        continue;
+                    }
+                    swap((URDFModelOpenGLWithSTL) m.model, def);
+                    swapped++;
+                }
+            }
+            if (active != null) {
+                URDFRobotDefinition def = acquired.get(affected.size());
+                // 그 사이 다른 렌더러로 바뀜 → 반납
+                if (ModelBindings.activeRenderer() == active) {
+                    swap(active, def);
+                    swapped++;
+                } else {
+                    URDFAssetCache.release(def);
+                }
+            }
+            swaps.add(swapped);
+            logger.info("♻ Hot reloaded {}: {} instance(s), parsed in {} ms", folder, swapped, loadMillis);
+        });
+    }
+
+    /** 정의 교체 + 이전 로봇에 묶인 리타게터/Webots 구독 정리 (클라이언트 스레드) */
+    private static void swap(URDFModelOpenGLWithSTL renderer, URDFRobotDefinition def) {
+        URDFRobotModel oldRobot = renderer.swapDefinition(def);
+        VMCListenerController.VmcListener.getInstance().unbindRetargeter(oldRobot);
+        WebotsController.onRobotReplaced(oldRobot, renderer.getRobotModel());
+    }
+}
@@ -0,0 +1,288 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * zip 모델 팩 (KAIMyEntity/<이름>.zip, 풀지 않고 바로 로드)
+ * - 중앙 디렉터리만 읽어 항목 색인 → 필요한 항목만 위치 지정 읽기 (스레드 안전, 여러 메시 동시 읽기 OK)
+ * - STORED 항목은 파일에서 최종 버퍼로 바로 읽음, DEFLATED 는 압축 바이트만 읽어 항목 크기 버퍼에 한 번에 풂
+ * - mmap 은 안 씀: Windows 에서 매핑된 파일은 GC 전까지 잠겨서 핫 리로드 중 팩을 덮어쓸 수 없음
+ * - robot.urdf 가 루트에 없으면 최상위 폴더 1개 안에서 찾음 (폴더째 압축한 경우)
+ * - 크기/항목 수 제한은 예전 unzip 과 같음 (zip bomb 방지), ZIP64/암호화는 지원 안 함
+ */
+public final class ModelPack implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final String EXTENSION = ".zip";
+    private static final String URDF_FILE = "robot.urdf";
+
+    static final long TOOBIG = 0x6400000; // 압축 해제 합계 100MB
+    static final int TOOMANY = 1024;
+
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int CEN_SIZE = 46;
+    private static final int LOC_SIZE = 30;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    /** 항목 1개 (dataOffset 은 로컬 헤더 뒤 실제 데이터 위치) */
+    record Entry(String name, int method, long compressedSize, long size, long dataOffset) {}
+
+    private final File file;
+    private final FileChannel channel;
+    private final Map<String, Entry> entries;
+    /** 소문자 파일 이름 → 항목 이름들 (메시 이름만으로 찾을 때) */
+    private final Map<String, List<String>> byFileName = new HashMap<>();
+    /** robot.urdf 가 있는 폴더 ("" 또는 "폴더/") */
+    private final String root;
+
+    private ModelPack(File file, FileChannel channel, Map<String, Entry> entries, String root) {
+        this.file = file;
+        this.channel = channel;
+        this.entries = entries;
+        this.root = root;
+        for (String name : entries.keySet()) {
+            String fileName = name.substring(name.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+            byFileName.computeIfAbsent(fileName, k -> new ArrayList<>(1)).add(name);
+        }
+    }
+
+    public static boolean isPack(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    /** 색인만 읽음 (데이터는 read 때) */
+    public static ModelPack open(File file) throws IOException {
+        FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            Map<String, Entry> entries = readIndex(ch);
+            String root = findRoot(entries);
+            if (root == null) throw new FileNotFoundException("No " + URDF_FILE + " in model pack: " + file);
+            return new ModelPack(file, ch, entries, root);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    // ========== 중앙 디렉터리 ==========
+
+    private static Map<String, Entry> readIndex(FileChannel ch) throws IOException {
+        long length = ch.size();
+        if (length < EOCD_SIZE) throw new IOException("Not a zip file");
+
+        // EOCD: 끝에서 주석(최대 64KB) 만큼 거슬러 찾음
+        int tailSize = (int) Math.min(length, EOCD_SIZE + 0xFFFF);
+        ByteBuffer tail = readFully(ch, length - tailSize, tailSize);
+        int eocd = -1;
+        for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIG) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) throw new IOException("Not a zip file (no end of central directory)");
+        int count = tail.getShort(eocd + 10) & 0xFFFF;
+        long cenSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+        long cenOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || cenOffset == 0xFFFFFFFFL) throw new IOException("ZIP64 model packs are not supported");
+        if (count > TOOMANY) throw new IOException("Too many files in model pack.");
+        if (cenOffset + cenSize > length) throw new IOException("Corrupt zip (central directory out of range)");
+
+        ByteBuffer cen = readFully(ch, cenOffset, (int) cenSize);
+        Map<String, Entry> entries = new HashMap<>(count * 2);
+        long total = 0;
+        int p = 0;
+        for (int i = 0; i < count; i++) {
+            if (p + CEN_SIZE > cen.limit() || cen.getInt(p) != CEN_SIG) throw new IOException("Corrupt zip (central directory)");
+            int flags = cen.getShort(p + 8) & 0xFFFF;
+            int method = cen.getShort(p + 10) & 0xFFFF;
+            long compressedSize = cen.getInt(p + 20) & 0xFFFFFFFFL;
+            long size = cen.getInt(p + 24) & 0xFFFFFFFFL;
+            int nameLen = cen.getShort(p + 28) & 0xFFFF;
+            int extraLen = cen.getShort(p + 30) & 0xFFFF;
+            int commentLen = cen.getShort(p + 32) & 0xFFFF;
+            long localOffset = cen.getInt(p + 42) & 0xFFFFFFFFL;
+            byte[] nameBytes = new byte[nameLen];
+            cen.get(p + CEN_SIZE, nameBytes);
+            p += CEN_SIZE + nameLen + extraLen + commentLen;
+
+            String raw = new String(nameBytes, StandardCharsets.UTF_8);
+            if (raw.endsWith("/")) continue; // 폴더
+            String name = normalize(raw.replace('\\', '/'));
+            if (name == null) {
+                logger.warn("Skipping model pack entry outside the pack: {}", raw);
+                continue;
+            }
+            if ((flags & 1) != 0) {
+                logger.warn("Skipping encrypted model pack entry: {}", raw);
+                continue;
+            }
+            if (size == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || localOffset == 0xFFFFFFFFL) {
+                throw new IOException("ZIP64 model packs are not supported");
+            }
+            total += size;
+            if (total > TOOBIG) throw new IOException("Model pack is too big.");
+
+            ByteBuffer loc = readFully(ch, localOffset, LOC_SIZE);
+            if (loc.getInt(0) != LOC_SIG) throw new IOException("Corrupt zip (local header): " + raw);
+            long dataOffset = localOffset + LOC_SIZE + (loc.getShort(26) & 0xFFFF) + (loc.getShort(28) & 0xFFFF);
+            if (dataOffset + compressedSize > length) throw new IOException("Corrupt zip (entry out of range): " + raw);
+            entries.put(name, new Entry(name, method, compressedSize, size, dataOffset));
+        }
+        return entries;
+    }
+
+    /** robot.urdf 위치: 루트 또는 최상위 폴더 1개 */
+    private static String findRoot(Map<String, Entry> entries) {
+        if (entries.containsKey(URDF_FILE)) return "";
+        String found = null;
+        for (String name : entries.keySet()) {
+            int slash = name.indexOf('/');
+            if (slash > 0 && name.indexOf('/', slash + 1) < 0 && name.substring(slash + 1).equals(URDF_FILE)) {
+                if (found != null) return null; // 모호함
+                found = name.substring(0, slash + 1);
+            }
+        }
+        return found;
+    }
+
+    /** "a/./b/../c" → "a/c", 팩 밖으로 나가면 null */
+    static String normalize(String path) {
+        List<String> parts = new ArrayList<>();
+        for (String s : path.split("/")) {
+            if (s.isEmpty() || s.equals(".")) continue;
+            if (s.equals("..")) {
+                if (parts.isEmpty()) return null;
+                parts.remove(parts.size() - 1);
+            } else {
+                parts.add(s);
+            }
+        }
+        return parts.isEmpty() ? null : String.join("/", parts);
+    }
+
+    // ========== 읽기 ==========
+
+    public String urdfEntry() {
+        return root + URDF_FILE;
+    }
+
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * 항목 내용 (position=0, limit=크기, little-endian)
+     * - 여러 스레드에서 동시에 불러도 됨 (위치 지정 읽기 + 호출마다 Inflater)
+     */
+    public ByteBuffer read(String name) throws IOException {
+        Entry e = entries.get(name);
+        if (e == null) throw new FileNotFoundException(name + " in " + file.getName());
+        ByteBuffer out;
+        switch (e.method()) {
+            case METHOD_STORED -> out = readFully(channel, e.dataOffset(), (int) e.size());
+            case METHOD_DEFLATED -> out = inflate(e);
+            default -> throw new IOException("Unsupported compression method " + e.method() + ": " + name);
+        }
+        return out.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public InputStream openStream(String name) throws IOException {
+        ByteBuffer b = read(name);
+        return new ByteArrayInputStream(b.array(), b.arrayOffset() + b.position(), b.remaining());
+    }
+
+    private ByteBuffer inflate(Entry e) throws IOException {
+        ByteBuffer compressed = readFully(channel, e.dataOffset(), (int) e.compressedSize());
+        byte[] out = new byte[(int) e.size()];
+        Inflater inflater = new Inflater(true); // zip 항목은 zlib 헤더 없음
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < out.length) {
+                int r = inflater.inflate(out, n, out.length - n);
+                if (r == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+                n += r;
+            }
+            if (n != out.length) throw new IOException("Corrupt zip entry (size mismatch): " + e.name());
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt zip entry: " + e.name(), ex);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(out);
+    }
+
+    private static ByteBuffer readFully(FileChannel ch, long position, int size) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (ch.read(b, position + b.position()) < 0) throw new EOFException();
+        }
+        return b.flip();
+    }
+
+    // ========== 메시 경로 해석 (URDFParser 디렉터리 규칙과 같은 순서) ==========
+
+    /** mesh filename → 항목 이름 (없으면 null) */
+    public String resolveMesh(String uri) {
+        if (uri == null || uri.isEmpty()) return null;
+        String rel = uri.replace('\\', '/');
+        if (rel.startsWith("package://")) {
+            rel = rel.substring("package://".length());
+            int slash = rel.indexOf('/');
+            rel = slash >= 0 ? rel.substring(slash + 1) : rel;
+        } else if (rel.startsWith("file://") || rel.startsWith("/")) {
+            return null; // 팩 밖 절대 경로
+        }
+
+        // 1) robot.urdf 기준 상대 경로
+        String name = normalize(root + rel);
+        if (name != null && entries.containsKey(name)) return name;
+
+        // 2) meshes/ 아래 같은 이름
+        String fileName = rel.substring(rel.lastIndexOf('/') + 1);
+        name = root + "meshes/" + fileName;
+        if (entries.containsKey(name)) return name;
+
+        // 3) 팩 안 어디든 같은 이름 (대소문자 무시)
+        List<String> candidates = byFileName.get(fileName.toLowerCase(Locale.ROOT));
+        if (candidates != null) {
+            for (String c : candidates) {
+                if (c.startsWith(root)) return c;
+            }
+        }
+        return null;
+    }
+
+    public File getFile() { return file; }
+    public int getEntryCount() { return entries.size(); }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
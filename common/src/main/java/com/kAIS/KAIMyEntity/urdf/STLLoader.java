@@ -123,6 +123,57 @@ public class STLLoader {
         }
     }
     
+    /**
+     * 메모리 버퍼에서 STL 로드 (모델 팩 zip 항목 등, position~limit 이 파일 내용)
+     * - 버퍼 위치는 바꾸지 않음
+     */
+    public static STLMesh load(String name, ByteBuffer data) {
+        ByteBuffer buf = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (isBinarySTL(buf)) {
+                logger.info("Loading binary STL: " + name);
+                return loadBinarySTL(buf);
+            } else {
+                logger.info("Loading ASCII STL: " + name);
+                String text = StandardCharsets.US_ASCII.decode(buf).toString();
+                return loadASCIISTL(new BufferedReader(new StringReader(text)));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to load STL: " + name, e);
+            return null;
+        }
+    }
+
+    /** Binary STL인지 확인 (버퍼 버전, 규칙은 파일 버전과 같음) */
+    private static boolean isBinarySTL(ByteBuffer buf) {
+        int size = buf.remaining();
+        if (size < 84) return false;
+        boolean solid = buf.get(0) == 's' && buf.get(1) == 'o' && buf.get(2) == 'l'
+                && buf.get(3) == 'i' && buf.get(4) == 'd';
+        if (!solid) return true;
+        long expectedSize = 84L + (50L * buf.getInt(80));
+        return size == expectedSize;
+    }
+
+    /** Binary STL 로드 (버퍼 버전: 50바이트 복사 없이 바로 읽음) */
+    private static STLMesh loadBinarySTL(ByteBuffer buf) {
+        STLMesh mesh = new STLMesh();
+        int triangleCount = buf.getInt(80);
+        int available = (buf.remaining() - 84) / 50;
+        if (triangleCount < 0 || triangleCount > available) triangleCount = available; // 잘린 파일
+        logger.debug("Binary STL triangle count: " + triangleCount);
+
+        ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        b.position(84);
+        mesh.triangles = new ArrayList<>(triangleCount);
+        for (int i = 0; i < triangleCount; i++) {
+            mesh.triangles.add(readTriangle(b));
+        }
+        mesh.computeBounds();
+        logger.info("Loaded " + mesh.getTriangleCount() + " triangles");
+        return mesh;
+    }
+
     /**
      * Binary STL인지 확인
      */
@@ -202,8 +253,11 @@ public class STLLoader {
             return null;
         }
         
-        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-        
+        return readTriangle(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /** 현재 위치에서 Triangle 1개 (50바이트, little-endian) */
+    private static Triangle readTriangle(ByteBuffer buffer) {
         Triangle tri = new Triangle();
         
         // Normal (12바이트)
@@ -227,6 +281,7 @@ public class STLLoader {
         tri.vertices[2].z = buffer.getFloat();
         
         // Attribute byte count (2바이트) - 무시
+        buffer.position(buffer.position() + 2);
         
         // Normal이 0이면 계산
         if (tri.normal.lengthSquared() < 0.0001f) {
@@ -240,9 +295,13 @@ public class STLLoader {
      * ASCII STL 로드
      */
     private static STLMesh loadASCIISTL(File file) throws IOException {
+        return loadASCIISTL(new BufferedReader(new FileReader(file)));
+    }
+
+    private static STLMesh loadASCIISTL(BufferedReader in) throws IOException {
         STLMesh mesh = new STLMesh();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = in) {
             String line;
             Triangle currentTriangle = null;
             int vertexIndex = 0;
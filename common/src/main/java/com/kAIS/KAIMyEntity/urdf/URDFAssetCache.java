@@ -0,0 +1,129 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * URDF 공유 자산 캐시 (robot.urdf 경로당 URDFRobotDefinition 1개)
+ * - 같은 로봇을 여러 엔티티가 써도 파싱/STL 로드는 1번
+ * - robot.urdf 수정 시각이 바뀌었으면 다시 로드
+ * - acquire/release 로 사용자 수를 세고, 마지막 사용자가 반납하면 캐시에서 내림 (메시 메모리 회수)
+ * - 파싱/STL 로드는 잠금 밖에서 (다른 로봇은 병렬로 로드, 같은 로봇은 진행 중인 로드를 기다림)
+ */
+public final class URDFAssetCache {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final Map<String, URDFRobotDefinition> definitions = new HashMap<>();
+    /** 키 → 진행 중인 로드 (같은 로봇 동시 요청은 이걸 기다림) */
+    private static final Map<String, CompletableFuture<URDFRobotDefinition>> inFlight = new HashMap<>();
+    /** clear 마다 증가: 그 전에 시작한 로드 결과는 캐시에 넣지 않음 */
+    private static int generation = 0;
+    private static long hits = 0;
+    private static long loads = 0;
+    private static long released = 0;
+
+    private URDFAssetCache() {}
+
+    /** 캐시된 정의 (없거나 오래됐으면 로드, 실패하면 null) */
+    public static URDFRobotDefinition get(File urdfFile, String modelDir) {
+        String key = keyOf(urdfFile);
+        CompletableFuture<URDFRobotDefinition> pending;
+        boolean owner = false;
+        int gen;
+        synchronized (URDFAssetCache.class) {
+            URDFRobotDefinition def = definitions.get(key);
+            if (def != null && !def.isStale()) {
+                hits++;
+                return def;
+            }
+            pending = inFlight.get(key);
+            if (pending == null) {
+                if (def != null) logger.info("URDF changed on disk, reloading: {}", key);
+                pending = new CompletableFuture<>();
+                inFlight.put(key, pending);
+                owner = true;
+            } else {
+                hits++;
+            }
+            gen = generation;
+        }
+        // 다른 스레드가 같은 로봇을 로드 중 → 잠금 밖에서 결과를 기다림
+        if (!owner) return pending.join();
+
+        URDFRobotDefinition def = null;
+        try {
+            def = URDFRobotDefinition.load(urdfFile, modelDir);
+        } finally {
+            synchronized (URDFAssetCache.class) {
+                loads++;
+                inFlight.remove(key, pending);
+                if (gen == generation) {
+                    if (def == null) {
+                        definitions.remove(key);
+                    } else {
+                        definitions.put(key, def);
+                    }
+                }
+            }
+            pending.complete(def);
+        }
+        if (def != null) {
+            logger.info("✓ URDF assets cached: {} ({} meshes, {} tris)",
+                    def.getRobotName(), def.getMeshCount(), def.getTriangleCount());
+        }
+        return def;
+    }
+
+    /** get + 사용자 등록 (인스턴스가 Release 할 때 release 로 반납) */
+    public static URDFRobotDefinition acquire(File urdfFile, String modelDir) {
+        URDFRobotDefinition def = get(urdfFile, modelDir);
+        if (def == null) return null;
+        synchronized (URDFAssetCache.class) {
+            // get 과 acquire 사이에 마지막 사용자가 release 로 내렸을 수 있음 → 다시 올림
+            if (def.users++ == 0 && !def.isStale()) definitions.putIfAbsent(keyOf(urdfFile), def);
+        }
+        return def;
+    }
+
+    private static String keyOf(File urdfFile) {
+        return urdfFile.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /** 사용자 반납: 아무도 안 쓰면 캐시에서 제거 (다음 acquire 에서 다시 로드) */
+    public static synchronized void release(URDFRobotDefinition def) {
+        if (def == null || def.users <= 0) return;
+        if (--def.users > 0) return;
+        if (definitions.values().remove(def)) {
+            released++;
+            logger.info("URDF assets released: {} ({} meshes)", def.getRobotName(), def.getMeshCount());
+        }
+    }
+
+    /**
+     * 한 로봇만 버림 (STL/URDF 가 디스크에서 바뀜 → 다음 get 에서 다시 로드)
+     * - 진행 중인 로드도 결과를 캐시에 넣지 않음 (바뀌기 전 파일을 읽었을 수 있음)
+     * - 이미 만든 인스턴스는 이전 정의로 계속 동작 (release 하면 정리)
+     */
+    public static synchronized void invalidate(File urdfFile) {
+        String key = keyOf(urdfFile);
+        definitions.remove(key);
+        if (inFlight.remove(key) != null) generation++;
+    }
+
+    /** 전부 버림 (다음 get 에서 다시 로드, 이미 만든 인스턴스는 그대로 동작) */
+    public static synchronized void clear() {
+        generation++;
+        definitions.clear();
+        inFlight.clear();
+    }
+
+    public static synchronized int size() { return definitions.size(); }
+    public static synchronized long hitCount() { return hits; }
+    public static synchronized long loadCount() { return loads; }
+    public static synchronized long releasedCount() { return released; }
+}
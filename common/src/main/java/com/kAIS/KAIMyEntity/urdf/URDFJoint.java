@@ -85,6 +85,21 @@ public class URDFJoint {
         }
     }
 
+    /**
+     * 같은 토폴로지를 공유하는 새 조인트 (URDFRobotModel.newInstance 용)
+     * - origin/axis/limit/dynamics 는 파서 이후 수정하지 않으므로 참조 공유, 런타임 상태만 새로
+     */
+    public URDFJoint instanceCopy() {
+        URDFJoint j = new URDFJoint(name, type);
+        j.parentLinkName = parentLinkName;
+        j.childLinkName = childLinkName;
+        j.origin = origin;
+        j.axis = axis;
+        j.limit = limit;
+        j.dynamics = dynamics;
+        return j;
+    }
+
     public boolean isMovable() {
         return type != JointType.FIXED;
     }
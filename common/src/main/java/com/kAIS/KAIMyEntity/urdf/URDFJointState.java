@@ -0,0 +1,71 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 측정된 관절 상태 (Webots → Minecraft), URDF 관절 인덱스 기준
+ * - 단일 writer(피드백 수신 스레드) / 단일 reader(틱 스레드) 트리플 버퍼 → 락/할당 없음
+ * - reader 는 항상 가장 최근에 완성된 샘플을 봄 (중간 샘플은 건너뜀)
+ */
+public final class URDFJointState {
+    public static final int IMU_SIZE = 9;  // roll, pitch, yaw, gyro xyz, accel xyz
+    public static final int FOOT_SIZE = 2; // left, right
+
+    /** 한 시점의 측정값 */
+    public static final class Sample {
+        public final float[] position;
+        public final float[] velocity;
+        public final boolean[] valid;
+        public final float[] imu = new float[IMU_SIZE];
+        public final float[] foot = new float[FOOT_SIZE];
+        public boolean hasImu;
+        public boolean hasFoot;
+        public long seq;
+        /** 수신 시각 (System.nanoTime) */
+        public long receiveNanos;
+        volatile boolean fresh;
+
+        Sample(int jointCount) {
+            this.position = new float[jointCount];
+            this.velocity = new float[jointCount];
+            this.valid = new boolean[jointCount];
+        }
+    }
+
+    private final int jointCount;
+    private Sample back;                              // writer 전용
+    private final AtomicReference<Sample> middle;
+    private Sample front;                             // reader 전용
+
+    public URDFJointState(int jointCount) {
+        this.jointCount = jointCount;
+        this.back = new Sample(jointCount);
+        this.middle = new AtomicReference<>(new Sample(jointCount));
+        this.front = new Sample(jointCount);
+    }
+
+    public int jointCount() { return jointCount; }
+
+    /** writer: 채울 샘플 (publish 전까지 reader 에게 보이지 않음) */
+    public Sample beginWrite() {
+        return back;
+    }
+
+    /** writer: beginWrite 로 채운 샘플 게시 */
+    public void publish(long seq, long receiveNanos) {
+        Sample s = back;
+        s.seq = seq;
+        s.receiveNanos = receiveNanos;
+        s.fresh = true;
+        back = middle.getAndSet(s);
+    }
+
+    /** reader: 가장 최근 샘플 (아직 한 번도 게시되지 않았으면 null) */
+    public Sample latest() {
+        if (middle.get().fresh) {
+            front.fresh = false;
+            front = middle.getAndSet(front);
+        }
+        return front.receiveNanos == 0 ? null : front;
+    }
+}
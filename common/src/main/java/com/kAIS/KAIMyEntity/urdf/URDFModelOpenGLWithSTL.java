@@ -1,5 +1,6 @@
 package com.kAIS.KAIMyEntity.urdf;
 
+import com.kAIS.KAIMyEntity.metrics.PipelineTrace;
 import com.kAIS.KAIMyEntity.urdf.control.URDFMotionEditor;
 import com.kAIS.KAIMyEntity.urdf.control.URDFMotionPlayer;
 import com.kAIS.KAIMyEntity.urdf.control.URDFSimpleController;
@@ -18,7 +19,6 @@ import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -36,11 +36,12 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
     // ★ 최근 생성된 인스턴스 기록
     public static volatile URDFModelOpenGLWithSTL LAST_CREATED = null;
 
-    private URDFRobotModel robotModel;
+    // 핫 리로드(swapDefinition) 시 클라이언트 스레드에서 통째로 교체
+    private volatile URDFRobotModel robotModel;
     private String modelDir;
 
-    // 메시 캐시: link.name -> mesh
-    private final Map<String, STLLoader.STLMesh> meshCache = new HashMap<>();
+    // 공유 자산 (토폴로지 템플릿 + 메시, 같은 모델 폴더의 모든 인스턴스가 공유)
+    private volatile URDFRobotDefinition definition;
 
     // 전역 스케일
     private static final float GLOBAL_SCALE = 5.0f;
@@ -63,15 +64,24 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
     private static final Quaternionf Q_ROS2MC = makeUprightQuat(SRC_UP, SRC_FWD, DST_UP, DST_FWD);
 
     // ------------ 모션/컨트롤 ------------
-    private final URDFSimpleController ctrl;
-    private final URDFMotionEditor motionEditor;
+    private volatile URDFSimpleController ctrl;
+    private volatile URDFMotionEditor motionEditor;
     private final URDFMotionPlayer motionPlayer = new URDFMotionPlayer();
 
-    public URDFModelOpenGLWithSTL(URDFRobotModel robotModel, String modelDir) {
-        this.robotModel = robotModel;
-        this.modelDir = modelDir;
-        logger.info("=== URDF renderer Created ===");
-        loadAllMeshes();
+    // ------------ 지연 추적 (PipelineTrace) ------------
+    private long lastVmcSeq = 0;
+    private long pendingControllerTrace = 0; // 컨트롤러 스텝 대기 중인 프레임 수신 시각
+    private long pendingRenderTrace = 0;     // 렌더 대기 중인 프레임 수신 시각
+
+    // ------------ 미러 모드: Webots 측정 상태를 그대로 표시 ------------
+    private volatile boolean mirrorMode = false;
+
+    /** 공유 정의에서 인스턴스 생성 (조인트 상태/컨트롤러만 새로, 메시는 공유) */
+    public URDFModelOpenGLWithSTL(URDFRobotDefinition definition) {
+        this.definition = definition;
+        this.robotModel = definition.newInstance();
+        this.modelDir = definition.getModelDir();
+        logger.info("=== URDF renderer Created ({} meshes shared) ===", definition.getMeshCount());
 
         // 컨트롤/모션 초기화
         this.ctrl = new URDFSimpleController(robotModel.joints);
@@ -81,43 +91,53 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
         LAST_CREATED = this;
     }
 
-    private void loadAllMeshes() {
-        logger.info("=== Loading STL meshes ===");
-        int loadedCount = 0;
-        for (URDFLink link : robotModel.links) {
-            if (link.visual != null && link.visual.geometry != null) {
-                URDFLink.Geometry g = link.visual.geometry;
-                if (g.type == URDFLink.Geometry.GeometryType.MESH && g.meshFilename != null) {
-                    File f = new File(g.meshFilename);
-                    if (f.exists()) {
-                        STLLoader.STLMesh mesh = STLLoader.load(g.meshFilename);
-                        if (mesh != null) {
-                            if (g.scale != null && (g.scale.x != 1f || g.scale.y != 1f || g.scale.z != 1f)) {
-                                STLLoader.scaleMesh(mesh, g.scale);
-                            }
-                            meshCache.put(link.name, mesh);
-                            loadedCount++;
-                            logger.info("  ✓ Loaded mesh for '{}': {} tris", link.name, mesh.getTriangleCount());
-                        } else {
-                            logger.error("  ✗ Failed to load mesh: {}", g.meshFilename);
-                        }
-                    } else {
-                        logger.warn("  ✗ Mesh file not found: {}", g.meshFilename);
-                    }
-                }
-            }
-        }
-        logger.info("=== STL Loading Complete: {}/{} meshes ===", loadedCount, robotModel.getLinkCount());
-    }
-
     // ===== 틱 업데이트 (20Hz 권장) =====
     public void tickUpdate(float dt) {
         if (motionPlayer.isPlaying()) {
             motionPlayer.update(dt, this::setJointTarget);
         }
-        ctrl.update(dt);
+        if (mirrorMode) {
+            applyMeasuredState();
+        } else {
+            ctrl.update(dt);
+        }
+
+        if (pendingControllerTrace != 0) {
+            PipelineTrace.record(PipelineTrace.Stage.CONTROLLER, pendingControllerTrace);
+            pendingRenderTrace = pendingControllerTrace;
+            pendingControllerTrace = 0;
+        }
+    }
+
+    /**
+     * 미러 모드: 컨트롤러 대신 Webots 측정 상태(URDFJointState)로 자세 표시
+     * - 목표값(setJointTarget)은 계속 받아서 Webots 로 전송됨
+     */
+    public void setMirrorMode(boolean mirror) { this.mirrorMode = mirror; }
+    public boolean isMirrorMode() { return mirrorMode; }
+
+    /** 인덱스 기반 현재 목표 (미러 모드에서 Webots 전송용) */
+    public float getJointTarget(int index) { return ctrl.getTarget(index); }
+
+    private void applyMeasuredState() {
+        URDFJointState state = robotModel.measuredStateIfPresent();
+        if (state == null) return;
+        URDFJointState.Sample s = state.latest();
+        if (s == null) return;
+        int n = Math.min(s.position.length, robotModel.joints.size());
+        for (int i = 0; i < n; i++) {
+            if (!s.valid[i]) continue;
+            URDFJoint j = robotModel.joints.get(i);
+            j.currentPosition = s.position[i];
+            j.currentVelocity = s.velocity[i];
+        }
     }
 
+    /** VMC 프레임 적용 시 호출: 이후 컨트롤러 스텝/렌더에서 지연 기록 */
+    public void traceFrame(long receiveNanos) { this.pendingControllerTrace = receiveNanos; }
+    public long getLastVmcSeq() { return lastVmcSeq; }
+    public void setLastVmcSeq(long seq) { this.lastVmcSeq = seq; }
+
     // ===== 외부 제어용 편의 API =====
     public void setJointTarget(String name, float value) { ctrl.setTarget(name, value); }
     public void setJointTargets(Map<String, Float> values) { ctrl.setTargets(values); }
@@ -131,6 +151,15 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
         }
     }
 
+    /** 인덱스 기반 목표 설정 (robotModel.joints 순서) */
+    public void setJointTarget(int index, float value) { ctrl.setTarget(index, value); }
+
+    /** 인덱스 기반 프리뷰: 이름 검색 없이 currentPosition 덮어씀 */
+    public void setJointPreview(int index, float value) {
+        if (index < 0 || index >= robotModel.joints.size()) return;
+        robotModel.joints.get(index).currentPosition = value;
+    }
+
     public URDFMotionEditor getMotionEditor() { return motionEditor; }
     public URDFMotionPlayer getMotionPlayer() { return motionPlayer; }
 
@@ -143,6 +172,12 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
             logger.info("=== URDF RENDER #{} ===", renderCount);
         }
 
+        if (pendingRenderTrace != 0) {
+            PipelineTrace.record(PipelineTrace.Stage.RENDER, pendingRenderTrace);
+            pendingRenderTrace = 0;
+        }
+        if (mirrorMode) applyMeasuredState(); // 틱 사이 도착한 최신 측정값 반영
+
         // 전역 렌더 상태
         RenderSystem.enableBlend();
         RenderSystem.defaultBlendFunc();
@@ -202,7 +237,7 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
             applyLinkOriginTransform(link.visual.origin, poseStack);
         }
 
-        STLLoader.STLMesh mesh = meshCache.get(link.name);
+        STLLoader.STLMesh mesh = definition.mesh(link.name);
         if (mesh != null) {
             renderMesh(mesh, link, poseStack, vc, packedLight);
         }
@@ -317,18 +352,55 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
     @Override public long GetModelLong() { return 0; }
     @Override public String GetModelDir() { return modelDir; }
 
+    /** 공유 정의 참조 반납 (마지막 사용자면 메시까지 캐시에서 내려감) */
+    @Override public void Release() { URDFAssetCache.release(definition); }
+
+    /** 같은 robot.urdf 는 URDFAssetCache 에서 파싱/메시 로드 1회, 인스턴스만 새로 */
     public static URDFModelOpenGLWithSTL Create(String urdfPath, String modelDir) {
         File urdfFile = new File(urdfPath);
         if (!urdfFile.exists()) return null;
-        URDFRobotModel robot = URDFParser.parse(urdfFile);
-        if (robot == null || robot.rootLinkName == null) return null;
-        return new URDFModelOpenGLWithSTL(robot, modelDir);
+        URDFRobotDefinition def = URDFAssetCache.acquire(urdfFile, modelDir);
+        if (def == null) return null;
+        return new URDFModelOpenGLWithSTL(def);
     }
 
     public URDFRobotModel getRobotModel() {
         return robotModel;
     }
 
+    public URDFRobotDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * 핫 리로드: 새 정의로 교체 (클라이언트 스레드에서 호출 → 렌더/틱 도중에 바뀌지 않음)
+     * - 같은 이름 관절의 현재 위치/속도/목표값은 이어받음 (없어진 관절은 버림, 새 관절은 기본값)
+     * - newDefinition 은 호출 전에 acquire 된 상태여야 함, 이전 정의는 여기서 release
+     * @return 이전 로봇 모델 (리타게터/Webots 구독 재바인딩용)
+     */
+    public URDFRobotModel swapDefinition(URDFRobotDefinition newDefinition) {
+        URDFRobotModel oldRobot = robotModel;
+        URDFRobotDefinition oldDefinition = definition;
+        URDFRobotModel newRobot = newDefinition.newInstance();
+        for (URDFJoint j : newRobot.joints) {
+            URDFJoint o = oldRobot.getJoint(j.name);
+            if (o == null || o.type != j.type) continue;
+            j.currentPosition = o.currentPosition;
+            j.currentVelocity = o.currentVelocity;
+        }
+        URDFSimpleController newCtrl = new URDFSimpleController(newRobot.joints);
+        newCtrl.copyStateFrom(ctrl);
+
+        this.ctrl = newCtrl;
+        this.motionEditor = new URDFMotionEditor(newRobot, newCtrl);
+        this.robotModel = newRobot;
+        this.definition = newDefinition;
+        URDFAssetCache.release(oldDefinition);
+        logger.info("♻ URDF hot-swapped: {} ({} joints, {} meshes)",
+                newRobot.name, newRobot.getJointCount(), newDefinition.getMeshCount());
+        return oldRobot;
+    }
+
     // ===== 내부 유틸 =====
     private URDFJoint getJointByName(String name) {
         if (name == null) return null;
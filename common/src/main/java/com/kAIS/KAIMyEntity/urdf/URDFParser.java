@@ -3,100 +3,136 @@ package com.kAIS.KAIMyEntity.urdf;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joml.Vector3f;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
-
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * URDF 파서 (StAX 한 번 훑기 → URDFRobotModel 바로 생성)
+ * - DOM 을 만들지 않고, link/joint 마다 하위 트리를 다시 검색하지 않음 (큰 다중 로봇 URDF 도 수 ms)
+ * - 요소/속성 이름은 접두사를 떼고 비교 (xacro: 처럼 선언 안 된 접두사도 통과)
+ * - link/visual 아래는 깊이 무관 첫 요소, joint 아래는 바로 아래 자식만 (기존 DOM 파서와 동일)
+ * - transmission/gazebo 안의 joint/link 는 로봇 구조가 아니므로 건너뜀
+ */
 public class URDFParser {
     private static final Logger logger = LogManager.getLogger();
-    private static File baseDir; // URDF 파일이 있는 디렉토리
+    // URDF 파일이 있는 디렉토리 (스레드별: 백그라운드 로더가 여러 모델을 동시에 파싱)
+    private static final ThreadLocal<File> BASE_DIR = new ThreadLocal<>();
+    // zip 모델 팩에서 파싱 중이면 그 팩 (메시 경로 = 팩 항목 이름)
+    private static final ThreadLocal<ModelPack> PACK = new ThreadLocal<>();
+
+    private static final XMLInputFactory XML = newFactory();
+    private static final Pattern WS = Pattern.compile("\\s+");
 
     public static URDFRobotModel parse(File urdfFile) {
-        try {
-            baseDir = urdfFile.getParentFile();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(urdfFile))) {
+            File baseDir = urdfFile.getParentFile();
+            BASE_DIR.set(baseDir);
             logger.info("=== URDF Parsing Start ===");
             logger.info("File: " + urdfFile.getAbsolutePath());
             logger.info("Base directory: " + baseDir.getAbsolutePath());
 
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true); // ★ 네임스페이스 활성화
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(urdfFile);
-            doc.getDocumentElement().normalize();
-
-            Element robotElement = doc.getDocumentElement();
-            String robotName = robotElement.getAttribute("name");
-
-            URDFRobotModel robot = new URDFRobotModel(robotName);
-
-            // links
-            NodeList all = robotElement.getElementsByTagName("*");
-            int linkCount = 0;
-            for (int i = 0; i < all.getLength(); i++) {
-                Node n = all.item(i);
-                if (n.getNodeType() != Node.ELEMENT_NODE) continue;
-                String ln = n.getLocalName(), qn = n.getNodeName();
-                if (!"link".equals(ln) && !"link".equals(qn)) continue;
-                URDFLink link = parseLink((Element) n);
-                if (link != null) {
-                    robot.addLink(link);
-                    linkCount++;
-                    logger.debug("  + Link: " + link.name);
-                }
-            }
-            logger.info("Found " + linkCount + " links");
-
-            // joints
-            int jointCount = 0;
-            for (int i = 0; i < all.getLength(); i++) {
-                Node n = all.item(i);
-                if (n.getNodeType() != Node.ELEMENT_NODE) continue;
-                String ln = n.getLocalName(), qn = n.getNodeName();
-                if (!"joint".equals(ln) && !"joint".equals(qn)) continue;
-                URDFJoint joint = parseJoint((Element) n);
-                if (joint != null) {
-                    robot.addJoint(joint);
-                    jointCount++;
-                    logger.debug("  + Joint: " + joint.name + " (" + joint.type + ")");
-                }
-            }
-            logger.info("Found " + jointCount + " joints");
+            return build(in, urdfFile.getAbsolutePath());
 
-            robot.buildHierarchy();
+        } catch (Exception e) {
+            logger.error("✗ Failed to parse URDF file: " + urdfFile.getAbsolutePath(), e);
+            return null;
+        } finally {
+            BASE_DIR.remove();
+        }
+    }
 
-            if (robot.rootLinkName == null || robot.getLink(robot.rootLinkName) == null) {
-                logger.error("✗ No valid root link found!");
-                logger.error("  Check parent/child relationships in joints");
-                return null;
-            }
+    /** zip 모델 팩의 robot.urdf (메시 경로는 팩 항목 이름으로 해석) */
+    public static URDFRobotModel parse(ModelPack pack) {
+        PACK.set(pack);
+        String source = pack.getFile().getAbsolutePath() + "!/" + pack.urdfEntry();
+        try (InputStream in = new BufferedInputStream(pack.openStream(pack.urdfEntry()))) {
+            logger.info("=== URDF Parsing Start ===");
+            logger.info("File: " + source);
+            return build(in, source);
+        } catch (Exception e) {
+            logger.error("✗ Failed to parse URDF file: " + source, e);
+            return null;
+        } finally {
+            PACK.remove();
+        }
+    }
 
-            logger.info("=== URDF Parsing Complete ===");
-            logger.info("  Robot: " + robot.name);
-            logger.info("  Links: " + robot.getLinkCount());
-            logger.info("  Joints: " + robot.getJointCount());
-            logger.info("  Movable Joints: " + robot.getMovableJointCount());
-            logger.info("  Root Link: " + robot.rootLinkName);
+    private static XMLInputFactory newFactory() {
+        XMLInputFactory factory = XMLInputFactory.newDefaultFactory();
+        // ★ 접두사는 직접 떼서 비교 (xmlns 선언이 빠진 xacro 출력도 파싱)
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
 
-            return robot;
+    private static URDFRobotModel build(InputStream in, String systemId) throws XMLStreamException {
+        long start = System.nanoTime();
+        XMLStreamReader reader;
+        synchronized (XML) { // 팩토리 설정은 끝났지만 구현체가 스레드 안전을 보장하지 않음
+            reader = XML.createXMLStreamReader(systemId, in);
+        }
+        URDFRobotModel robot;
+        StaxReader r = new StaxReader(reader);
+        try {
+            robot = r.read();
+        } finally {
+            reader.close();
+        }
+        if (robot == null) {
+            logger.error("✗ No root element");
+            return null;
+        }
+        logger.info("Found " + r.linkCount + " links");
+        logger.info("Found " + r.jointCount + " joints");
 
-        } catch (Exception e) {
-            logger.error("✗ Failed to parse URDF file: " + urdfFile.getAbsolutePath(), e);
+        robot.buildHierarchy();
+
+        if (robot.rootLinkName == null || robot.getLink(robot.rootLinkName) == null) {
+            logger.error("✗ No valid root link found!");
+            logger.error("  Check parent/child relationships in joints");
             return null;
         }
+
+        logger.info("=== URDF Parsing Complete ({} ms) ===", (System.nanoTime() - start) / 1_000_000);
+        logger.info("  Robot: " + robot.name);
+        logger.info("  Links: " + robot.getLinkCount());
+        logger.info("  Joints: " + robot.getJointCount());
+        logger.info("  Movable Joints: " + robot.getMovableJointCount());
+        logger.info("  Root Link: " + robot.rootLinkName);
+
+        return robot;
     }
 
     // ========== 메시 경로 해석 (개선) ==========
 
     private static String resolveMeshPath(String uri) {
         if (uri == null || uri.isEmpty()) return null;
+        File baseDir = BASE_DIR.get();
 
         logger.debug("Resolving mesh URI: " + uri);
 
+        // 0) zip 모델 팩
+        ModelPack pack = PACK.get();
+        if (pack != null) {
+            String entry = pack.resolveMesh(uri);
+            if (entry == null) logger.warn("  -> Could not resolve mesh in pack: " + uri);
+            return entry;
+        }
+
         // 1) file://
         if (uri.startsWith("file://")) {
             try {
@@ -174,365 +210,469 @@ public class URDFParser {
         return null;
     }
 
-    // ========== 파싱 메서드들 ==========
-
-    private static URDFLink parseLink(Element linkElement) {
-        String name = safeGetAttr(linkElement, "name");
-        if (isEmpty(name)) name = findAttrByLocalName(linkElement, "name");
-        if (isEmpty(name)) {
-            logger.warn("Link element without name attribute. Skipping.");
-            return null;
-        }
-
-        URDFLink link = new URDFLink(name);
-
-        // visual
-        Element visualEl = getDirectChildByLocalName(linkElement, "visual");
-        if (visualEl == null) {
-            NodeList visualNodes = linkElement.getElementsByTagName("visual");
-            if (visualNodes.getLength() > 0) visualEl = (Element) visualNodes.item(0);
-        }
-        if (visualEl != null) link.visual = parseVisual(visualEl);
-
-        // collision
-        Element collisionEl = getDirectChildByLocalName(linkElement, "collision");
-        if (collisionEl == null) {
-            NodeList nodes = linkElement.getElementsByTagName("collision");
-            if (nodes.getLength() > 0) collisionEl = (Element) nodes.item(0);
-        }
-        if (collisionEl != null) link.collision = parseCollision(collisionEl);
-
-        // inertial
-        Element inertialEl = getDirectChildByLocalName(linkElement, "inertial");
-        if (inertialEl == null) {
-            NodeList nodes = linkElement.getElementsByTagName("inertial");
-            if (nodes.getLength() > 0) inertialEl = (Element) nodes.item(0);
-        }
-        if (inertialEl != null) link.inertial = parseInertial(inertialEl);
+    // ========== StAX 한 번 훑기 ==========
 
-        return link;
+    /** 열린 요소마다 쌓는 문맥 (닫힐 때 무엇을 마무리할지) */
+    private enum Ctx {
+        ROBOT,      // 로봇 아래 (감싼 요소 포함: link/joint 는 깊이 무관)
+        SKIP,       // 관심 없는 하위 트리
+        LINK, VISUAL, COLLISION, INERTIAL, GEOMETRY, MATERIAL,
+        JOINT,      // joint 바로 아래 자식만 봄
+        JOINT_TEXT  // joint 의 type/parent/child/axis (텍스트 폴백 수집)
     }
 
-    private static URDFLink.Visual parseVisual(Element visualElement) {
-        URDFLink.Visual visual = new URDFLink.Visual();
-
-        Element originEl = getDirectChildByLocalName(visualElement, "origin");
-        if (originEl == null) {
-            NodeList list = visualElement.getElementsByTagName("origin");
-            if (list.getLength() > 0) originEl = (Element) list.item(0);
-        }
-        if (originEl != null) visual.origin = parseOrigin(originEl);
-
-        Element geomEl = getDirectChildByLocalName(visualElement, "geometry");
-        if (geomEl == null) {
-            NodeList list = visualElement.getElementsByTagName("geometry");
-            if (list.getLength() > 0) geomEl = (Element) list.item(0);
-        }
-        if (geomEl != null) visual.geometry = parseGeometry(geomEl);
-
-        Element matEl = getDirectChildByLocalName(visualElement, "material");
-        if (matEl == null) {
-            NodeList list = visualElement.getElementsByTagName("material");
-            if (list.getLength() > 0) matEl = (Element) list.item(0);
+    private static final class StaxReader {
+        private final XMLStreamReader r;
+        private Ctx[] stack = new Ctx[32];
+        /** 이 요소가 문맥을 연 요소인지 (감싼 요소는 같은 문맥을 물려받기만 함) */
+        private boolean[] opens = new boolean[32];
+        private int depth = 0;
+
+        private URDFRobotModel robot;
+        int linkCount = 0;
+        int jointCount = 0;
+
+        // 현재 열린 대상 (문맥이 계층적이라 종류별 1개씩이면 충분)
+        private URDFLink link;
+        private URDFLink.Visual visual;
+        private URDFLink.Collision collision;
+        private URDFLink.Inertial inertial;
+        private URDFLink.Geometry geometry;
+        private int geometryRank;
+        private URDFLink.Material material;
+        /** visual/collision/inertial 의 첫 origin 만 (material 은 첫 color/texture 만) */
+        private boolean originSeen, colorSeen, textureSeen;
+
+        private PendingJoint joint;
+        private String textField;
+        private final StringBuilder text = new StringBuilder();
+
+        /** 같은 메시를 여러 링크가 쓰면 경로 해석(파일 검색)은 1번 */
+        private final Map<String, String> meshPaths = new HashMap<>();
+
+        StaxReader(XMLStreamReader r) {
+            this.r = r;
+        }
+
+        URDFRobotModel read() throws XMLStreamException {
+            while (r.hasNext()) {
+                switch (r.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> start(localName(r.getLocalName()));
+                    case XMLStreamConstants.END_ELEMENT -> end();
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                        if (depth > 0 && stack[depth - 1] == Ctx.JOINT_TEXT) {
+                            text.append(r.getTextCharacters(), r.getTextStart(), r.getTextLength());
+                        }
+                    }
+                    default -> { }
+                }
+            }
+            return robot;
         }
-        if (matEl != null) visual.material = parseMaterial(matEl);
-
-        return visual;
-    }
 
-    private static URDFLink.Collision parseCollision(Element collisionElement) {
-        URDFLink.Collision collision = new URDFLink.Collision();
-
-        Element originEl = getDirectChildByLocalName(collisionElement, "origin");
-        if (originEl == null) {
-            NodeList list = collisionElement.getElementsByTagName("origin");
-            if (list.getLength() > 0) originEl = (Element) list.item(0);
+        private void push(Ctx c) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+                opens = Arrays.copyOf(opens, depth * 2);
+            }
+            opens[depth] = depth == 0 || c != stack[depth - 1];
+            stack[depth++] = c;
         }
-        if (originEl != null) collision.origin = parseOrigin(originEl);
 
-        Element geomEl = getDirectChildByLocalName(collisionElement, "geometry");
-        if (geomEl == null) {
-            NodeList list = collisionElement.getElementsByTagName("geometry");
-            if (list.getLength() > 0) geomEl = (Element) list.item(0);
+        private void start(String name) {
+            if (depth == 0) {
+                // 루트: 이름 정확히 일치만 (기존 getAttribute 와 동일, 없으면 "")
+                String robotName = r.getAttributeValue(null, "name");
+                robot = new URDFRobotModel(robotName != null ? robotName : "");
+                push(Ctx.ROBOT);
+                return;
+            }
+            switch (stack[depth - 1]) {
+                case ROBOT -> startInRobot(name);
+                case LINK -> startInLink(name);
+                case VISUAL -> startInVisual(name);
+                case COLLISION -> startInCollision(name);
+                case INERTIAL -> startInInertial(name);
+                case GEOMETRY -> startInGeometry(name);
+                case MATERIAL -> startInMaterial(name);
+                case JOINT -> startInJoint(name);
+                case JOINT_TEXT -> push(Ctx.JOINT_TEXT);
+                default -> push(Ctx.SKIP);
+            }
         }
-        if (geomEl != null) collision.geometry = parseGeometry(geomEl);
-
-        return collision;
-    }
 
-    private static URDFLink.Inertial parseInertial(Element inertialElement) {
-        URDFLink.Inertial inertial = new URDFLink.Inertial();
-
-        Element originEl = getDirectChildByLocalName(inertialElement, "origin");
-        if (originEl == null) {
-            NodeList list = inertialElement.getElementsByTagName("origin");
-            if (list.getLength() > 0) originEl = (Element) list.item(0);
+        private void startInRobot(String name) {
+            if ("link".equals(name)) {
+                String linkName = attr(r, "name");
+                if (isEmpty(linkName)) {
+                    logger.warn("Link element without name attribute. Skipping.");
+                    push(Ctx.SKIP);
+                    return;
+                }
+                link = new URDFLink(linkName);
+                push(Ctx.LINK);
+            } else if ("joint".equals(name)) {
+                String jointName = attr(r, "name");
+                if (isEmpty(jointName)) {
+                    logger.warn("Joint element without name attribute. Skipping.");
+                    push(Ctx.SKIP);
+                    return;
+                }
+                joint = new PendingJoint(jointName, attr(r, "type"));
+                push(Ctx.JOINT);
+            } else if (name.equalsIgnoreCase("transmission") || name.equalsIgnoreCase("gazebo")) {
+                push(Ctx.SKIP);
+            } else {
+                push(Ctx.ROBOT);
+            }
         }
-        if (originEl != null) inertial.origin = parseOrigin(originEl);
 
-        Element massEl = getDirectChildByLocalName(inertialElement, "mass");
-        if (massEl == null) {
-            NodeList list = inertialElement.getElementsByTagName("mass");
-            if (list.getLength() > 0) massEl = (Element) list.item(0);
-        }
-        if (massEl != null) {
-            inertial.mass = new URDFLink.Inertial.Mass();
-            String v = safeOrLocal(massEl, "value");
-            if (!isEmpty(v)) inertial.mass.value = parseFloatSafe(v, 0f);
+        private void startInLink(String name) {
+            if (link.visual == null && name.equalsIgnoreCase("visual")) {
+                link.visual = visual = new URDFLink.Visual();
+                originSeen = false;
+                push(Ctx.VISUAL);
+            } else if (link.collision == null && name.equalsIgnoreCase("collision")) {
+                link.collision = collision = new URDFLink.Collision();
+                originSeen = false;
+                push(Ctx.COLLISION);
+            } else if (link.inertial == null && name.equalsIgnoreCase("inertial")) {
+                link.inertial = inertial = new URDFLink.Inertial();
+                originSeen = false;
+                push(Ctx.INERTIAL);
+            } else if (name.equalsIgnoreCase("visual") || name.equalsIgnoreCase("collision")
+                    || name.equalsIgnoreCase("inertial")) {
+                push(Ctx.SKIP); // 두 번째부터는 무시 (첫 요소만 사용)
+            } else {
+                push(Ctx.LINK);
+            }
         }
 
-        Element inertiaEl = getDirectChildByLocalName(inertialElement, "inertia");
-        if (inertiaEl == null) {
-            NodeList list = inertialElement.getElementsByTagName("inertia");
-            if (list.getLength() > 0) inertiaEl = (Element) list.item(0);
-        }
-        if (inertiaEl != null) {
-            inertial.inertia = new URDFLink.Inertial.Inertia();
-            inertial.inertia.ixx = parseFloatSafe(safeOrLocal(inertiaEl, "ixx"), 0f);
-            inertial.inertia.ixy = parseFloatSafe(safeOrLocal(inertiaEl, "ixy"), 0f);
-            inertial.inertia.ixz = parseFloatSafe(safeOrLocal(inertiaEl, "ixz"), 0f);
-            inertial.inertia.iyy = parseFloatSafe(safeOrLocal(inertiaEl, "iyy"), 0f);
-            inertial.inertia.iyz = parseFloatSafe(safeOrLocal(inertiaEl, "iyz"), 0f);
-            inertial.inertia.izz = parseFloatSafe(safeOrLocal(inertiaEl, "izz"), 0f);
+        private void startInVisual(String name) {
+            if (!originSeen && name.equalsIgnoreCase("origin")) {
+                originSeen = true;
+                visual.origin = parseOrigin(r);
+                push(Ctx.SKIP);
+            } else if (visual.geometry == null && name.equalsIgnoreCase("geometry")) {
+                visual.geometry = geometry = new URDFLink.Geometry();
+                geometryRank = Integer.MAX_VALUE;
+                push(Ctx.GEOMETRY);
+            } else if (visual.material == null && name.equalsIgnoreCase("material")) {
+                visual.material = material = new URDFLink.Material();
+                material.name = attr(r, "name");
+                colorSeen = textureSeen = false;
+                push(Ctx.MATERIAL);
+            } else {
+                push(isChild(name) ? Ctx.SKIP : Ctx.VISUAL);
+            }
         }
 
-        return inertial;
-    }
-
-    private static URDFLink.Geometry parseGeometry(Element geometryElement) {
-        URDFLink.Geometry geometry = new URDFLink.Geometry();
-
-        Element meshEl = getDirectChildByLocalName(geometryElement, "mesh");
-        if (meshEl == null) {
-            NodeList list = geometryElement.getElementsByTagName("mesh");
-            if (list.getLength() > 0) meshEl = (Element) list.item(0);
+        private void startInCollision(String name) {
+            if (!originSeen && name.equalsIgnoreCase("origin")) {
+                originSeen = true;
+                collision.origin = parseOrigin(r);
+                push(Ctx.SKIP);
+            } else if (collision.geometry == null && name.equalsIgnoreCase("geometry")) {
+                collision.geometry = geometry = new URDFLink.Geometry();
+                geometryRank = Integer.MAX_VALUE;
+                push(Ctx.GEOMETRY);
+            } else {
+                push(isChild(name) ? Ctx.SKIP : Ctx.COLLISION);
+            }
         }
-        if (meshEl != null) {
-            geometry.type = URDFLink.Geometry.GeometryType.MESH;
 
-            String rawUri = safeOrLocal(meshEl, "filename");
-            String resolved = resolveMeshPath(rawUri);
-            geometry.meshFilename = (resolved != null) ? resolved : rawUri;
-
-            String scl = safeOrLocal(meshEl, "scale");
-            geometry.scale = !isEmpty(scl) ? parseVector3(scl) : new Vector3f(1f, 1f, 1f);
-            return geometry;
+        private void startInInertial(String name) {
+            if (!originSeen && name.equalsIgnoreCase("origin")) {
+                originSeen = true;
+                inertial.origin = parseOrigin(r);
+            } else if (inertial.mass == null && name.equalsIgnoreCase("mass")) {
+                inertial.mass = new URDFLink.Inertial.Mass();
+                String v = attr(r, "value");
+                if (!isEmpty(v)) inertial.mass.value = parseFloatSafe(v, 0f);
+            } else if (inertial.inertia == null && name.equalsIgnoreCase("inertia")) {
+                URDFLink.Inertial.Inertia in = inertial.inertia = new URDFLink.Inertial.Inertia();
+                in.ixx = parseFloatSafe(attr(r, "ixx"), 0f);
+                in.ixy = parseFloatSafe(attr(r, "ixy"), 0f);
+                in.ixz = parseFloatSafe(attr(r, "ixz"), 0f);
+                in.iyy = parseFloatSafe(attr(r, "iyy"), 0f);
+                in.iyz = parseFloatSafe(attr(r, "iyz"), 0f);
+                in.izz = parseFloatSafe(attr(r, "izz"), 0f);
+            } else {
+                push(isChild(name) ? Ctx.SKIP : Ctx.INERTIAL);
+                return;
+            }
+            push(Ctx.SKIP);
         }
 
-        Element boxEl = getDirectChildByLocalName(geometryElement, "box");
-        if (boxEl == null) {
-            NodeList list = geometryElement.getElementsByTagName("box");
-            if (list.getLength() > 0) boxEl = (Element) list.item(0);
-        }
-        if (boxEl != null) {
-            geometry.type = URDFLink.Geometry.GeometryType.BOX;
-            geometry.boxSize = parseVector3(safeOrLocal(boxEl, "size"));
-            return geometry;
+        /** visual/collision/inertial 안의 이미 처리한 종류 → 그 하위는 무시 */
+        private static boolean isChild(String name) {
+            return name.equalsIgnoreCase("origin") || name.equalsIgnoreCase("geometry")
+                    || name.equalsIgnoreCase("material") || name.equalsIgnoreCase("mass")
+                    || name.equalsIgnoreCase("inertia");
         }
 
-        Element cylEl = getDirectChildByLocalName(geometryElement, "cylinder");
-        if (cylEl == null) {
-            NodeList list = geometryElement.getElementsByTagName("cylinder");
-            if (list.getLength() > 0) cylEl = (Element) list.item(0);
-        }
-        if (cylEl != null) {
-            geometry.type = URDFLink.Geometry.GeometryType.CYLINDER;
-            geometry.cylinderRadius = parseFloatSafe(safeOrLocal(cylEl, "radius"), 0f);
-            geometry.cylinderLength = parseFloatSafe(safeOrLocal(cylEl, "length"), 0f);
-            return geometry;
+        /** 기존과 같은 우선순위: mesh > box > cylinder > sphere (문서 순서 무관, 종류별 첫 요소) */
+        private void startInGeometry(String name) {
+            int rank = name.equalsIgnoreCase("mesh") ? 0
+                    : name.equalsIgnoreCase("box") ? 1
+                    : name.equalsIgnoreCase("cylinder") ? 2
+                    : name.equalsIgnoreCase("sphere") ? 3 : -1;
+            if (rank < 0) {
+                push(Ctx.GEOMETRY);
+                return;
+            }
+            if (rank < geometryRank) {
+                // 앞서 본 낮은 순위 도형 값은 버림 (이긴 도형 값만 남김)
+                if (geometryRank != Integer.MAX_VALUE) {
+                    URDFLink.Geometry fresh = new URDFLink.Geometry();
+                    if (visual != null && geometry == visual.geometry) visual.geometry = fresh;
+                    else collision.geometry = fresh;
+                    geometry = fresh;
+                }
+                geometryRank = rank;
+                switch (rank) {
+                    case 0 -> {
+                        geometry.type = URDFLink.Geometry.GeometryType.MESH;
+                        String rawUri = attr(r, "filename");
+                        String resolved = resolveMeshCached(rawUri);
+                        geometry.meshFilename = (resolved != null) ? resolved : rawUri;
+                        String scl = attr(r, "scale");
+                        geometry.scale = !isEmpty(scl) ? parseVector3(scl) : new Vector3f(1f, 1f, 1f);
+                    }
+                    case 1 -> {
+                        geometry.type = URDFLink.Geometry.GeometryType.BOX;
+                        geometry.boxSize = parseVector3(attr(r, "size"));
+                    }
+                    case 2 -> {
+                        geometry.type = URDFLink.Geometry.GeometryType.CYLINDER;
+                        geometry.cylinderRadius = parseFloatSafe(attr(r, "radius"), 0f);
+                        geometry.cylinderLength = parseFloatSafe(attr(r, "length"), 0f);
+                    }
+                    default -> {
+                        geometry.type = URDFLink.Geometry.GeometryType.SPHERE;
+                        geometry.sphereRadius = parseFloatSafe(attr(r, "radius"), 0f);
+                    }
+                }
+            }
+            push(Ctx.SKIP);
+        }
+
+        private void startInMaterial(String name) {
+            if (!colorSeen && name.equalsIgnoreCase("color")) {
+                colorSeen = true;
+                String rgbaStr = attr(r, "rgba");
+                if (!isEmpty(rgbaStr)) {
+                    String[] rgba = WS.split(rgbaStr.trim());
+                    if (rgba.length == 4) {
+                        material.color = new URDFLink.Material.Vector4f(
+                                parseFloatSafe(rgba[0], 0f),
+                                parseFloatSafe(rgba[1], 0f),
+                                parseFloatSafe(rgba[2], 0f),
+                                parseFloatSafe(rgba[3], 1f)
+                        );
+                    }
+                }
+                push(Ctx.SKIP);
+            } else if (!textureSeen && name.equalsIgnoreCase("texture")) {
+                textureSeen = true;
+                material.textureFilename = attr(r, "filename");
+                push(Ctx.SKIP);
+            } else {
+                push(Ctx.MATERIAL);
+            }
         }
 
-        Element sphEl = getDirectChildByLocalName(geometryElement, "sphere");
-        if (sphEl == null) {
-            NodeList list = geometryElement.getElementsByTagName("sphere");
-            if (list.getLength() > 0) sphEl = (Element) list.item(0);
-        }
-        if (sphEl != null) {
-            geometry.type = URDFLink.Geometry.GeometryType.SPHERE;
-            geometry.sphereRadius = parseFloatSafe(safeOrLocal(sphEl, "radius"), 0f);
-            return geometry;
+        private void startInJoint(String name) {
+            PendingJoint j = joint;
+            String field = null;
+            if (name.equalsIgnoreCase("type")) {
+                if (j.seen("type")) field = "type";
+            } else if (name.equalsIgnoreCase("parent")) {
+                if (j.seen("parent")) { j.parent = attr(r, "link"); field = "parent"; }
+            } else if (name.equalsIgnoreCase("child")) {
+                if (j.seen("child")) { j.child = attr(r, "link"); field = "child"; }
+            } else if (name.equalsIgnoreCase("axis")) {
+                if (j.seen("axis")) { j.axis = attr(r, "xyz"); field = "axis"; }
+            } else if (name.equalsIgnoreCase("origin")) {
+                if (j.seen("origin")) { j.xyz = attr(r, "xyz"); j.rpy = attr(r, "rpy"); }
+            } else if (name.equalsIgnoreCase("limit")) {
+                if (j.seen("limit")) {
+                    j.lower = attr(r, "lower");
+                    j.upper = attr(r, "upper");
+                    j.effort = attr(r, "effort");
+                    j.velocity = attr(r, "velocity");
+                }
+            } else if (name.equalsIgnoreCase("dynamics")) {
+                if (j.seen("dynamics")) { j.damping = attr(r, "damping"); j.friction = attr(r, "friction"); }
+            }
+            if (field != null) {
+                textField = field;
+                text.setLength(0);
+                push(Ctx.JOINT_TEXT);
+            } else {
+                push(Ctx.SKIP);
+            }
         }
 
-        logger.warn("No geometry found in element");
-        return geometry;
-    }
-
-    private static URDFLink.Material parseMaterial(Element materialElement) {
-        URDFLink.Material material = new URDFLink.Material();
-        String name = safeGetAttr(materialElement, "name");
-        if (isEmpty(name)) name = findAttrByLocalName(materialElement, "name");
-        material.name = name;
-
-        Element colorEl = getDirectChildByLocalName(materialElement, "color");
-        if (colorEl == null) {
-            NodeList list = materialElement.getElementsByTagName("color");
-            if (list.getLength() > 0) colorEl = (Element) list.item(0);
-        }
-        if (colorEl != null) {
-            String rgbaStr = safeOrLocal(colorEl, "rgba");
-            if (!isEmpty(rgbaStr)) {
-                String[] rgba = rgbaStr.trim().split("\\s+");
-                if (rgba.length == 4) {
-                    material.color = new URDFLink.Material.Vector4f(
-                            parseFloatSafe(rgba[0], 0f),
-                            parseFloatSafe(rgba[1], 0f),
-                            parseFloatSafe(rgba[2], 0f),
-                            parseFloatSafe(rgba[3], 1f)
-                    );
+        private void end() {
+            Ctx c = stack[--depth];
+            if (!opens[depth]) return;
+            switch (c) {
+                case LINK -> {
+                    robot.addLink(link);
+                    linkCount++;
+                    logger.debug("  + Link: " + link.name);
+                    link = null;
+                    visual = null;
+                    collision = null;
+                    inertial = null;
+                }
+                case GEOMETRY -> {
+                    if (geometry.type == null) logger.warn("No geometry found in element");
+                    geometry = null;
                 }
+                case JOINT -> {
+                    URDFJoint j = joint.build();
+                    robot.addJoint(j);
+                    jointCount++;
+                    logger.debug("  + Joint: " + j.name + " (" + j.type + ")");
+                    joint = null;
+                }
+                case JOINT_TEXT -> {
+                    if (stack[depth - 1] == Ctx.JOINT) joint.text(textField, text.toString());
+                }
+                default -> { }
             }
         }
 
-        Element texEl = getDirectChildByLocalName(materialElement, "texture");
-        if (texEl == null) {
-            NodeList list = materialElement.getElementsByTagName("texture");
-            if (list.getLength() > 0) texEl = (Element) list.item(0);
+        private String resolveMeshCached(String uri) {
+            if (uri == null) return null;
+            if (meshPaths.containsKey(uri)) return meshPaths.get(uri);
+            String resolved = resolveMeshPath(uri);
+            meshPaths.put(uri, resolved);
+            return resolved;
         }
-        if (texEl != null) material.textureFilename = safeOrLocal(texEl, "filename");
-
-        return material;
     }
 
-    /** Origin 파서 (단일 정의) */
-    private static URDFLink.Origin parseOrigin(Element originElement) {
-        URDFLink.Origin origin = new URDFLink.Origin();
-        String xyz = safeOrLocal(originElement, "xyz");
-        String rpy = safeOrLocal(originElement, "rpy");
-        if (!isEmpty(xyz)) origin.xyz = parseVector3(xyz);
-        if (!isEmpty(rpy)) origin.rpy = parseVector3(rpy);
-        return origin;
-    }
-
-    // ========= 튼튼한 joint 파서 (속성/텍스트 폴백) =========
-    private static URDFJoint parseJoint(Element jointElement) {
-        // name
-        String name = safeGetAttr(jointElement, "name");
-        if (isEmpty(name)) name = findAttrByLocalName(jointElement, "name");
-        if (isEmpty(name)) {
-            logger.warn("Joint element without name attribute. Skipping.");
-            return null;
-        }
-
-        // type: attr → (없으면) <type>텍스트
-        String typeRaw = safeGetAttr(jointElement, "type");
-        if (isEmpty(typeRaw)) typeRaw = findAttrByLocalName(jointElement, "type");
-        if (isEmpty(typeRaw)) {
-            Element typeEl = getDirectChildByLocalName(jointElement, "type");
-            if (typeEl != null) {
-                String txt = typeEl.getTextContent();
-                if (!isEmpty(txt)) typeRaw = txt.trim();
+    /** joint 는 닫힐 때 만듦 (type/axis 가 자식 텍스트로 올 수 있음) */
+    private static final class PendingJoint {
+        final String name;
+        String typeRaw;
+        String parent, child, axis;
+        String xyz, rpy;
+        String lower, upper, effort, velocity;
+        String damping, friction;
+        String typeText, parentText, childText, axisText;
+        private final Set<String> seen = new HashSet<>(8);
+
+        PendingJoint(String name, String typeRaw) {
+            this.name = name;
+            this.typeRaw = typeRaw;
+        }
+
+        /** 바로 아래 자식은 종류별 첫 요소만 (처음이면 true) */
+        boolean seen(String kind) {
+            return seen.add(kind);
+        }
+
+        void text(String field, String txt) {
+            if (isEmpty(txt)) return;
+            switch (field) {
+                case "type" -> typeText = txt.trim();
+                case "parent" -> parentText = txt.trim();
+                case "child" -> childText = txt.trim();
+                default -> axisText = txt.trim();
             }
         }
 
-        URDFJoint.JointType type;
-        if (isEmpty(typeRaw)) {
-            logger.warn("Unknown joint type: <empty> for '{}', defaulting to FIXED", name);
-            type = URDFJoint.JointType.FIXED;
-        } else {
-            try {
-                type = URDFJoint.JointType.valueOf(typeRaw.trim().toUpperCase());
-            } catch (IllegalArgumentException ex) {
-                logger.warn("Unknown joint type: {} for '{}', defaulting to FIXED", typeRaw, name);
+        // ========= 튼튼한 joint 생성 (속성/텍스트 폴백) =========
+        URDFJoint build() {
+            // type: attr → (없으면) <type>텍스트
+            if (isEmpty(typeRaw)) typeRaw = typeText;
+
+            URDFJoint.JointType type;
+            if (isEmpty(typeRaw)) {
+                logger.warn("Unknown joint type: <empty> for '{}', defaulting to FIXED", name);
                 type = URDFJoint.JointType.FIXED;
+            } else {
+                try {
+                    type = URDFJoint.JointType.valueOf(typeRaw.trim().toUpperCase());
+                } catch (IllegalArgumentException ex) {
+                    logger.warn("Unknown joint type: {} for '{}', defaulting to FIXED", typeRaw, name);
+                    type = URDFJoint.JointType.FIXED;
+                }
             }
-        }
 
-        URDFJoint joint = new URDFJoint(name, type);
+            URDFJoint joint = new URDFJoint(name, type);
 
-        // parent/child: link attr → (없으면) 태그 텍스트
-        Element parentEl = getDirectChildByLocalName(jointElement, "parent");
-        Element childEl  = getDirectChildByLocalName(jointElement, "child");
-
-        if (parentEl != null) {
-            String p = safeOrLocal(parentEl, "link");
-            if (isEmpty(p)) {
-                String txt = parentEl.getTextContent();
-                if (!isEmpty(txt)) p = txt.trim();
-            }
-            joint.parentLinkName = p;
-        }
-        if (childEl != null) {
-            String c = safeOrLocal(childEl, "link");
-            if (isEmpty(c)) {
-                String txt = childEl.getTextContent();
-                if (!isEmpty(txt)) c = txt.trim();
-            }
-            joint.childLinkName = c;
-        }
+            // parent/child: link attr → (없으면) 태그 텍스트
+            if (seen.contains("parent")) joint.parentLinkName = isEmpty(parent) ? parentText : parent;
+            if (seen.contains("child")) joint.childLinkName = isEmpty(child) ? childText : child;
 
-        // origin
-        Element originEl = getDirectChildByLocalName(jointElement, "origin");
-        if (originEl != null) {
-            if (joint.origin == null) joint.origin = new URDFJoint.Origin();
-            String xyz = safeOrLocal(originEl, "xyz");
-            String rpy = safeOrLocal(originEl, "rpy");
+            // origin
             if (!isEmpty(xyz)) joint.origin.xyz = parseVector3(xyz);
             if (!isEmpty(rpy)) joint.origin.rpy = parseVector3(rpy);
-        }
 
-        // axis: attr xyz → (없으면) 텍스트 "1 0 0"
-        Element axisEl = getDirectChildByLocalName(jointElement, "axis");
-        Vector3f axis = null;
-        if (axisEl != null) {
-            String axisStr = safeOrLocal(axisEl, "xyz");
-            if (!isEmpty(axisStr)) axis = parseVector3(axisStr);
-            if (axis == null || axis.lengthSquared() == 0f) {
-                String txt = axisEl.getTextContent();
-                if (!isEmpty(txt)) axis = parseVector3(txt.trim());
+            // axis: attr xyz → (없으면) 텍스트 "1 0 0"
+            Vector3f ax = null;
+            if (seen.contains("axis")) {
+                if (!isEmpty(axis)) ax = parseVector3(axis);
+                if ((ax == null || ax.lengthSquared() == 0f) && !isEmpty(axisText)) ax = parseVector3(axisText);
             }
-        }
-        if (axis == null) {
-            switch (type) {
-                case REVOLUTE:
-                case CONTINUOUS:
-                case PRISMATIC:
-                    axis = new Vector3f(1, 0, 0); // URDF 기본축 X
-                    logger.debug("Joint '{}' : using default axis (1,0,0)", name);
-                    break;
-                default:
-                    axis = new Vector3f(0, 0, 0);
+            if (ax == null) {
+                switch (type) {
+                    case REVOLUTE:
+                    case CONTINUOUS:
+                    case PRISMATIC:
+                        ax = new Vector3f(1, 0, 0); // URDF 기본축 X
+                        logger.debug("Joint '{}' : using default axis (1,0,0)", name);
+                        break;
+                    default:
+                        ax = new Vector3f(0, 0, 0);
+                }
+            }
+            if (ax.lengthSquared() > 1e-12f) ax.normalize();
+            else if (type == URDFJoint.JointType.REVOLUTE ||
+                     type == URDFJoint.JointType.CONTINUOUS ||
+                     type == URDFJoint.JointType.PRISMATIC) {
+                ax.set(1, 0, 0);
             }
+            joint.axis.xyz = ax;
+
+            // limit
+            if (seen.contains("limit")) {
+                joint.limit = new URDFJoint.Limit();
+                if (!isEmpty(lower))    joint.limit.lower    = parseFloatSafe(lower, 0f);
+                if (!isEmpty(upper))    joint.limit.upper    = parseFloatSafe(upper, 0f);
+                if (!isEmpty(effort))   joint.limit.effort   = parseFloatSafe(effort, 0f);
+                if (!isEmpty(velocity)) joint.limit.velocity = parseFloatSafe(velocity, 0f);
+            }
+
+            // dynamics
+            if (seen.contains("dynamics")) {
+                joint.dynamics = new URDFJoint.Dynamics();
+                if (!isEmpty(damping))  joint.dynamics.damping  = parseFloatSafe(damping, 0f);
+                if (!isEmpty(friction)) joint.dynamics.friction = parseFloatSafe(friction, 0f);
+            }
+
+            // 진단
+            if (isEmpty(joint.parentLinkName) || isEmpty(joint.childLinkName)) {
+                logger.warn("Joint '{}' missing parent/child: parent='{}' child='{}'",
+                        name, joint.parentLinkName, joint.childLinkName);
+            }
+
+            return joint;
         }
-        if (axis.lengthSquared() > 1e-12f) axis.normalize();
-        else if (type == URDFJoint.JointType.REVOLUTE ||
-                 type == URDFJoint.JointType.CONTINUOUS ||
-                 type == URDFJoint.JointType.PRISMATIC) {
-            axis.set(1, 0, 0);
-        }
-        if (joint.axis == null) joint.axis = new URDFJoint.Axis();
-        joint.axis.xyz = axis;
-
-        // limit
-        Element limitEl = getDirectChildByLocalName(jointElement, "limit");
-        if (limitEl != null) {
-            joint.limit = new URDFJoint.Limit();
-            String lower    = safeOrLocal(limitEl, "lower");
-            String upper    = safeOrLocal(limitEl, "upper");
-            String effort   = safeOrLocal(limitEl, "effort");
-            String velocity = safeOrLocal(limitEl, "velocity");
-            if (!isEmpty(lower))    joint.limit.lower    = parseFloatSafe(lower, 0f);
-            if (!isEmpty(upper))    joint.limit.upper    = parseFloatSafe(upper, 0f);
-            if (!isEmpty(effort))   joint.limit.effort   = parseFloatSafe(effort, 0f);
-            if (!isEmpty(velocity)) joint.limit.velocity = parseFloatSafe(velocity, 0f);
-        }
-
-        // dynamics
-        Element dynEl = getDirectChildByLocalName(jointElement, "dynamics");
-        if (dynEl != null) {
-            joint.dynamics = new URDFJoint.Dynamics();
-            String damping  = safeOrLocal(dynEl, "damping");
-            String friction = safeOrLocal(dynEl, "friction");
-            if (!isEmpty(damping))  joint.dynamics.damping  = parseFloatSafe(damping, 0f);
-            if (!isEmpty(friction)) joint.dynamics.friction = parseFloatSafe(friction, 0f);
-        }
-
-        // 진단
-        if (isEmpty(joint.parentLinkName) || isEmpty(joint.childLinkName)) {
-            logger.warn("Joint '{}' missing parent/child: parent='{}' child='{}'",
-                    name, joint.parentLinkName, joint.childLinkName);
-        }
-
-        return joint;
+    }
+
+    /** Origin 파서 (단일 정의) */
+    private static URDFLink.Origin parseOrigin(XMLStreamReader r) {
+        URDFLink.Origin origin = new URDFLink.Origin();
+        String xyz = attr(r, "xyz");
+        String rpy = attr(r, "rpy");
+        if (!isEmpty(xyz)) origin.xyz = parseVector3(xyz);
+        if (!isEmpty(rpy)) origin.rpy = parseVector3(rpy);
+        return origin;
     }
 
     // ====== 공통 헬퍼 ======
@@ -544,7 +684,7 @@ public class URDFParser {
 
     private static Vector3f parseVector3(String str) {
         if (str == null || str.trim().isEmpty()) return new Vector3f(0f, 0f, 0f);
-        String[] parts = str.trim().split("\\s+");
+        String[] parts = WS.split(str.trim());
         if (parts.length == 3) {
             try {
                 return new Vector3f(
@@ -558,46 +698,26 @@ public class URDFParser {
         return new Vector3f(0f, 0f, 0f);
     }
 
-    // 요소 찾기: 바로 아래 자식만, 대소문자/네임스페이스 무시
-    private static Element getDirectChildByLocalName(Element parent, String wanted) {
-        if (parent == null || wanted == null) return null;
-        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
-            if (n.getNodeType() != Node.ELEMENT_NODE) continue;
-            String local = n.getLocalName(); // namespace-aware일 때 로컬명
-            String qname = n.getNodeName();  // 접두사 포함
-            if ((local != null && local.equalsIgnoreCase(wanted)) ||
-                (qname  != null && qname .equalsIgnoreCase(wanted))) {
-                return (Element) n;
-            }
-        }
-        return null;
+    // 이름에서 접두사 제거 (네임스페이스 비인식 모드라 "xacro:link" 그대로 들어옴)
+    private static String localName(String qname) {
+        int colon = qname.indexOf(':');
+        return colon < 0 ? qname : qname.substring(colon + 1);
     }
 
-    // 속성 찾기: 대소문자/네임스페이스 무시
-    private static String findAttrByLocalName(Element el, String wanted) {
-        if (el == null || el.getAttributes() == null || wanted == null) return null;
-        for (int i = 0; i < el.getAttributes().getLength(); i++) {
-            Node a  = el.getAttributes().item(i);
-            String ln = a.getLocalName(); // 로컬명 (접두사 제거)
-            String nn = a.getNodeName();  // 접두사 포함 이름
-            if ((ln != null && ln.equalsIgnoreCase(wanted)) ||
-                (nn != null && nn.equalsIgnoreCase(wanted))) {
-                String v = a.getNodeValue();
-                return (v == null || v.trim().isEmpty()) ? null : v.trim();
+    // 속성 읽기: 정확 이름 → 실패시 대소문자/접두사 무시 검색 (빈 값은 null)
+    private static String attr(XMLStreamReader r, String wanted) {
+        String loose = null;
+        for (int i = 0, n = r.getAttributeCount(); i < n; i++) {
+            String qname = r.getAttributeLocalName(i);
+            if (qname.startsWith("xmlns")) continue;
+            if (qname.equals(wanted)) {
+                String v = r.getAttributeValue(i);
+                if (!isEmpty(v)) return v.trim();
+            } else if (loose == null && localName(qname).equalsIgnoreCase(wanted)) {
+                String v = r.getAttributeValue(i);
+                if (!isEmpty(v)) loose = v.trim();
             }
         }
-        return null;
-    }
-
-    // 안전 속성 읽기: 정확 이름 → 실패시 케이스/네임스페이스 무시 검색
-    private static String safeGetAttr(Element el, String nameCI) {
-        if (el == null || nameCI == null) return null;
-        String v = el.getAttribute(nameCI); // 1) 정확 이름
-        if (v != null && !v.trim().isEmpty()) return v.trim();
-        return findAttrByLocalName(el, nameCI); // 2) 대소문자/네임스페이스 무시
-    }
-
-    private static String safeOrLocal(Element el, String nameCI) {
-        return safeGetAttr(el, nameCI);
+        return loose;
     }
 }
@@ -0,0 +1,163 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 모델 폴더(또는 zip 모델 팩) 1개의 공유 자산 (불변, URDFAssetCache 에서 폴더당 1개)
+ * - 파싱된 URDF 토폴로지(템플릿)와 STL 메시
+ * - 엔티티는 newInstance() 로 조인트 상태만 따로 가진 URDFRobotModel 을 받음
+ * - 로드 후에는 아무도 수정하지 않음 → 렌더/틱 스레드에서 잠금 없이 공유
+ */
+public final class URDFRobotDefinition {
+    private static final Logger logger = LogManager.getLogger();
+
+    private final File urdfFile;
+    private final String modelDir;
+    private final long urdfLastModified;
+    private final URDFRobotModel template;
+    /** link.name -> mesh (같은 STL 파일+스케일은 링크끼리도 공유) */
+    private final Map<String, STLLoader.STLMesh> meshes;
+    private final int triangleCount;
+    /** 이 정의를 쓰는 인스턴스 수 (URDFAssetCache 잠금 안에서만) */
+    int users = 0;
+
+    private URDFRobotDefinition(File urdfFile, String modelDir, long urdfLastModified, URDFRobotModel template,
+                                Map<String, STLLoader.STLMesh> meshes, int triangleCount) {
+        this.urdfFile = urdfFile;
+        this.modelDir = modelDir;
+        this.urdfLastModified = urdfLastModified;
+        this.template = template;
+        this.meshes = meshes;
+        this.triangleCount = triangleCount;
+    }
+
+    /** URDF 파싱 + 메시 로드 (실패하면 null, .zip 이면 모델 팩) */
+    static URDFRobotDefinition load(File urdfFile, String modelDir) {
+        if (!urdfFile.isFile()) return null;
+        if (ModelPack.isPack(urdfFile)) return loadPack(urdfFile, modelDir);
+        long lastModified = urdfFile.lastModified();
+        URDFRobotModel robot = URDFParser.parse(urdfFile);
+        if (robot == null || robot.rootLinkName == null) return null;
+
+        return assemble(urdfFile, modelDir, lastModified, robot, g -> {
+            if (!new File(g.meshFilename).exists()) {
+                logger.warn("  ✗ Mesh file not found: {}", g.meshFilename);
+                return null;
+            }
+            return scaled(STLLoader.load(g.meshFilename), g);
+        });
+    }
+
+    /**
+     * zip 모델 팩: 풀지 않고 항목을 바로 읽음
+     * - 메시 파일마다 압축 풀기 + STL 파싱을 공용 풀에서 병렬로 (큰 팩일수록 이득)
+     */
+    private static URDFRobotDefinition loadPack(File packFile, String modelDir) {
+        long lastModified = packFile.lastModified();
+        try (ModelPack pack = ModelPack.open(packFile)) {
+            logger.info("Model pack: {} ({} entries)", packFile.getName(), pack.getEntryCount());
+            URDFRobotModel robot = URDFParser.parse(pack);
+            if (robot == null || robot.rootLinkName == null) return null;
+
+            Map<String, CompletableFuture<STLLoader.STLMesh>> pending = new HashMap<>();
+            for (URDFLink link : robot.links) {
+                URDFLink.Geometry g = meshGeometry(link);
+                if (g == null) continue;
+                pending.computeIfAbsent(meshKey(g), k -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return scaled(STLLoader.load(g.meshFilename, pack.read(g.meshFilename)), g);
+                    } catch (IOException e) {
+                        logger.warn("  ✗ Failed to read mesh from pack: {} ({})", g.meshFilename, e.getMessage());
+                        return null;
+                    }
+                }));
+            }
+            // 팩을 닫기 전에 전부 끝나야 함
+            return assemble(packFile, modelDir, lastModified, robot, g -> pending.get(meshKey(g)).join());
+        } catch (IOException e) {
+            logger.error("✗ Failed to open model pack: {} ({})", packFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /** 링크별 메시 연결 (같은 파일+스케일은 한 번만 로드) */
+    private static URDFRobotDefinition assemble(File source, String modelDir, long lastModified, URDFRobotModel robot,
+                                                Function<URDFLink.Geometry, STLLoader.STLMesh> loader) {
+        logger.info("=== Loading STL meshes ===");
+        Map<String, STLLoader.STLMesh> meshes = new HashMap<>();
+        Map<String, STLLoader.STLMesh> byFile = new HashMap<>();
+        int loadedCount = 0, triangles = 0;
+        for (URDFLink link : robot.links) {
+            URDFLink.Geometry g = meshGeometry(link);
+            if (g == null) continue;
+
+            String key = meshKey(g);
+            STLLoader.STLMesh mesh = byFile.get(key);
+            if (mesh == null) {
+                mesh = loader.apply(g);
+                if (mesh == null) {
+                    logger.error("  ✗ Failed to load mesh: {}", g.meshFilename);
+                    continue;
+                }
+                byFile.put(key, mesh);
+                triangles += mesh.getTriangleCount();
+            }
+            meshes.put(link.name, mesh);
+            loadedCount++;
+            logger.info("  ✓ Loaded mesh for '{}': {} tris", link.name, mesh.getTriangleCount());
+        }
+        logger.info("=== STL Loading Complete: {}/{} meshes ({} files) ===",
+                loadedCount, robot.getLinkCount(), byFile.size());
+
+        return new URDFRobotDefinition(source, modelDir, lastModified, robot,
+                Collections.unmodifiableMap(meshes), triangles);
+    }
+
+    private static URDFLink.Geometry meshGeometry(URDFLink link) {
+        if (link.visual == null || link.visual.geometry == null) return null;
+        URDFLink.Geometry g = link.visual.geometry;
+        if (g.type != URDFLink.Geometry.GeometryType.MESH || g.meshFilename == null) return null;
+        return g;
+    }
+
+    private static String meshKey(URDFLink.Geometry g) {
+        return g.meshFilename + "|" + g.scale;
+    }
+
+    private static STLLoader.STLMesh scaled(STLLoader.STLMesh mesh, URDFLink.Geometry g) {
+        if (mesh != null && g.scale != null && (g.scale.x != 1f || g.scale.y != 1f || g.scale.z != 1f)) {
+            STLLoader.scaleMesh(mesh, g.scale);
+        }
+        return mesh;
+    }
+
+    /** 엔티티용 인스턴스 (링크/메시 공유, 조인트 상태만 새로) */
+    public URDFRobotModel newInstance() {
+        return template.newInstance();
+    }
+
+    /** 링크의 메시 (없으면 null) */
+    public STLLoader.STLMesh mesh(String linkName) {
+        return meshes.get(linkName);
+    }
+
+    /** robot.urdf (팩이면 .zip) 가 로드 후 바뀌었으면 true */
+    public boolean isStale() {
+        return urdfFile.lastModified() != urdfLastModified;
+    }
+
+    public File getUrdfFile() { return urdfFile; }
+    public String getModelDir() { return modelDir; }
+    public String getRobotName() { return template.name; }
+    public int getMeshCount() { return meshes.size(); }
+    public int getTriangleCount() { return triangleCount; }
+}
@@ -32,6 +32,9 @@ public class URDFRobotModel {
     /** 계산된 루트 링크 이름 */
     public String rootLinkName;
 
+    /** Webots 측정 상태 (피드백 구독 시 생성) */
+    private volatile URDFJointState measuredState;
+
     public URDFRobotModel(String name) {
         this.name = name;
     }
@@ -56,6 +59,21 @@ public class URDFRobotModel {
     public int getLinkCount() { return links.size(); }
     public int getJointCount() { return joints.size(); }
 
+    /** 측정 상태 버퍼 (joints 인덱스 기준, 최초 호출 시 생성) */
+    public URDFJointState measuredState() {
+        URDFJointState s = measuredState;
+        if (s == null) {
+            synchronized (this) {
+                s = measuredState;
+                if (s == null) measuredState = s = new URDFJointState(joints.size());
+            }
+        }
+        return s;
+    }
+
+    /** 측정 상태가 한 번이라도 구독됐으면 그 버퍼, 아니면 null */
+    public URDFJointState measuredStateIfPresent() { return measuredState; }
+
     public int getMovableJointCount() {
         int c = 0;
         for (URDFJoint j : joints) if (j.isMovable()) c++;
@@ -73,6 +91,30 @@ public class URDFRobotModel {
         return parentJointByChildLink.get(childLink);
     }
 
+    /**
+     * 같은 정의를 공유하는 엔티티별 인스턴스 (URDFRobotDefinition 에서 호출)
+     * - 링크(형상/재질)는 공유, 조인트는 상태만 따로 가진 복사본, 측정 상태는 새로
+     * - 트리 인덱스는 이 모델의 것을 그대로 옮김 (다시 계산/로그 없음)
+     */
+    public URDFRobotModel newInstance() {
+        URDFRobotModel copy = new URDFRobotModel(name);
+        for (URDFLink l : links) copy.addLink(l);
+        Map<URDFJoint, URDFJoint> copies = new IdentityHashMap<>();
+        for (URDFJoint j : joints) {
+            URDFJoint c = j.instanceCopy();
+            copies.put(j, c);
+            copy.addJoint(c);
+        }
+        childrenByLink.forEach((link, list) -> {
+            List<URDFJoint> cl = new ArrayList<>(list.size());
+            for (URDFJoint j : list) cl.add(copies.get(j));
+            copy.childrenByLink.put(link, cl);
+        });
+        parentJointByChildLink.forEach((link, j) -> copy.parentJointByChildLink.put(link, copies.get(j)));
+        copy.rootLinkName = rootLinkName;
+        return copy;
+    }
+
     // ========= 핵심: 트리 구성 =========
 
     /**
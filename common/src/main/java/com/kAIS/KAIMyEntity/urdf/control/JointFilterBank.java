@@ -0,0 +1,207 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * 관절 채널별 필터 스테이지 (리타게팅 → 컨트롤러 사이)
+ * - 채널 = 컴파일된 리타게팅 테이블의 항목 인덱스 (dense 배열)
+ * - ONE_EURO: 정지 시 강한 평활, 빠른 움직임에서 지연 최소 (Casiez 2012)
+ * - CRITICAL_DAMPED: 임계 감쇠 스프링 (암시적 적분, 오버슈트 없음)
+ * - KALMAN: 등속 모델 2상태 칼만
+ * - 수신 스레드에서만 호출 → 동기화/할당 없음
+ */
+public final class JointFilterBank {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 샘플 간격이 이보다 길면 채널 상태 리셋 */
+    private static final float RESET_GAP_SEC = 0.5f;
+    private static final float MIN_DT = 1e-4f;
+    private static final float MAX_DT = 0.1f;
+
+    public enum Type { NONE, ONE_EURO, CRITICAL_DAMPED, KALMAN }
+
+    /**
+     * 필터 설정
+     * @param minCutoff ONE_EURO 최소 차단 주파수 [Hz]
+     * @param beta      ONE_EURO 속도 계수
+     * @param dCutoff   ONE_EURO 미분 차단 주파수 [Hz]
+     * @param frequency CRITICAL_DAMPED 고유 주파수 [Hz]
+     * @param q         KALMAN 프로세스 노이즈
+     * @param r         KALMAN 측정 노이즈
+     */
+    public record Spec(Type type, float minCutoff, float beta, float dCutoff,
+                       float frequency, float q, float r) {
+        public static final Spec DEFAULT = new Spec(Type.ONE_EURO, 1.5f, 0.5f, 1.0f, 8.0f, 50f, 1e-3f);
+        public static final Spec NONE = new Spec(Type.NONE, 0, 0, 0, 0, 0, 0);
+
+        /**
+         * "one_euro, minCutoff=1.0, beta=0.3" 형식 파싱 (생략된 값은 base 값 유지)
+         */
+        public static Spec parse(String value, Spec base, String where) {
+            String[] parts = value.split(",");
+            Type type = base.type;
+            float minCutoff = base.minCutoff, beta = base.beta, dCutoff = base.dCutoff;
+            float frequency = base.frequency, q = base.q, r = base.r;
+
+            String t = parts[0].trim().toLowerCase();
+            if (!t.isEmpty()) {
+                switch (t) {
+                    case "none", "off" -> type = Type.NONE;
+                    case "one_euro", "oneeuro", "1euro" -> type = Type.ONE_EURO;
+                    case "critical", "critically_damped", "critical_damped", "spring" -> type = Type.CRITICAL_DAMPED;
+                    case "kalman" -> type = Type.KALMAN;
+                    default -> logger.warn("[{}] unknown filter type '{}', keeping {}", where, t, type);
+                }
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String opt = parts[i].trim();
+                int eq = opt.indexOf('=');
+                if (eq < 0) continue;
+                String k = opt.substring(0, eq).trim().toLowerCase();
+                float v;
+                try {
+                    v = Float.parseFloat(opt.substring(eq + 1).trim());
+                } catch (NumberFormatException e) {
+                    logger.warn("[{}] bad number in filter option '{}'", where, opt);
+                    continue;
+                }
+                switch (k) {
+                    case "mincutoff" -> minCutoff = v;
+                    case "beta" -> beta = v;
+                    case "dcutoff" -> dCutoff = v;
+                    case "frequency", "freq" -> frequency = v;
+                    case "q" -> q = v;
+                    case "r" -> r = v;
+                    default -> logger.warn("[{}] unknown filter option '{}'", where, k);
+                }
+            }
+            return new Spec(type, minCutoff, beta, dCutoff, frequency, q, r);
+        }
+    }
+
+    private final int size;
+    private final Type[] type;
+    private final float[] minCutoff, beta, dCutoff, omega, q, r;
+
+    // 상태
+    private final float[] x;      // 필터 출력
+    private final float[] dx;     // 미분(ONE_EURO) / 속도(SPRING, KALMAN)
+    private final float[] p00, p01, p11; // KALMAN 공분산
+    private final long[] lastNanos;
+    private final boolean[] primed;
+
+    public JointFilterBank(Spec[] specs) {
+        this.size = specs.length;
+        this.type = new Type[size];
+        this.minCutoff = new float[size];
+        this.beta = new float[size];
+        this.dCutoff = new float[size];
+        this.omega = new float[size];
+        this.q = new float[size];
+        this.r = new float[size];
+        for (int i = 0; i < size; i++) {
+            Spec s = specs[i] != null ? specs[i] : Spec.NONE;
+            type[i] = s.type;
+            minCutoff[i] = Math.max(1e-3f, s.minCutoff);
+            beta[i] = s.beta;
+            dCutoff[i] = Math.max(1e-3f, s.dCutoff);
+            omega[i] = (float) (2.0 * Math.PI * Math.max(1e-3f, s.frequency));
+            q[i] = Math.max(0f, s.q);
+            r[i] = Math.max(1e-9f, s.r);
+        }
+        this.x = new float[size];
+        this.dx = new float[size];
+        this.p00 = new float[size];
+        this.p01 = new float[size];
+        this.p11 = new float[size];
+        this.lastNanos = new long[size];
+        this.primed = new boolean[size];
+    }
+
+    public int size() { return size; }
+
+    public void reset() {
+        java.util.Arrays.fill(primed, false);
+    }
+
+    /** 채널 ch 에 새 샘플 적용 후 필터 출력 반환 */
+    public float apply(int ch, float raw, long nanos) {
+        if (type[ch] == Type.NONE) return raw;
+
+        float dt = primed[ch] ? (nanos - lastNanos[ch]) * 1e-9f : 0f;
+        lastNanos[ch] = nanos;
+        if (!primed[ch] || dt > RESET_GAP_SEC || dt < 0f) {
+            primed[ch] = true;
+            x[ch] = raw;
+            dx[ch] = 0f;
+            p00[ch] = r[ch];
+            p01[ch] = 0f;
+            p11[ch] = 1f;
+            return raw;
+        }
+        if (dt < MIN_DT) dt = MIN_DT;
+        if (dt > MAX_DT) dt = MAX_DT;
+
+        return switch (type[ch]) {
+            case ONE_EURO -> oneEuro(ch, raw, dt);
+            case CRITICAL_DAMPED -> criticallyDamped(ch, raw, dt);
+            case KALMAN -> kalman(ch, raw, dt);
+            default -> raw;
+        };
+    }
+
+    private float oneEuro(int ch, float raw, float dt) {
+        float rawDx = (raw - x[ch]) / dt;
+        float edx = dx[ch] + alpha(dCutoff[ch], dt) * (rawDx - dx[ch]);
+        dx[ch] = edx;
+        float cutoff = minCutoff[ch] + beta[ch] * Math.abs(edx);
+        x[ch] += alpha(cutoff, dt) * (raw - x[ch]);
+        return x[ch];
+    }
+
+    private static float alpha(float cutoff, float dt) {
+        float tau = (float) (1.0 / (2.0 * Math.PI * cutoff));
+        return 1f / (1f + tau / dt);
+    }
+
+    /** 임계 감쇠 스프링 (암시적 오일러 → 큰 dt에서도 안정) */
+    private float criticallyDamped(int ch, float target, float dt) {
+        float w = omega[ch];
+        float f = 1f + 2f * dt * w;
+        float oo = w * w;
+        float hoo = dt * oo;
+        float hhoo = dt * hoo;
+        float detInv = 1f / (f + hhoo);
+        float pos = x[ch], vel = dx[ch];
+        x[ch] = (f * pos + dt * vel + hhoo * target) * detInv;
+        dx[ch] = (vel + hoo * (target - pos)) * detInv;
+        return x[ch];
+    }
+
+    /** 등속 모델 칼만 (상태: 위치, 속도) */
+    private float kalman(int ch, float z, float dt) {
+        // predict
+        float pos = x[ch] + dx[ch] * dt;
+        float vel = dx[ch];
+        float a00 = p00[ch] + dt * (2f * p01[ch] + dt * p11[ch]);
+        float a01 = p01[ch] + dt * p11[ch];
+        float a11 = p11[ch];
+        float qq = q[ch];
+        a00 += qq * dt * dt * dt / 3f;
+        a01 += qq * dt * dt / 2f;
+        a11 += qq * dt;
+
+        // update
+        float s = a00 + r[ch];
+        float k0 = a00 / s;
+        float k1 = a01 / s;
+        float y = z - pos;
+        x[ch] = pos + k0 * y;
+        dx[ch] = vel + k1 * y;
+        p00[ch] = (1f - k0) * a00;
+        p01[ch] = (1f - k0) * a01;
+        p11[ch] = a11 - k1 * a01;
+        return x[ch];
+    }
+}
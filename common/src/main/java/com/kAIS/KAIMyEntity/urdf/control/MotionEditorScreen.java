@@ -1,14 +1,15 @@
 package com.kAIS.KAIMyEntity.urdf.control;
 
+import com.kAIS.KAIMyEntity.metrics.PipelineTrace;
 import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL;
+import com.kAIS.KAIMyEntity.urdf.URDFRobotModel;
 import com.kAIS.KAIMyEntity.webots.WebotsController; // ✅ 추가
+import com.kAIS.KAIMyEntity.webots.WebotsJointMap;
+import com.kAIS.KAIMyEntity.webots.WebotsLockstep;
 import net.minecraft.client.Minecraft;
-import org.joml.Quaternionf;
-import org.joml.Vector3f;
 
-import java.util.Map;
-
-import static java.lang.Math.abs;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 2025.11.20 VMC Direct Control (Fixed with Atomic Snapshot + Bone Mapping Fix)
@@ -19,6 +20,9 @@ import static java.lang.Math.abs;
  * ✅ 2025.11.21 Webots 연동 추가
  * - URDF 업데이트 후 자동으로 Webots로 전송
  * - 기존 로직 완전 보존
+ *
+ * ✅ 리타게팅은 VMC 수신 스레드에서 수행 (VmcRetargeter)
+ * - 틱 스레드는 최신 관절 벡터만 교체해서 인덱스로 적용
  */
 public final class MotionEditorScreen {
     private MotionEditorScreen() {}
@@ -61,101 +65,53 @@ public final class MotionEditorScreen {
     }
 }
 
-/* ======================== VmcDrive (Atomic Snapshot 적용 + Webots 연동) ======================== */
+/* ======================== VmcDrive (수신 스레드 리타게팅 + Webots 연동) ======================== */
 final class VmcDrive {
 
     static void tick(URDFModelOpenGLWithSTL renderer) {
         var listener = VMCListenerController.VmcListener.getInstance();
-        
-        // [핵심] getBones() 대신 getSnapshot() 사용
-        // 이 맵은 이 메서드가 실행되는 동안 절대 변하지 않음 (Atomic Reference)
-        Map<String, VMCListenerController.VmcListener.Transform> bones = listener.getSnapshot();
-
-        if (bones.isEmpty()) return;
-
-        // ★ 디버깅용 로그 (Chest 매핑 확인) ★
-        System.out.println("[VMC] tick - Bones: " + bones.size() + 
-            " | Chest: " + bones.containsKey("Chest") +
-            " | LeftUA: " + bones.containsKey("LeftUpperArm") +
-            " | RightUA: " + bones.containsKey("RightUpperArm"));
-
-        // 부모(Chest) 찾기
-        VMCListenerController.VmcListener.Transform chest = bones.get("Chest");
-        if (chest == null) chest = bones.get("Spine");
-        if (chest == null) chest = bones.get("Hips");
-
-        if (chest == null) {
-            System.out.println("[VMC] ERROR: Chest bone not found! Available: " + bones.keySet());
-            return;
+        var robot = renderer.getRobotModel();
+        if (robot == null) return;
+
+        // 리타게팅은 수신 스레드에서 이미 끝남 → 여기서는 최신 관절 벡터만 교체해서 적용
+        VmcRetargeter retargeter = listener.bindRetargeter(robot, renderer.GetModelDir());
+        VmcRetargeter.Frame frame = retargeter.latest();
+        if (frame == null) return;
+
+        // 새 프레임이면 지연 추적 기준점 전달 (같은 프레임 재적용은 추적 안 함)
+        long traceOrigin = 0;
+        if (frame.seq != renderer.getLastVmcSeq()) {
+            renderer.setLastVmcSeq(frame.seq);
+            traceOrigin = frame.receiveNanos;
+            PipelineTrace.record(PipelineTrace.Stage.APPLY, traceOrigin);
+            renderer.traceFrame(traceOrigin);
         }
 
-        // ✅ 기존 로직: URDF 업데이트
-        processArmQuaternion(renderer, bones, chest, true);  // 왼팔
-        processArmQuaternion(renderer, bones, chest, false); // 오른팔
-        
-        // ✅ 추가 로직: Webots 전송 (기존 로직에 영향 없음)
-        sendToWebots(renderer);
-    }
-
-    private static void processArmQuaternion(URDFModelOpenGLWithSTL renderer,
-                                             Map<String, VMCListenerController.VmcListener.Transform> bones,
-                                             VMCListenerController.VmcListener.Transform parentBone,
-                                             boolean isLeft) {
-        String upperName = isLeft ? "LeftUpperArm" : "RightUpperArm";
-        String lowerName = isLeft ? "LeftLowerArm" : "RightLowerArm";
-
-        var upper = bones.get(upperName);
-        var lower = bones.get(lowerName);
-
-        if (upper == null) return;
-
-        // [계산 로직] Atomic Snapshot 덕분에 parentBone과 upper는 같은 시간대의 데이터임이 보장됨.
-        // 따라서 World -> Local 변환(Q_rel = Q_parent^-1 * Q_child)이 정확하게 수행됨.
-
-        // === 1. 어깨 관절 (Shoulder) 계산 ===
-        Quaternionf parentRot = new Quaternionf(parentBone.rotation);
-        Quaternionf childRot  = new Quaternionf(upper.rotation);
-        
-        Quaternionf localShoulder = new Quaternionf(parentRot).conjugate().mul(childRot);
-
-        Vector3f shoulderEuler = new Vector3f();
-        localShoulder.getEulerAnglesXYZ(shoulderEuler);
-
-        // === 2. 팔꿈치 관절 (Elbow) 계산 ===
-        Vector3f elbowEuler = new Vector3f();
-        if (lower != null) {
-            Quaternionf upperRot = new Quaternionf(upper.rotation);
-            Quaternionf lowerRot = new Quaternionf(lower.rotation);
-            
-            Quaternionf localElbow = new Quaternionf(upperRot).conjugate().mul(lowerRot);
-            localElbow.getEulerAnglesXYZ(elbowEuler);
+        float[] positions = frame.positions;
+        boolean[] valid = frame.valid;
+        boolean mirror = renderer.isMirrorMode(); // 미러 모드: 화면은 Webots 측정값, 목표만 갱신
+        for (int i = 0; i < positions.length; i++) {
+            if (!valid[i]) continue;
+            if (!mirror) renderer.setJointPreview(i, positions[i]);
+            renderer.setJointTarget(i, positions[i]);
         }
 
-        // === 3. URDF 적용 (기존 로직 유지) ===
-        String pitchJoint = isLeft ? "l_sho_pitch" : "r_sho_pitch";
-        String rollJoint  = isLeft ? "l_sho_roll"  : "r_sho_roll";
-        String elbowJoint = isLeft ? "l_el"        : "r_el";
-
-        renderer.setJointPreview(pitchJoint, shoulderEuler.x);
-        renderer.setJointTarget(pitchJoint, shoulderEuler.x);
-
-        renderer.setJointPreview(rollJoint, shoulderEuler.z);
-        renderer.setJointTarget(rollJoint, shoulderEuler.z);
+        // ✅ 추가 로직: Webots 전송 (기존 로직에 영향 없음)
+        sendToWebots(renderer, traceOrigin);
+    }
 
-        float elbowAngle = abs(elbowEuler.z);
-        if (isLeft) elbowAngle = -elbowAngle;
+    // Webots 관절 매핑 바인딩 (틱 스레드 전용, 로봇/매핑이 바뀌면 다시 bind)
+    private static URDFRobotModel boundRobot;
+    private static WebotsJointMap.Binding webotsBinding;
+    private static float[] webotsPose = new float[0];
 
-        renderer.setJointPreview(elbowJoint, elbowAngle);
-        renderer.setJointTarget(elbowJoint, elbowAngle);
-    }
-    
     // ✅ 새로운 메서드: Webots 전송 (기존 로직과 완전히 분리)
     /**
-     * URDF의 모든 가동 관절을 Webots로 전송
+     * URDF의 모든 가동 관절을 Webots로 전송 (틱당 set_joints 1회)
      * - 기존 VMC → URDF 로직에 영향 없음
      * - WebotsController가 없으면 조용히 스킵
      */
-    private static void sendToWebots(URDFModelOpenGLWithSTL renderer) {
+    private static void sendToWebots(URDFModelOpenGLWithSTL renderer, long traceOrigin) {
         try {
             WebotsController webots = WebotsController.getInstance();
             
@@ -167,12 +123,36 @@ final class VmcDrive {
             // URDF의 모든 가동 관절 전송
             var robot = renderer.getRobotModel();
             if (robot == null || robot.joints == null) return;
+
+            int n = robot.joints.size();
+            if (boundRobot != robot || webotsBinding == null || webotsBinding.map() != webots.getJointMap()
+                    || webotsPose.length != n) {
+                List<String> names = new ArrayList<>(n);
+                for (var joint : robot.joints) names.add(joint.isMovable() ? joint.name : null);
+                webotsBinding = webots.getJointMap().bind(names);
+                webotsPose = new float[n];
+                boundRobot = robot;
+            }
             
-            for (var joint : robot.joints) {
-                if (joint.isMovable()) {
-                    webots.setJoint(joint.name, joint.currentPosition);
+            // 전체 자세를 한 프레임으로 묶어 1회 전송 (매핑은 컴파일된 배열로 1패스)
+            boolean mirror = renderer.isMirrorMode();
+            for (int i = 0; i < n; i++) {
+                // 미러 모드에서는 currentPosition 이 측정값이므로 목표값을 보냄
+                webotsPose[i] = mirror ? renderer.getJointTarget(i) : robot.joints.get(i).currentPosition;
+            }
+            // 록스텝: 틱당 step 요청 1개 (창이 가득 차 있으면 이번 틱은 건너뜀, 틱 스레드는 블로킹 없음)
+            WebotsLockstep lockstep = webots.getLockstep();
+            if (lockstep != null) {
+                if (lockstep.isHealthy()) {
+                    lockstep.trySubmit(webotsBinding, webotsPose);
+                } else {
+                    webots.stopLockstep(); // 어긋난 록스텝은 닫고 일반 전송으로 복귀 (닫기는 백그라운드)
                 }
+                return;
             }
+            webots.beginFrame();
+            webots.setJointPositions(webotsBinding, webotsPose);
+            webots.flushFrame(traceOrigin);
             
         } catch (Exception e) {
             // WebotsController가 초기화되지 않았거나 기타 에러
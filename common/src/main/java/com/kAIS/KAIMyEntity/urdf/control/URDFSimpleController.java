@@ -8,46 +8,78 @@ import java.util.Map;
 import java.util.Collection;
 
 public final class URDFSimpleController {
-    private final Map<String, URDFJoint> joints;
-    private final Map<String, Float> target = new HashMap<>();
+    // 관절 순서 = 생성 시 전달된 컬렉션 순서 (URDFRobotModel.joints 인덱스와 동일)
+    private final URDFJoint[] joints;
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private final float[] target;
     private float kp = 30f;
     private float kd = 6f;
     private float defaultMaxVel = 4.0f;   // [rad/s] or [m/s]
     private float defaultMaxAcc = 12.0f;  // [rad/s^2] or [m/s^2]
 
     public URDFSimpleController(Collection<URDFJoint> allJoints) {
-        Map<String, URDFJoint> m = new HashMap<>();
-        for (URDFJoint j : allJoints) {
-            m.put(j.name, j);
-            target.put(j.name, j.currentPosition);
+        this.joints = allJoints.toArray(new URDFJoint[0]);
+        this.target = new float[joints.length];
+        for (int i = 0; i < joints.length; i++) {
+            indexByName.put(joints[i].name, i);
+            target[i] = joints[i].currentPosition;
         }
-        this.joints = m;
     }
 
     public void setTarget(String name, float value) {
-        URDFJoint j = joints.get(name);
-        if (j == null) return;
+        Integer i = indexByName.get(name);
+        if (i == null) return;
+        setTarget(i, value);
+    }
+
+    /** 인덱스 기반 목표 설정 (이름 조회 없음) */
+    public void setTarget(int index, float value) {
+        if (index < 0 || index >= joints.length) return;
+        URDFJoint j = joints[index];
         if (j.type == URDFJoint.JointType.CONTINUOUS) value = wrapToPi(value);
         if (j.type == URDFJoint.JointType.REVOLUTE || j.type == URDFJoint.JointType.PRISMATIC) {
             if (j.limit != null && j.limit.hasLimits()) {
                 value = Mth.clamp(value, j.limit.lower, j.limit.upper);
             }
         }
-        target.put(name, value);
+        target[index] = value;
     }
 
     public void setTargets(Map<String, Float> targets) {
         for (var e : targets.entrySet()) setTarget(e.getKey(), e.getValue());
     }
 
-    public float getTarget(String name) { return target.getOrDefault(name, 0f); }
+    public float getTarget(String name) {
+        Integer i = indexByName.get(name);
+        return i != null ? target[i] : 0f;
+    }
+    public float getTarget(int index) {
+        return (index >= 0 && index < joints.length) ? target[index] : 0f;
+    }
+    public int indexOf(String name) {
+        Integer i = indexByName.get(name);
+        return i != null ? i : -1;
+    }
+    /** 핫 리로드: 같은 이름 관절의 목표값 + 게인/한계 이어받기 (새 limit 으로 다시 클램프) */
+    public void copyStateFrom(URDFSimpleController other) {
+        this.kp = other.kp;
+        this.kd = other.kd;
+        this.defaultMaxVel = other.defaultMaxVel;
+        this.defaultMaxAcc = other.defaultMaxAcc;
+        for (int i = 0; i < joints.length; i++) {
+            int o = other.indexOf(joints[i].name);
+            if (o >= 0) setTarget(i, other.target[o]);
+        }
+    }
+
     public void setGains(float kp, float kd){ this.kp = kp; this.kd = kd; }
     public void setLimits(float maxVel, float maxAcc){ this.defaultMaxVel = maxVel; this.defaultMaxAcc = maxAcc; }
 
     /** call every tick; dt ≈ 1/20f */
     public void update(float dt) {
-        for (URDFJoint j : joints.values()) {
-            float tgt = target.getOrDefault(j.name, j.currentPosition);
+        for (int i = 0; i < joints.length; i++) {
+            URDFJoint j = joints[i];
+            float tgt = target[i];
             float pos = j.currentPosition;
             float vel = j.currentVelocity;
 
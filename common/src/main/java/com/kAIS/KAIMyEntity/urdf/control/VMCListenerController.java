@@ -1,5 +1,6 @@
 package com.kAIS.KAIMyEntity.urdf.control;
 
+import com.kAIS.KAIMyEntity.metrics.PipelineTrace;
 import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
@@ -15,18 +16,24 @@ import org.joml.Vector3f;
 import java.io.IOException;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class VMCListenerController extends Screen {
+    private static final Logger logger = LogManager.getLogger();
     // ... (UI 관련 코드는 기존과 동일하므로 생략, 아래 VmcListener가 핵심입니다) ...
     // 기존 UI 코드 유지: BG_COLOR, PANEL_COLOR, init(), render() 등...
     private static final int BG_COLOR = 0xFF0E0E10;
     private static final int PANEL_COLOR = 0xFF1D1F24;
     private static final int TITLE_COLOR = 0xFFFFD770;
     private static final int TXT_MAIN = 0xFFFFFFFF;
+    private static final DateTimeFormatter CAPTURE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
     private final Screen parent;
     private final URDFModelOpenGLWithSTL renderer;
@@ -36,6 +43,11 @@ public class VMCListenerController extends Screen {
     private EditBox portBox;
     private Button startButton;
     private Button stopButton;
+    private Button captureButton;
+    private Button replayButton;
+    private Button replayFastButton;
+    private Button exportLatencyButton;
+    private Button resetLatencyButton;
     private Button hideButton;
     private int autoRefreshTicker = 0;
 
@@ -83,6 +95,39 @@ public class VMCListenerController extends Screen {
         }).bounds(centerX - 100, startY, 200, 20).build();
         addRenderableWidget(stopButton);
 
+        // 캡처 / 재생 (재현 가능한 테스트 입력)
+        startY += 25;
+        captureButton = Button.builder(Component.literal("● Rec"), b -> {
+            if (listener.isCapturing()) {
+                listener.stopCapture();
+            } else {
+                Path file = captureDir().resolve("vmc-" + LocalDateTime.now().format(CAPTURE_STAMP) + VmcCaptureLog.EXTENSION);
+                if (listener.startCapture(file) != null) {
+                    minecraft.gui.getChat().addMessage(Component.literal("§b[VMC] Capturing to " + file.getFileName()));
+                }
+            }
+            updateButtons();
+        }).bounds(centerX - 100, startY, 64, 20).build();
+        addRenderableWidget(captureButton);
+
+        replayButton = Button.builder(Component.literal("Replay 1x"), b -> startReplay(1.0))
+                .bounds(centerX - 32, startY, 64, 20).build();
+        addRenderableWidget(replayButton);
+
+        replayFastButton = Button.builder(Component.literal("Replay Max"), b -> startReplay(0.0))
+                .bounds(centerX + 36, startY, 64, 20).build();
+        addRenderableWidget(replayFastButton);
+
+        // 구간별 지연 (PipelineTrace)
+        startY += 25;
+        exportLatencyButton = Button.builder(Component.literal("Export Latency"), b -> exportLatency())
+                .bounds(centerX - 100, startY, 132, 20).build();
+        addRenderableWidget(exportLatencyButton);
+
+        resetLatencyButton = Button.builder(Component.literal("Reset"), b -> PipelineTrace.reset())
+                .bounds(centerX + 36, startY, 64, 20).build();
+        addRenderableWidget(resetLatencyButton);
+
         hideButton = Button.builder(Component.literal("Hide"), b -> Minecraft.getInstance().setScreen(parent))
                 .bounds(centerX - 50, this.height - 30, 100, 20).build();
         addRenderableWidget(hideButton);
@@ -90,10 +135,54 @@ public class VMCListenerController extends Screen {
         updateButtons();
     }
 
+    /** 가장 최근 캡처 파일 재생 */
+    private void startReplay(double speed) {
+        Path latest = latestCapture();
+        if (latest == null) {
+            minecraft.gui.getChat().addMessage(Component.literal("§c[VMC] No capture found in " + captureDir()));
+            return;
+        }
+        listener.startReplay(latest, speed, false);
+        minecraft.gui.getChat().addMessage(Component.literal("§b[VMC] Replaying " + latest.getFileName()
+                + (speed > 0 ? " (" + speed + "x)" : " (max speed)")));
+        updateButtons();
+    }
+
+    private void exportLatency() {
+        Path file = Minecraft.getInstance().gameDirectory.toPath().resolve("KAIMyEntity").resolve("latency")
+                .resolve("latency-" + LocalDateTime.now().format(CAPTURE_STAMP) + ".csv");
+        try {
+            PipelineTrace.exportCsv(file);
+            minecraft.gui.getChat().addMessage(Component.literal("§b[VMC] Latency exported: " + file.getFileName()));
+        } catch (IOException e) {
+            logger.error("Latency export failed", e);
+            minecraft.gui.getChat().addMessage(Component.literal("§c[VMC] Latency export failed: " + e.getMessage()));
+        }
+    }
+
+    private static Path captureDir() {
+        return Minecraft.getInstance().gameDirectory.toPath().resolve("KAIMyEntity").resolve("vmc_captures");
+    }
+
+    private static Path latestCapture() {
+        Path dir = captureDir();
+        if (!Files.isDirectory(dir)) return null;
+        try (var files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(VmcCaptureLog.EXTENSION))
+                    .max(Comparator.comparingLong(f -> f.toFile().lastModified()))
+                    .orElse(null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     private void updateButtons() {
         boolean running = listener.isRunning();
         startButton.active = !running;
         stopButton.active = running;
+        captureButton.setMessage(Component.literal(listener.isCapturing() ? "■ Stop Rec" : "● Rec"));
+        replayButton.active = !running;
+        replayFastButton.active = !running;
         addressBox.setEditable(!running);
         portBox.setEditable(!running);
     }
@@ -111,7 +200,7 @@ public class VMCListenerController extends Screen {
         // ... (기존 render 코드와 동일) ...
         graphics.fill(0, 0, this.width, this.height, BG_COLOR);
         int panelX = this.width / 2 - 220;
-        int panelY = 140;
+        int panelY = 195;
         int panelW = 440;
         int panelH = this.height - panelY - 50;
         graphics.fill(panelX, panelY, panelX + panelW, panelY + panelH, PANEL_COLOR);
@@ -126,7 +215,7 @@ public class VMCListenerController extends Screen {
         VmcListener.Diagnostics diag = listener.getDiagnostics();
         List<String> lines = new ArrayList<>();
         if (diag.running()) {
-            lines.add("§aStatus: RUNNING §l§o(Double Buffered)");
+            lines.add(diag.replaying() ? "§bStatus: REPLAYING" : "§aStatus: RUNNING §l§o(Double Buffered)");
             long elapsed = System.currentTimeMillis() - diag.lastPacketTime();
             lines.add("Last packet: " + (elapsed < 1000 ? "§a" + elapsed + "ms" : "§c" + elapsed + "ms"));
             lines.add("Active Bones (Snap): " + listener.getSnapshot().size());
@@ -134,6 +223,14 @@ public class VMCListenerController extends Screen {
         } else {
             lines.add("§cStatus: STOPPED");
         }
+        if (diag.capturedPackets() >= 0) {
+            lines.add("§c● Capturing: " + diag.capturedPackets() + " packets");
+        }
+        List<String> latency = PipelineTrace.summaryLines();
+        if (!latency.isEmpty()) {
+            lines.add("§eLatency (since receive):");
+            lines.addAll(latency);
+        }
 
         int y = panelY + 10;
         for (String line : lines) {
@@ -175,6 +272,11 @@ public class VMCListenerController extends Screen {
         private final AtomicLong vmcPackets = new AtomicLong(0);
         private final AtomicLong lastPacketTime = new AtomicLong(0);
 
+        // 캡처/재생
+        private volatile VmcCaptureLog.Writer capture;
+        private volatile boolean replaying = false;
+        private volatile boolean announced = false;
+
         private static final Set<String> STANDARD_BONE_NAMES = Set.of(
                 "Hips", "Spine", "Chest", "UpperChest", "Neck", "Head",
                 "LeftShoulder", "LeftUpperArm", "LeftLowerArm", "LeftHand",
@@ -186,6 +288,9 @@ public class VMCListenerController extends Screen {
 
         private java.util.function.Function<String, String> boneNameNormalizer = name -> name;
 
+        // 로봇별 리타게터 (수신 스레드에서 프레임 완료 직후 실행)
+        private final List<VmcRetargeter> retargeters = new java.util.concurrent.CopyOnWriteArrayList<>();
+
         private VmcListener() {}
 
         public static VmcListener getInstance() {
@@ -201,8 +306,34 @@ public class VMCListenerController extends Screen {
             this.boneNameNormalizer = normalizer != null ? normalizer : name -> name;
         }
 
+        /**
+         * 로봇 모델에 리타게터 바인딩 (이미 있으면 기존 것 반환)
+         * - modelDir 의 vmc_retarget.properties 테이블 사용 (없으면 기본 테이블)
+         * - 이후 프레임마다 수신 스레드에서 관절 벡터가 계산됨
+         */
+        public VmcRetargeter bindRetargeter(com.kAIS.KAIMyEntity.urdf.URDFRobotModel robot, String modelDir) {
+            for (VmcRetargeter r : retargeters) {
+                if (r.robot() == robot) return r;
+            }
+            synchronized (this) {
+                for (VmcRetargeter r : retargeters) {
+                    if (r.robot() == robot) return r;
+                }
+                VmcRetargeter r = new VmcRetargeter(robot, VmcRetargetMap.load(modelDir));
+                retargeters.add(r);
+                logger.info("VMC retargeter bound: {} ({} mapped joints)", robot.name, r.mappedJointCount());
+                return r;
+            }
+        }
+
+        public synchronized void unbindRetargeter(com.kAIS.KAIMyEntity.urdf.URDFRobotModel robot) {
+            retargeters.removeIf(r -> r.robot() == robot);
+        }
+
         public synchronized void start(String addr, int port) {
             if (running.get()) return;
+            replaying = false;
+            announced = false;
             try {
                 InetAddress bindAddr = "0.0.0.0".equals(addr) ? null : InetAddress.getByName(addr);
                 socket = bindAddr == null ? new DatagramSocket(port) : new DatagramSocket(port, bindAddr);
@@ -225,38 +356,162 @@ public class VMCListenerController extends Screen {
             if (!running.get()) return;
             running.set(false);
             if (socket != null) socket.close();
+            if (replaying && receiverThread != null) receiverThread.interrupt();
         }
 
+        /**
+         * 캡처 파일 재생 (UDP 수신 대신 같은 디코더 경로로 주입)
+         * @param speed 재생 배속 (1.0 = 실시간, 0 이하 = 최대 속도)
+         * @param loop  끝나면 처음부터 반복
+         */
+        public synchronized void startReplay(Path file, double speed, boolean loop) {
+            if (running.get()) return;
+            try {
+                // 헤더 검증 겸 미리 열어봄
+                new VmcCaptureLog.Reader(file).close();
+            } catch (IOException e) {
+                logger.error("Failed to open VMC capture {}", file, e);
+                return;
+            }
+            socket = null;
+            replaying = true;
+            announced = false;
+            running.set(true);
+            writingBuffer.clear();
+            snapshot.set(Collections.emptyMap());
+
+            receiverThread = new Thread(() -> replayLoop(file, speed, loop), "VMC-Replay");
+            receiverThread.setDaemon(true);
+            receiverThread.start();
+            logger.info("VMC replay started: {} (speed={}, loop={})", file, speed <= 0 ? "max" : speed, loop);
+        }
+
+        /** 수신 데이터그램을 캡처 파일에 기록 시작 (수신/재생 중에도 전환 가능) */
+        public synchronized Path startCapture(Path file) {
+            stopCapture();
+            try {
+                capture = new VmcCaptureLog.Writer(file);
+                logger.info("VMC capture started: {}", file);
+                return file;
+            } catch (IOException e) {
+                logger.error("Failed to start VMC capture {}", file, e);
+                return null;
+            }
+        }
+
+        public synchronized void stopCapture() {
+            VmcCaptureLog.Writer w = capture;
+            if (w == null) return;
+            capture = null;
+            try {
+                w.close();
+                logger.info("VMC capture saved: {} ({} packets)", w.path(), w.records());
+            } catch (IOException e) {
+                logger.error("Failed to close VMC capture {}", w.path(), e);
+            }
+        }
+
+        public boolean isCapturing() { return capture != null; }
+        public boolean isReplaying() { return running.get() && replaying; }
+
         private void receiveLoop() {
             byte[] buffer = new byte[65536];
             DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-            boolean first = true;
             
             while (running.get()) {
                 try {
                     socket.receive(packet);
-                    lastPacketTime.set(System.currentTimeMillis());
-                    totalPackets.incrementAndGet();
-
-                    if (first) {
-                        first = false;
-                        Minecraft.getInstance().execute(() ->
-                                Minecraft.getInstance().gui.getChat().addMessage(
-                                        Component.literal("§b[VMC] Connected! (Mode: Atomic Snapshot)")));
-                    }
-
-                    // 1. 패킷(Bundle) 파싱 -> writingBuffer에 기록
-                    processOscPacket(buffer, packet.getLength());
-                    
-                    // 2. 패킷 처리가 끝나면(Bundle 하나 완료) 스냅샷 업데이트 (Atomic Commit)
-                    //    VMC는 보통 한 패킷(Bundle)에 한 프레임의 모든 본 데이터를 담아 보냅니다.
-                    commitSnapshot();
-
+                    long receiveNanos = System.nanoTime();
+                    onDatagram(buffer, packet.getLength(), receiveNanos, receiveNanos);
                 } catch (Exception e) {
                     // 소켓 타임아웃이나 파싱 에러 등 무시
                 }
             }
         }
+
+        /**
+         * 재생 루프: 캡처 시각 간격대로(또는 최대 속도로) 같은 디코더 경로에 주입
+         * - 리타게팅/필터에는 캡처된 수신 시각을 넘김 → 배속과 무관하게 결과가 동일(결정적)
+         */
+        private void replayLoop(Path file, double speed, boolean loop) {
+            long replayed = 0;
+            long wallStart = System.nanoTime();
+            // 재생 회차마다 스트림 시각을 이어붙여 단조 증가 유지
+            long streamBase = wallStart;
+            try {
+                do {
+                    long lastOffset = 0;
+                    long passStart = System.nanoTime();
+                    try (VmcCaptureLog.Reader reader = new VmcCaptureLog.Reader(file)) {
+                        while (running.get() && reader.next()) {
+                            lastOffset = reader.offsetNanos();
+                            if (speed > 0) {
+                                long due = passStart + (long) (lastOffset / speed);
+                                long wait = due - System.nanoTime();
+                                if (wait > 0) Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+                            }
+                            try {
+                                onDatagram(reader.data(), reader.length(), streamBase + lastOffset, System.nanoTime());
+                            } catch (Exception e) {
+                                // 파싱 에러 무시 (라이브 수신과 동일)
+                            }
+                            replayed++;
+                        }
+                    }
+                    streamBase += lastOffset + 1_000_000_000L;
+                } while (loop && running.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                logger.error("VMC replay failed: {}", file, e);
+            } finally {
+                double sec = (System.nanoTime() - wallStart) / 1e9;
+                logger.info("VMC replay finished: {} packets in {} s ({} pkt/s)",
+                        replayed, String.format("%.3f", sec), String.format("%.0f", replayed / Math.max(sec, 1e-9)));
+                synchronized (this) {
+                    if (Thread.currentThread() == receiverThread) {
+                        running.set(false);
+                        replaying = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 데이터그램 1개 처리 (라이브 수신/재생 공통 경로)
+         * @param receiveNanos 수신 시각 (재생 시에는 캡처된 시각 기준) - 캡처/필터용
+         * @param wallNanos    실제 수신(주입) 시각 - 지연 추적용
+         */
+        private void onDatagram(byte[] data, int length, long receiveNanos, long wallNanos) throws IOException {
+            lastPacketTime.set(System.currentTimeMillis());
+            totalPackets.incrementAndGet();
+            if (!announced) {
+                announced = true;
+                String mode = replaying ? "Replay" : "Atomic Snapshot";
+                Minecraft.getInstance().execute(() ->
+                        Minecraft.getInstance().gui.getChat().addMessage(
+                                Component.literal("§b[VMC] Connected! (Mode: " + mode + ")")));
+            }
+
+            // 0. 캡처 중이면 원본 그대로 기록
+            VmcCaptureLog.Writer w = capture;
+            if (w != null) w.append(data, length, receiveNanos);
+
+            // 1. 패킷(Bundle) 파싱 -> writingBuffer에 기록
+            processOscPacket(data, length);
+            PipelineTrace.record(PipelineTrace.Stage.DECODE, wallNanos);
+
+            // 2. 패킷 처리가 끝나면(Bundle 하나 완료) 스냅샷 업데이트 (Atomic Commit)
+            //    VMC는 보통 한 패킷(Bundle)에 한 프레임의 모든 본 데이터를 담아 보냅니다.
+            commitSnapshot();
+            PipelineTrace.record(PipelineTrace.Stage.COMMIT, wallNanos);
+
+            // 3. 같은 스레드에서 바로 리타게팅 → 관절 벡터 발행 (틱 스레드는 교체만)
+            for (VmcRetargeter r : retargeters) {
+                r.evaluate(writingBuffer, receiveNanos, wallNanos);
+            }
+            if (!retargeters.isEmpty()) PipelineTrace.record(PipelineTrace.Stage.RETARGET, wallNanos);
+        }
         
         private void commitSnapshot() {
             // writingBuffer의 내용을 복사하여 불변 Map으로 만듦 (ConcurrentModification 방지)
@@ -366,7 +621,9 @@ public class VMCListenerController extends Screen {
         }
         
         public Diagnostics getDiagnostics() {
-            return new Diagnostics(running.get(), lastPacketTime.get(), totalPackets.get(), vmcPackets.get(), List.of());
+            VmcCaptureLog.Writer w = capture;
+            return new Diagnostics(running.get(), lastPacketTime.get(), totalPackets.get(), vmcPackets.get(), List.of(),
+                    isReplaying(), w != null ? w.records() : -1);
         }
 
         // [수정] BoneTransform을 단순화 (Local/World 구분 없이 World만 저장)
@@ -375,6 +632,8 @@ public class VMCListenerController extends Screen {
             public final Quaternionf rotation = new Quaternionf();
         }
 
-        public record Diagnostics(boolean running, long lastPacketTime, long totalPackets, long vmcPackets, List<String> recent) {}
+        /** capturedPackets: 캡처 중이 아니면 -1 */
+        public record Diagnostics(boolean running, long lastPacketTime, long totalPackets, long vmcPackets, List<String> recent,
+                                  boolean replaying, long capturedPackets) {}
     }
 }
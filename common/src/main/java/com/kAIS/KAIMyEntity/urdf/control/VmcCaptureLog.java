@@ -0,0 +1,107 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * VMC 원본 데이터그램 캡처 로그
+ * - 헤더: "VMCCAP1\0"(8) + 캡처 시작 epoch millis(8)
+ * - 레코드: 시작 기준 수신 시각 nanos(8) + 길이(4) + 원본 바이트
+ * - VmcListener 수신 스레드가 Writer로 기록, 재생 스레드가 Reader로 읽음
+ */
+public final class VmcCaptureLog {
+    static final byte[] MAGIC = "VMCCAP1\0".getBytes(StandardCharsets.US_ASCII);
+    public static final String EXTENSION = ".vmccap";
+
+    private VmcCaptureLog() {}
+
+    /** 캡처 기록기 (수신 스레드 append / UI 스레드 close) */
+    public static final class Writer implements Closeable {
+        private final Path path;
+        private final DataOutputStream out;
+        private final long startNanos;
+        private long records = 0;
+        private boolean closed = false;
+
+        public Writer(Path path) throws IOException {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            this.path = path;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            this.startNanos = System.nanoTime();
+            out.write(MAGIC);
+            out.writeLong(System.currentTimeMillis());
+        }
+
+        public synchronized void append(byte[] data, int length, long receiveNanos) throws IOException {
+            if (closed) return;
+            out.writeLong(receiveNanos - startNanos);
+            out.writeInt(length);
+            out.write(data, 0, length);
+            records++;
+        }
+
+        public synchronized long records() { return records; }
+        public Path path() { return path; }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            out.close();
+        }
+    }
+
+    /** 캡처 재생기 (재생 스레드 전용) */
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final long startEpochMillis;
+        private byte[] buffer = new byte[65536];
+        private long offsetNanos;
+        private int length;
+
+        public Reader(Path path) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                in.close();
+                throw new IOException("Not a VMC capture file: " + path);
+            }
+            this.startEpochMillis = in.readLong();
+        }
+
+        /** 다음 레코드로 이동. 파일 끝이면 false */
+        public boolean next() throws IOException {
+            try {
+                offsetNanos = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            length = in.readInt();
+            if (length < 0) throw new IOException("Corrupt capture record length: " + length);
+            if (length > buffer.length) buffer = new byte[length];
+            in.readFully(buffer, 0, length);
+            return true;
+        }
+
+        public long startEpochMillis() { return startEpochMillis; }
+        /** 캡처 시작 기준 수신 시각 */
+        public long offsetNanos() { return offsetNanos; }
+        public byte[] data() { return buffer; }
+        public int length() { return length; }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
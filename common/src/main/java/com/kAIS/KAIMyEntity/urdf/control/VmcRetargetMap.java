@@ -0,0 +1,326 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.urdf.URDFRobotModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * VMC 본 → URDF 관절 리타게팅 테이블
+ * - 로봇 모델 폴더의 vmc_retarget.properties 에서 로드 (없으면 기본 휴머노이드 테이블)
+ * - compile(robot)으로 인덱스 배열로 변환 → VmcRetargeter가 한 번의 루프로 평가
+ *
+ * 파일 형식 (한 줄 = 한 관절):
+ * <pre>
+ * # joint = bone, parent[|fallback...], axis[, sign=1][, offset=0][, min=..][, max=..][, abs]
+ * l_sho_pitch = LeftUpperArm, Chest|Spine|Hips, x
+ * l_el        = LeftLowerArm, LeftUpperArm, z, sign=-1, abs
+ * head_pan    = Head, Neck|Chest, y, min=-1.57, max=1.57
+ * </pre>
+ * - parent 를 비우면(-) 월드 회전 기준
+ * - axis: 부모 기준 로컬 회전의 XYZ 오일러 성분 (x|y|z)
+ *
+ * 필터 (JointFilterBank, 리타게팅 값에 적용 후 min/max 클램프):
+ * <pre>
+ * # 종류: none | one_euro | critical (frequency) | kalman (q, r)
+ * # 전체 기본값
+ * filter      = one_euro, minCutoff=1.5, beta=0.5, dCutoff=1.0
+ * # 관절별 덮어쓰기
+ * filter.l_el = critical, frequency=6
+ * </pre>
+ */
+public final class VmcRetargetMap {
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final String FILE_NAME = "vmc_retarget.properties";
+
+    /** 본 테이블 (인덱스 고정) */
+    static final String[] BONES = {
+            "Hips", "Spine", "Chest", "UpperChest", "Neck", "Head",
+            "LeftShoulder", "LeftUpperArm", "LeftLowerArm", "LeftHand",
+            "RightShoulder", "RightUpperArm", "RightLowerArm", "RightHand",
+            "LeftUpperLeg", "LeftLowerLeg", "LeftFoot",
+            "RightUpperLeg", "RightLowerLeg", "RightFoot"
+    };
+
+    /** 기본 테이블 (기존 팔 로직 + 머리/다리) */
+    private static final String[][] DEFAULT_TABLE = {
+            // 팔 (기존 하드코딩 로직과 동일)
+            {"l_sho_pitch", "LeftUpperArm, Chest|Spine|Hips, x"},
+            {"l_sho_roll",  "LeftUpperArm, Chest|Spine|Hips, z"},
+            {"l_el",        "LeftLowerArm, LeftUpperArm, z, sign=-1, abs"},
+            {"r_sho_pitch", "RightUpperArm, Chest|Spine|Hips, x"},
+            {"r_sho_roll",  "RightUpperArm, Chest|Spine|Hips, z"},
+            {"r_el",        "RightLowerArm, RightUpperArm, z, abs"},
+            // 머리
+            {"head_pan",    "Head, Neck|Chest|Spine|Hips, y"},
+            {"head_tilt",   "Head, Neck|Chest|Spine|Hips, x"},
+            // 다리
+            {"l_hip_yaw",   "LeftUpperLeg, Hips, y"},
+            {"l_hip_roll",  "LeftUpperLeg, Hips, z"},
+            {"l_hip_pitch", "LeftUpperLeg, Hips, x"},
+            {"l_knee",      "LeftLowerLeg, LeftUpperLeg, x"},
+            {"l_ank_pitch", "LeftFoot, LeftLowerLeg, x"},
+            {"l_ank_roll",  "LeftFoot, LeftLowerLeg, z"},
+            {"r_hip_yaw",   "RightUpperLeg, Hips, y"},
+            {"r_hip_roll",  "RightUpperLeg, Hips, z"},
+            {"r_hip_pitch", "RightUpperLeg, Hips, x"},
+            {"r_knee",      "RightLowerLeg, RightUpperLeg, x"},
+            {"r_ank_pitch", "RightFoot, RightLowerLeg, x"},
+            {"r_ank_roll",  "RightFoot, RightLowerLeg, z"},
+    };
+
+    /** 파싱된 한 줄 */
+    public record Entry(String joint, String bone, String[] parents, int axis,
+                        float sign, float offset, float min, float max, boolean abs) {}
+
+    private static final String FILTER_KEY = "filter";
+
+    private final List<Entry> entries;
+    private final String source;
+    private final JointFilterBank.Spec defaultFilter;
+    private final Map<String, JointFilterBank.Spec> jointFilters;
+
+    private VmcRetargetMap(List<Entry> entries, String source,
+                           JointFilterBank.Spec defaultFilter, Map<String, JointFilterBank.Spec> jointFilters) {
+        this.entries = entries;
+        this.source = source;
+        this.defaultFilter = defaultFilter;
+        this.jointFilters = jointFilters;
+    }
+
+    public List<Entry> entries() { return entries; }
+    public String source() { return source; }
+
+    public static VmcRetargetMap defaults() {
+        Properties props = new Properties();
+        for (String[] row : DEFAULT_TABLE) props.setProperty(row[0], row[1]);
+        return fromProperties(props, "<default>");
+    }
+
+    /**
+     * 모델 폴더에서 로드 (meshes 폴더가 넘어오면 상위 폴더도 확인)
+     * - 파일이 없거나 읽기 실패 시 기본 테이블
+     */
+    public static VmcRetargetMap load(String modelDir) {
+        File file = findFile(modelDir);
+        if (file == null) return defaults();
+
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (Exception e) {
+            logger.warn("Failed to read {}, using default retarget table", file, e);
+            return defaults();
+        }
+        VmcRetargetMap map = fromProperties(props, file.getAbsolutePath());
+        logger.info("Loaded VMC retarget table: {} ({} joints)", file, map.entries.size());
+        return map;
+    }
+
+    static File findFile(String modelDir) {
+        if (modelDir == null) return null;
+        File dir = new File(modelDir);
+        File f = new File(dir, FILE_NAME);
+        if (f.isFile()) return f;
+        File parent = dir.getParentFile();
+        if (parent != null) {
+            f = new File(parent, FILE_NAME);
+            if (f.isFile()) return f;
+        }
+        return null;
+    }
+
+    private static VmcRetargetMap fromProperties(Properties props, String source) {
+        JointFilterBank.Spec defaultFilter = JointFilterBank.Spec.DEFAULT;
+        String globalFilter = props.getProperty(FILTER_KEY);
+        if (globalFilter != null) {
+            defaultFilter = JointFilterBank.Spec.parse(globalFilter, defaultFilter, source);
+        }
+
+        List<Entry> list = new ArrayList<>();
+        Map<String, JointFilterBank.Spec> jointFilters = new HashMap<>();
+        for (String key : props.stringPropertyNames()) {
+            String k = key.trim();
+            if (k.equals(FILTER_KEY)) continue;
+            if (k.startsWith(FILTER_KEY + ".")) {
+                String joint = k.substring(FILTER_KEY.length() + 1);
+                jointFilters.put(joint, JointFilterBank.Spec.parse(props.getProperty(key), defaultFilter, source));
+                continue;
+            }
+            Entry e = parseEntry(k, props.getProperty(key), source);
+            if (e != null) list.add(e);
+        }
+        list.sort(Comparator.comparing(Entry::joint));
+        return new VmcRetargetMap(List.copyOf(list), source, defaultFilter, Map.copyOf(jointFilters));
+    }
+
+    private static Entry parseEntry(String joint, String value, String source) {
+        String[] parts = value.split(",");
+        if (parts.length < 3) {
+            logger.warn("[{}] '{}': expected 'bone, parent, axis[, ...]', got '{}'", source, joint, value);
+            return null;
+        }
+        String bone = parts[0].trim();
+        if (boneIndex(bone) < 0) {
+            logger.warn("[{}] '{}': unknown bone '{}'", source, joint, bone);
+            return null;
+        }
+
+        String parentStr = parts[1].trim();
+        String[] parents = (parentStr.isEmpty() || parentStr.equals("-")) ? new String[0] : parentStr.split("\\|");
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = parents[i].trim();
+            if (boneIndex(parents[i]) < 0) {
+                logger.warn("[{}] '{}': unknown parent bone '{}'", source, joint, parents[i]);
+                return null;
+            }
+        }
+
+        int axis = switch (parts[2].trim().toLowerCase()) {
+            case "x" -> 0;
+            case "y" -> 1;
+            case "z" -> 2;
+            default -> -1;
+        };
+        if (axis < 0) {
+            logger.warn("[{}] '{}': axis must be x|y|z, got '{}'", source, joint, parts[2].trim());
+            return null;
+        }
+
+        float sign = 1f, offset = 0f, min = Float.NaN, max = Float.NaN;
+        boolean abs = false;
+        for (int i = 3; i < parts.length; i++) {
+            String opt = parts[i].trim();
+            if (opt.isEmpty()) continue;
+            if (opt.equalsIgnoreCase("abs")) { abs = true; continue; }
+            int eq = opt.indexOf('=');
+            if (eq < 0) {
+                logger.warn("[{}] '{}': ignoring option '{}'", source, joint, opt);
+                continue;
+            }
+            String k = opt.substring(0, eq).trim().toLowerCase();
+            float v;
+            try {
+                v = Float.parseFloat(opt.substring(eq + 1).trim());
+            } catch (NumberFormatException ex) {
+                logger.warn("[{}] '{}': bad number in '{}'", source, joint, opt);
+                continue;
+            }
+            switch (k) {
+                case "sign" -> sign = v;
+                case "offset" -> offset = v;
+                case "min" -> min = v;
+                case "max" -> max = v;
+                default -> logger.warn("[{}] '{}': unknown option '{}'", source, joint, k);
+            }
+        }
+        if (!Float.isNaN(min) && !Float.isNaN(max) && min > max) {
+            logger.warn("[{}] '{}': min {} > max {}, limits ignored", source, joint, min, max);
+            min = Float.NaN;
+            max = Float.NaN;
+        }
+        return new Entry(joint, bone, parents, axis, sign, offset, min, max, abs);
+    }
+
+    static int boneIndex(String bone) {
+        for (int i = 0; i < BONES.length; i++) {
+            if (BONES[i].equals(bone)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 로봇에 맞춰 인덱스 배열로 컴파일
+     * - 로봇에 없는 관절은 건너뜀
+     * - 같은 (bone, parent) 쌍은 연속 배치 → 오일러 분해 재사용
+     */
+    public Compiled compile(URDFRobotModel robot) {
+        List<Entry> usable = new ArrayList<>();
+        List<Integer> jointIdx = new ArrayList<>();
+        for (Entry e : entries) {
+            int idx = -1;
+            for (int i = 0; i < robot.joints.size(); i++) {
+                if (e.joint.equals(robot.joints.get(i).name)) { idx = i; break; }
+            }
+            if (idx < 0) {
+                logger.debug("Retarget joint '{}' not in robot '{}', skipped", e.joint, robot.name);
+                continue;
+            }
+            usable.add(e);
+            jointIdx.add(idx);
+        }
+
+        // (bone, parents) 기준 정렬
+        Integer[] order = new Integer[usable.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        java.util.Arrays.sort(order, Comparator.comparing(i -> pairKey(usable.get(i))));
+
+        int n = order.length;
+        Compiled c = new Compiled(n);
+        for (int k = 0; k < n; k++) {
+            Entry e = usable.get(order[k]);
+            c.jointIdx[k] = jointIdx.get(order[k]);
+            c.boneIdx[k] = boneIndex(e.bone);
+            c.parentChain[k] = new int[e.parents.length];
+            for (int p = 0; p < e.parents.length; p++) c.parentChain[k][p] = boneIndex(e.parents[p]);
+            c.axis[k] = e.axis;
+            c.sign[k] = e.sign;
+            c.offset[k] = e.offset;
+            c.min[k] = Float.isNaN(e.min) ? Float.NEGATIVE_INFINITY : e.min;
+            c.max[k] = Float.isNaN(e.max) ? Float.POSITIVE_INFINITY : e.max;
+            c.abs[k] = e.abs;
+            c.filters[k] = jointFilters.getOrDefault(e.joint, defaultFilter);
+            c.samePairAsPrev[k] = k > 0 && pairKey(e).equals(pairKey(usable.get(order[k - 1])));
+            c.boneUsed[c.boneIdx[k]] = true;
+            for (int p : c.parentChain[k]) c.boneUsed[p] = true;
+        }
+        logger.info("Retarget table compiled for '{}': {}/{} joints ({})", robot.name, n, entries.size(), source);
+        return c;
+    }
+
+    private static String pairKey(Entry e) {
+        return e.bone + "<" + String.join("|", e.parents);
+    }
+
+    /** 평가용 인덱스 배열 (불변) */
+    public static final class Compiled {
+        public final int size;
+        final int[] jointIdx;
+        final int[] boneIdx;
+        final int[][] parentChain;
+        final int[] axis;
+        final float[] sign;
+        final float[] offset;
+        final float[] min;
+        final float[] max;
+        final boolean[] abs;
+        final boolean[] samePairAsPrev;
+        final JointFilterBank.Spec[] filters;
+        final boolean[] boneUsed = new boolean[BONES.length];
+
+        Compiled(int n) {
+            this.size = n;
+            this.jointIdx = new int[n];
+            this.boneIdx = new int[n];
+            this.parentChain = new int[n][];
+            this.axis = new int[n];
+            this.sign = new float[n];
+            this.offset = new float[n];
+            this.min = new float[n];
+            this.max = new float[n];
+            this.abs = new boolean[n];
+            this.samePairAsPrev = new boolean[n];
+            this.filters = new JointFilterBank.Spec[n];
+        }
+    }
+}
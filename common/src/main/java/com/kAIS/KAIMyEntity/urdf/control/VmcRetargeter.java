@@ -0,0 +1,138 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.urdf.URDFRobotModel;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * VMC 본 → 로봇 관절 벡터 리타게팅 (수신 스레드 전용)
+ * - VmcListener 수신 스레드가 프레임 완료 직후 evaluate() 호출
+ * - VmcRetargetMap 테이블을 인덱스 배열로 컴파일해 한 번의 루프로 전 관절 평가 (할당 없음)
+ * - 채널별 JointFilterBank 필터 적용 후 발행 (떨림 + Webots 명령 수 감소)
+ * - 결과는 robotModel.joints 인덱스 기준 dense 벡터로 발행 (트리플 버퍼)
+ * - 틱 스레드는 latest()로 최신 프레임만 교체해서 가져감 (계산 없음)
+ */
+public final class VmcRetargeter {
+    private final URDFRobotModel robot;
+    private final VmcRetargetMap.Compiled map;
+    private final JointFilterBank filters;
+
+    // 본 테이블 (VmcRetargetMap.BONES 인덱스) - 평가마다 갱신
+    private final VMCListenerController.VmcListener.Transform[] boneTable =
+            new VMCListenerController.VmcListener.Transform[VmcRetargetMap.BONES.length];
+
+    // 계산용 스크래치 (수신 스레드에서만 사용 → 할당 없음)
+    private final Quaternionf qLocal = new Quaternionf();
+    private final Vector3f euler = new Vector3f();
+
+    // 트리플 버퍼: back(수신 스레드) / middle(교환) / front(틱 스레드)
+    private Frame back;
+    private final AtomicReference<Frame> middle;
+    private Frame front;
+    private long seq = 0;
+
+    public VmcRetargeter(URDFRobotModel robot, VmcRetargetMap table) {
+        this.robot = robot;
+        this.map = table.compile(robot);
+        this.filters = new JointFilterBank(map.filters);
+        int n = robot.joints.size();
+        this.back = new Frame(n);
+        this.middle = new AtomicReference<>(new Frame(n));
+        this.front = new Frame(n);
+    }
+
+    public URDFRobotModel robot() { return robot; }
+    public int mappedJointCount() { return map.size; }
+
+    /**
+     * 수신 스레드: 완성된 본 버퍼로 관절 벡터 계산 후 발행
+     * @param bones 수신 스레드 소유의 쓰기 버퍼 (같은 스레드에서만 호출)
+     * @param sourceNanos 원본 패킷 수신 시각 (System.nanoTime, 재생 시 캡처 시각) - 필터 dt 기준
+     * @param receiveNanos 실제 수신 시각 - 지연 추적용
+     */
+    void evaluate(Map<String, VMCListenerController.VmcListener.Transform> bones, long sourceNanos, long receiveNanos) {
+        final VmcRetargetMap.Compiled m = map;
+        final VMCListenerController.VmcListener.Transform[] table = boneTable;
+        for (int b = 0; b < table.length; b++) {
+            table[b] = m.boneUsed[b] ? bones.get(VmcRetargetMap.BONES[b]) : null;
+        }
+
+        Frame f = back;
+        Arrays.fill(f.valid, false);
+
+        boolean pairOk = false;
+        for (int k = 0; k < m.size; k++) {
+            if (!m.samePairAsPrev[k]) {
+                pairOk = localEuler(table[m.boneIdx[k]], m.parentChain[k]);
+            }
+            if (!pairOk) continue;
+
+            float v = m.axis[k] == 0 ? euler.x : (m.axis[k] == 1 ? euler.y : euler.z);
+            if (m.abs[k]) v = Math.abs(v);
+            v = v * m.sign[k] + m.offset[k];
+            v = filters.apply(k, v, sourceNanos);
+            if (v < m.min[k]) v = m.min[k];
+            if (v > m.max[k]) v = m.max[k];
+
+            int idx = m.jointIdx[k];
+            f.positions[idx] = v;
+            f.valid[idx] = true;
+        }
+
+        f.seq = ++seq;
+        f.sourceNanos = sourceNanos;
+        f.receiveNanos = receiveNanos;
+        f.fresh = true;
+        back = middle.getAndSet(f);
+    }
+
+    /** Q_rel = Q_parent^-1 * Q_child → XYZ 오일러 (부모 체인 중 처음 존재하는 본 사용) */
+    private boolean localEuler(VMCListenerController.VmcListener.Transform child, int[] parentChain) {
+        if (child == null) return false;
+        if (parentChain.length == 0) {
+            qLocal.set(child.rotation);
+        } else {
+            VMCListenerController.VmcListener.Transform parent = null;
+            for (int p : parentChain) {
+                parent = boneTable[p];
+                if (parent != null) break;
+            }
+            if (parent == null) return false;
+            qLocal.set(parent.rotation).conjugate().mul(child.rotation);
+        }
+        qLocal.getEulerAnglesXYZ(euler);
+        return true;
+    }
+
+    /**
+     * 틱 스레드: 새 프레임이 있으면 교체 후 최신 프레임 반환
+     * @return 아직 한 번도 계산되지 않았으면 null
+     */
+    public Frame latest() {
+        if (middle.get().fresh) {
+            front.fresh = false;
+            front = middle.getAndSet(front);
+        }
+        return front.seq == 0 ? null : front;
+    }
+
+    /** 로봇 관절 인덱스 기준 dense 관절 벡터 */
+    public static final class Frame {
+        public final float[] positions;
+        public final boolean[] valid;
+        public long seq;
+        public long sourceNanos;
+        /** 실제 수신 시각 (PipelineTrace 기준점) */
+        public long receiveNanos;
+        volatile boolean fresh;
+
+        Frame(int n) {
+            this.positions = new float[n];
+            this.valid = new boolean[n];
+        }
+    }
+}
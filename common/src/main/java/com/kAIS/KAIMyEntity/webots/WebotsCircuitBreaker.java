@@ -0,0 +1,184 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Webots 브리지 서킷 브레이커
+ * - CLOSED: 정상 전송. 연속 실패 failureThreshold 번이면 OPEN
+ * - OPEN: 전송 안 함 (allowRequest 는 volatile 읽기 1번). 백그라운드 probe 를 지터 섞인 지수 백오프로 반복
+ * - HALF_OPEN: probe 성공 후 실제 요청 1개만 통과 → 성공이면 CLOSED, 실패면 다시 OPEN (백오프 증가)
+ * 사용자 조작 없이 자동 복구, reconnect 시 restart() 로 즉시 probe
+ */
+final class WebotsCircuitBreaker {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Supplier<CompletableFuture<Boolean>> probe;
+    private final Runnable onRestored;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.OPEN);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private final AtomicBoolean probeScheduled = new AtomicBoolean();
+    private volatile ScheduledFuture<?> pendingProbe;
+    private final AtomicInteger attempt = new AtomicInteger();  // 현재 OPEN 구간의 probe 횟수 (백오프 지수)
+    private volatile long nextProbeNanos = 0;
+    private volatile boolean everConnected = false;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder probeFailures = new LongAdder();
+
+    /**
+     * @param probe      서버 상태 확인 (비동기, true = 응답함). 스케줄러 스레드에서 호출됨
+     * @param onRestored HALF_OPEN → CLOSED 때 1번 (onSuccess 를 부른 스레드, 블로킹 금지)
+     */
+    WebotsCircuitBreaker(String name, int failureThreshold, long baseBackoffMillis, long maxBackoffMillis,
+                         ScheduledExecutorService scheduler, Supplier<CompletableFuture<Boolean>> probe,
+                         Runnable onRestored) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.scheduler = scheduler;
+        this.probe = probe;
+        this.onRestored = onRestored;
+    }
+
+    // ==================== 전송 경로 (핫 패스) ====================
+
+    /** 이번 요청을 보내도 되는지 (HALF_OPEN 에서는 시험 요청 1개만 true) */
+    boolean allowRequest() {
+        State s = state.get();
+        if (s == State.CLOSED) return true;
+        return s == State.HALF_OPEN && trialInFlight.compareAndSet(false, true);
+    }
+
+    boolean isOpen() {
+        return state.get() == State.OPEN;
+    }
+
+    void onSuccess() {
+        if (consecutiveFailures.get() != 0) consecutiveFailures.set(0);
+        if (state.get() == State.HALF_OPEN && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            trialInFlight.set(false);
+            attempt.set(0);
+            LOGGER.info("✅ {} connection restored", name);
+            onRestored.run();
+        }
+    }
+
+    void onFailure(String reason) {
+        State s = state.get();
+        if (s == State.HALF_OPEN) {
+            trialInFlight.set(false);
+            open(reason);
+        } else if (s == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(reason);
+        }
+    }
+
+    // ==================== 상태 전환 ====================
+
+    /** 처음부터 다시: OPEN 으로 두고 즉시 probe (생성 직후 / 주소 변경) */
+    void restart() {
+        state.set(State.OPEN);
+        consecutiveFailures.set(0);
+        trialInFlight.set(false);
+        attempt.set(0);
+        ScheduledFuture<?> pending = pendingProbe;
+        if (pending != null && pending.cancel(false)) probeScheduled.set(false);
+        scheduleProbe(0);
+    }
+
+    private void open(String reason) {
+        State prev = state.getAndSet(State.OPEN);
+        consecutiveFailures.set(0);
+        long delay = backoffMillis(attempt.get());
+        if (prev != State.OPEN) {
+            opened.increment();
+            LOGGER.error("❌ {} unreachable ({}), probing in {}ms", name, reason, delay);
+        }
+        scheduleProbe(delay);
+    }
+
+    private void scheduleProbe(long delayMillis) {
+        if (!probeScheduled.compareAndSet(false, true)) return;
+        nextProbeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        try {
+            pendingProbe = scheduler.schedule(this::runProbe, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            probeScheduled.set(false); // 종료 중
+        }
+    }
+
+    private void runProbe() {
+        if (state.get() != State.OPEN) {
+            probeScheduled.set(false);
+            return;
+        }
+        probes.increment();
+        CompletableFuture<Boolean> result;
+        try {
+            result = probe.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.completedFuture(false);
+        }
+        result.whenComplete((ok, error) -> {
+            probeScheduled.set(false);
+            if (error == null && Boolean.TRUE.equals(ok)) {
+                if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                    trialInFlight.set(false);
+                    if (!everConnected) {
+                        everConnected = true;
+                        LOGGER.info("✅ {} reachable", name);
+                    } else {
+                        LOGGER.info("🔄 {} reachable again, resuming", name);
+                    }
+                }
+            } else {
+                probeFailures.increment();
+                if (state.get() == State.OPEN) scheduleProbe(backoffMillis(attempt.incrementAndGet()));
+            }
+        });
+    }
+
+    /** 지수 백오프 + equal jitter: [cap/2, cap], cap = min(max, base * 2^attempt) */
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    // ==================== 조회 ====================
+
+    State state() { return state.get(); }
+
+    /** OPEN 일 때 다음 probe 까지 남은 시간 [ms] (아니면 0) */
+    long millisUntilProbe() {
+        if (state.get() != State.OPEN) return 0;
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(nextProbeNanos - System.nanoTime()));
+    }
+
+    long openedCount() { return opened.sum(); }
+    long probeCount() { return probes.sum(); }
+    long probeFailureCount() { return probeFailures.sum(); }
+}
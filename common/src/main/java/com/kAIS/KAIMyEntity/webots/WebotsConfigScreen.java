@@ -1,6 +1,7 @@
 // common/src/main/java/com/kAIS/KAIMyEntity/webots/WebotsConfigScreen.java
 package com.kAIS.KAIMyEntity.webots;
 
+import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.Button;
@@ -40,6 +41,7 @@ public class WebotsConfigScreen extends Screen {
     private EditBox portBox;
     private Button connectButton;
     private Button testButton;
+    private Button mirrorButton;
     private Button closeButton;
     
     private String statusMessage = "";
@@ -101,6 +103,14 @@ public class WebotsConfigScreen extends Screen {
         }).bounds(centerX - 100, startY, 200, 20).build();
         addRenderableWidget(this.testButton);
         
+        startY += 25;
+        
+        // === 미러 모드 (Webots 측정 상태 표시) ===
+        this.mirrorButton = Button.builder(Component.literal(mirrorLabel()), b -> {
+            handleMirror();
+        }).bounds(centerX - 100, startY, 200, 20).build();
+        addRenderableWidget(this.mirrorButton);
+        
         // === 닫기 버튼 ===
         this.closeButton = Button.builder(Component.literal("Close"), b -> {
             Minecraft.getInstance().setScreen(parent);
@@ -161,7 +171,8 @@ public class WebotsConfigScreen extends Screen {
         }
         
         try {
-            // T-Pose 자세 전송
+            // T-Pose 자세 전송 (한 프레임)
+            controller.beginFrame();
             controller.setJoint("r_sho_pitch", 0.3f);
             controller.setJoint("r_sho_roll", 1.57f);
             controller.setJoint("r_el", -0.1f);
@@ -169,6 +180,7 @@ public class WebotsConfigScreen extends Screen {
             controller.setJoint("l_sho_pitch", 0.3f);
             controller.setJoint("l_sho_roll", -1.57f);
             controller.setJoint("l_el", -0.1f);
+            controller.flushFrame();
             
             setStatus("✓ T-Pose sent! Check Webots simulation.", CONNECTED_COLOR);
             LOGGER.info("T-Pose test sent successfully");
@@ -178,6 +190,28 @@ public class WebotsConfigScreen extends Screen {
         }
     }
     
+    private static String mirrorLabel() {
+        URDFModelOpenGLWithSTL renderer = URDFModelOpenGLWithSTL.LAST_CREATED;
+        return "Mirror Webots State: " + (renderer != null && renderer.isMirrorMode() ? "ON" : "OFF");
+    }
+    
+    private void handleMirror() {
+        URDFModelOpenGLWithSTL renderer = URDFModelOpenGLWithSTL.LAST_CREATED;
+        if (renderer == null || controller == null) {
+            setStatus("✗ No URDF model or controller", DISCONNECTED_COLOR);
+            return;
+        }
+        boolean on = !renderer.isMirrorMode();
+        if (on) {
+            controller.subscribeState(renderer.getRobotModel());
+        } else {
+            controller.unsubscribeState();
+        }
+        renderer.setMirrorMode(on);
+        mirrorButton.setMessage(Component.literal(mirrorLabel()));
+        setStatus(on ? "✓ Showing measured Webots state" : "✓ Showing commanded pose", CONNECTED_COLOR);
+    }
+    
     private void setStatus(String message, int color) {
         this.statusMessage = message;
         this.statusColor = color;
@@ -188,6 +222,7 @@ public class WebotsConfigScreen extends Screen {
         boolean connected = hasController && controller.isConnected();
         
         testButton.active = connected;
+        mirrorButton.active = hasController && URDFModelOpenGLWithSTL.LAST_CREATED != null;
     }
     
     @Override
@@ -226,6 +261,12 @@ public class WebotsConfigScreen extends Screen {
                 String address = "Address: " + controller.getRobotAddress();
                 graphics.drawCenteredString(this.font, address, this.width / 2, 
                         statusY + 12, TEXT_COLOR);
+            } else {
+                // 자동 재연결 대기 (서킷 브레이커 probe)
+                long retryMs = controller.millisUntilRetry();
+                String retry = retryMs > 0 ? "Retrying in " + retryMs + "ms" : "Retrying...";
+                graphics.drawCenteredString(this.font, retry, this.width / 2, 
+                        statusY + 12, TEXT_COLOR);
             }
         } else {
             graphics.drawCenteredString(this.font, "§c● NOT INITIALIZED", 
@@ -244,14 +285,43 @@ public class WebotsConfigScreen extends Screen {
             graphics.drawString(this.font, "=== Statistics ===", 
                     panelX + 20, statsY, TITLE_COLOR, false);
             
-            String statsJson = controller.getStatsJson();
-            if (!statsJson.contains("error")) {
-                graphics.drawString(this.font, "Server: OK", 
+            // 백그라운드 폴링 스냅샷만 읽음 (렌더 스레드 블로킹 없음)
+            WebotsController.ServerStats server = controller.getServerStats();
+            if (server.ok()) {
+                graphics.drawString(this.font, "Server: OK (" + server.ageMillis() + "ms ago)", 
                         panelX + 20, statsY + 15, CONNECTED_COLOR, false);
             } else {
-                graphics.drawString(this.font, "Server: " + statsJson, 
+                graphics.drawString(this.font, "Server: " + server.error(), 
                         panelX + 20, statsY + 15, DISCONNECTED_COLOR, false);
             }
+            
+            WebotsStateReceiver receiver = controller.getStateReceiver();
+            if (receiver != null) {
+                long last = receiver.lastReceiveNanos();
+                String age = last == 0 ? "never" : ((System.nanoTime() - last) / 1_000_000L) + "ms ago";
+                graphics.drawString(this.font, "Feedback: " + receiver.framesReceived() + " frames, last " + age,
+                        panelX + 20, statsY + 30, TEXT_COLOR, false);
+            }
+            
+            // ✅ 전송 카운터 + 최근 10초 지연 분포
+            graphics.drawString(this.font, controller.counterSummary(),
+                    panelX + 20, statsY + 45, TEXT_COLOR, false);
+            int lineY = statsY + 60;
+            for (String line : controller.latencySummaryLines(WebotsController.LATENCY_WINDOW_MS)) {
+                graphics.drawString(this.font, line, panelX + 20, lineY, TEXT_COLOR, false);
+                lineY += 12;
+            }
+            
+            WebotsLockstep lockstep = controller.getLockstep();
+            if (lockstep != null) {
+                WebotsLockstep.Observation obs = lockstep.latest();
+                String line = "Lockstep: " + lockstep.completedSteps() + " steps x" + lockstep.stepsPerAction()
+                        + (obs != null ? String.format(" | sim %.2fs | rtt %.1fms", obs.simNanos() / 1e9,
+                                obs.roundTripNanos() / 1e6) : "")
+                        + (lockstep.isHealthy() ? "" : " | FAILED: " + lockstep.failure());
+                graphics.drawString(this.font, line, panelX + 20, lineY,
+                        lockstep.isHealthy() ? TEXT_COLOR : DISCONNECTED_COLOR, false);
+            }
         }
         
         graphics.pose().popPose();
@@ -295,12 +365,30 @@ public class WebotsConfigScreen extends Screen {
         // 기본값
         private static final String DEFAULT_IP = "localhost";
         private static final int DEFAULT_PORT = 8080;
+        private static final String DEFAULT_TRANSPORT = "http";
+        private static final int DEFAULT_STREAM_HZ = 500;
+        private static final int DEFAULT_HTTP_WINDOW = 4;
         
         // 현재 설정값
         private String lastIp;
         private int lastPort;
+        // 전송 방식: http (기본) | udp (바이너리 스트리밍, 실패 시 http 폴백)
+        private String transport = DEFAULT_TRANSPORT;
+        private int streamPort = DEFAULT_PORT + 1;
+        private int streamHz = DEFAULT_STREAM_HZ;
+        // HTTP 동시 요청 수 (비동기 파이프라인 창)
+        private int httpWindow = DEFAULT_HTTP_WINDOW;
+        // 관절 매핑 이름 (config/webots_jointmap/<이름>.properties 또는 내장)
+        private String jointMap = WebotsJointMap.DEFAULT_NAME;
+        // 록스텝 (RL 수집용): 연결 시 자동 시작, 행동당 시뮬레이션 스텝 수, 파이프라인 깊이
+        private boolean lockstep = false;
+        private int lockstepSteps = 1;
+        private int lockstepDepth = 2;
+        // 미러: 같은 자세를 복제해 보낼 Webots 목록 "host:port, host:port" (stream_port = port + 1)
+        private String mirrors = "";
         
         // 설정 파일 경로
+        private final File configDir;
         private final File configFile;
         
         // 싱글톤
@@ -312,6 +400,7 @@ public class WebotsConfigScreen extends Screen {
             if (!configDir.exists()) {
                 configDir.mkdirs();
             }
+            this.configDir = configDir;
             this.configFile = new File(configDir, "webots_connection.properties");
             
             // 설정 로드
@@ -343,7 +432,16 @@ public class WebotsConfigScreen extends Screen {
                 props.load(fis);
                 lastIp = props.getProperty("ip", DEFAULT_IP);
                 lastPort = Integer.parseInt(props.getProperty("port", String.valueOf(DEFAULT_PORT)));
-                CONFIG_LOGGER.info("Loaded Webots config: {}:{}", lastIp, lastPort);
+                transport = props.getProperty("transport", DEFAULT_TRANSPORT).trim().toLowerCase();
+                streamPort = Integer.parseInt(props.getProperty("stream_port", String.valueOf(lastPort + 1)));
+                streamHz = Integer.parseInt(props.getProperty("stream_hz", String.valueOf(DEFAULT_STREAM_HZ)));
+                httpWindow = Integer.parseInt(props.getProperty("http_window", String.valueOf(DEFAULT_HTTP_WINDOW)));
+                jointMap = props.getProperty("joint_map", WebotsJointMap.DEFAULT_NAME).trim();
+                lockstep = Boolean.parseBoolean(props.getProperty("lockstep", "false").trim());
+                lockstepSteps = Integer.parseInt(props.getProperty("lockstep_steps", "1"));
+                lockstepDepth = Integer.parseInt(props.getProperty("lockstep_depth", "2"));
+                mirrors = props.getProperty("mirrors", "").trim();
+                CONFIG_LOGGER.info("Loaded Webots config: {}:{} ({})", lastIp, lastPort, transport);
             } catch (Exception e) {
                 CONFIG_LOGGER.warn("Failed to load Webots config, using defaults", e);
                 lastIp = DEFAULT_IP;
@@ -358,6 +456,15 @@ public class WebotsConfigScreen extends Screen {
             Properties props = new Properties();
             props.setProperty("ip", lastIp);
             props.setProperty("port", String.valueOf(lastPort));
+            props.setProperty("transport", transport);
+            props.setProperty("stream_port", String.valueOf(streamPort));
+            props.setProperty("stream_hz", String.valueOf(streamHz));
+            props.setProperty("http_window", String.valueOf(httpWindow));
+            props.setProperty("joint_map", jointMap);
+            props.setProperty("lockstep", String.valueOf(lockstep));
+            props.setProperty("lockstep_steps", String.valueOf(lockstepSteps));
+            props.setProperty("lockstep_depth", String.valueOf(lockstepDepth));
+            props.setProperty("mirrors", mirrors);
             
             try (FileOutputStream fos = new FileOutputStream(configFile)) {
                 props.store(fos, "Webots Connection Settings");
@@ -385,6 +492,46 @@ public class WebotsConfigScreen extends Screen {
             return lastPort;
         }
         
+        public boolean isStreamTransport() {
+            return "udp".equals(transport);
+        }
+        
+        public int getStreamPort() {
+            return streamPort;
+        }
+        
+        public int getStreamHz() {
+            return Math.max(1, Math.min(2000, streamHz));
+        }
+        
+        public int getHttpWindow() {
+            return Math.max(1, Math.min(32, httpWindow));
+        }
+        
+        public String getJointMapName() {
+            return jointMap.isEmpty() ? WebotsJointMap.DEFAULT_NAME : jointMap;
+        }
+        
+        public File getConfigDir() {
+            return configDir;
+        }
+        
+        public boolean isLockstep() {
+            return lockstep;
+        }
+        
+        public int getLockstepSteps() {
+            return Math.max(1, lockstepSteps);
+        }
+        
+        public int getLockstepDepth() {
+            return Math.max(1, Math.min(16, lockstepDepth));
+        }
+        
+        public String getMirrors() {
+            return mirrors;
+        }
+        
         public String getDefaultIp() {
             return DEFAULT_IP;
         }
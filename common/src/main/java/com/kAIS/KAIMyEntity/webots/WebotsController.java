@@ -1,17 +1,34 @@
 // common/src/main/java/com/kAIS/KAIMyEntity/webots/WebotsController.java
 package com.kAIS.KAIMyEntity.webots;
 
+import com.kAIS.KAIMyEntity.metrics.LatencyHistogram;
+import com.kAIS.KAIMyEntity.metrics.PipelineTrace;
+import com.kAIS.KAIMyEntity.metrics.RollingLatencyHistogram;
+import com.kAIS.KAIMyEntity.urdf.URDFRobotModel;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 public class WebotsController {
     private static final Logger LOGGER = LogManager.getLogger();
@@ -23,66 +40,106 @@ public class WebotsController {
     private int robotPort;
     private final ExecutorService executor;
     private final ScheduledExecutorService scheduler;
-    private final BlockingQueue<Command> commandQueue;
-    private final Map<String, Float> lastSent;
     private static final float DELTA_THRESHOLD = 0.01f;
 
-    private volatile boolean connected = false;
-    private volatile int failureCount = 0;
-    private static final int MAX_FAILURES = 10;
+    // ------------ 관절 매핑 (로봇별 파일 → 컴파일된 배열) ------------
+    private final WebotsJointMap jointMap;
+    /** Webots 모터 개수 (매핑 파일의 motors) */
+    private final int motorCount;
+
+    // ------------ 프레임 단위 전송 (틱당 전체 자세 1회) ------------
+    private final Object pendingLock = new Object();
+    private final float[] pendingValues;
+    private final float[] lastSentValues;  // 모터별 델타 기준 (NaN = 없음 / 전송 실패로 잊음), pendingLock
+    private long pendingMask = 0;          // bit i = 이번 프레임에 모터 i 값 있음 (델타 판정 전)
+    private boolean frameOpen = false;     // beginFrame ~ flushFrame 사이에는 자동 flush 안 함
+    private long frameSeq = 0;             // 스케줄러 스레드 전용
+
+    // ------------ 최신값 메일박스 (FIFO 대신, 중간 값은 덮어씀) ------------
+    /** 이보다 오래된 값은 전송하지 않고 버림 */
+    private static final long COMMAND_DEADLINE_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private final AtomicIntegerArray slotBits;   // Float.floatToRawIntBits
+    private final AtomicLongArray slotStamp;     // 게시 시각 (nanoTime)
+    private final AtomicLong dirtyMask = new AtomicLong();                            // bit i = 미전송 값 있음
+    private volatile long latestOrigin = 0;
+
+    // ------------ 키프레임 (델타로 빠진 값이 유실돼도 주기적으로 전체 자세 재전송) ------------
+    private static final long KEYFRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final float[] poseValues;      // 모터별 마지막 게시 값, pendingLock
+    private long poseMask = 0;             // bit i = poseValues[i] 유효, pendingLock
+    private long lastKeyframeNanos = System.nanoTime();          // 스케줄러 스레드 전용
+    private volatile boolean keyframeRequested = false;          // 다음 주기에 바로 키프레임
+
+    // ------------ 서버 통계 (백그라운드 폴링 → 불변 스냅샷) ------------
+    private static final long STATS_POLL_INTERVAL_MS = 1000;
+    private static final long STATS_POLL_TIMEOUT_MS = 500;
+    private volatile ServerStats serverStats = ServerStats.NONE;
+    private final AtomicBoolean statsPollInFlight = new AtomicBoolean(false);
+
+    // ------------ HTTP 비동기 파이프라인 ------------
+    private static final int DEFAULT_HTTP_WINDOW = 4;
+    private final AtomicInteger httpInFlight = new AtomicInteger();
+    /**
+     * set_joints 세션 id (컨트롤러마다 새로)
+     * - 창 안의 요청은 여러 연결로 동시에 나가 서버에 순서가 뒤바뀌어 도착할 수 있음 → 서버는 모터별로 seq 가 지난 값을 버림
+     * - 세션이 바뀌면 서버가 seq 를 처음부터 셈 (재시작한 클라이언트의 낮은 seq 가 버려지지 않게)
+     */
+    private final String httpSession = Long.toHexString(ThreadLocalRandom.current().nextLong() >>> 1);
+    private volatile int httpWindow = DEFAULT_HTTP_WINDOW;
+    private long nextIssueTicket = 1;                            // 스케줄러 스레드 전용
+    private long loopErrors = 0;                                 // 스케줄러 스레드 전용
+    private final Object completionLock = new Object();
+    private final Map<Long, Completion> completions = new HashMap<>(); // completionLock
+    private long nextCompletionTicket = 1;                       // completionLock
+
+    // ------------ 바이너리 스트리밍 (UDP, 선택) ------------
+    /** null 이면 HTTP 경로 사용 */
+    private volatile WebotsStreamTransport stream;
+    private final float[] streamValues;          // 스케줄러 스레드 전용
+
+    // ------------ 상태 피드백 (Webots → URDFJointState) ------------
+    private WebotsStateReceiver stateReceiver;
+    private URDFRobotModel stateRobot;
+    // ------------ 록스텝 (제어 스텝 1회 = 시뮬레이션 N 스텝, 켜져 있으면 일반 전송 중지) ------------
+    private volatile WebotsLockstep lockstep;
+
+    /** 서버가 set_joints 를 모르면 false → 관절별 set_joint 로 폴백 */
+    private volatile boolean batchSupported = true;
+
+    // ------------ 서킷 브레이커 (끊기면 전송 중단, 백그라운드 probe 로 자동 복구) ------------
+    private static final int BREAKER_FAILURE_THRESHOLD = 5;
+    private static final long BREAKER_BASE_BACKOFF_MS = 250;
+    private static final long BREAKER_MAX_BACKOFF_MS = 10_000;
+    private static final long PROBE_TIMEOUT_MS = 500;
+    private final WebotsCircuitBreaker breaker;
+    /** UDP 연속 실패 (브레이커 주기를 넘어 누적) → 넘으면 HTTP 로 폴백 */
+    private static final int MAX_STREAM_FAILURES = 10;
+    private int streamFailures = 0;                              // 스케줄러 스레드 전용
 
     private final Stats stats = new Stats();
+    /** UI/로그 지연 표시 창 */
+    public static final long LATENCY_WINDOW_MS = 10_000;
 
-    // ==================== 최종 정답 JOINT_MAP (2025-11-21 기준) ====================
-    private static final Map<String, JointMapping> JOINT_MAP = new HashMap<>();
-
-    static {
-        // 머리
-        JOINT_MAP.put("head_pan",  new JointMapping("Neck",  18, -1.57f,  1.57f));
-        JOINT_MAP.put("head_tilt", new JointMapping("Head",  19, -0.52f,  0.52f));
-
-        // 오른쪽 팔
-        JOINT_MAP.put("r_sho_pitch", new JointMapping("ShoulderR", 0, -1.57f,  0.52f));
-        JOINT_MAP.put("r_sho_roll",  new JointMapping("ArmUpperR", 2, -0.68f,  2.30f));
-        JOINT_MAP.put("r_el",        new JointMapping("ArmLowerR", 4, -1.57f, -0.10f));
-
-        // 왼쪽 팔
-        JOINT_MAP.put("l_sho_pitch", new JointMapping("ShoulderL", 1, -1.57f,  0.52f));
-        JOINT_MAP.put("l_sho_roll",  new JointMapping("ArmUpperL", 3, -2.25f,  0.77f));
-        JOINT_MAP.put("l_el",        new JointMapping("ArmLowerL", 5, -1.57f, -0.10f));
-
-        // 골반
-        JOINT_MAP.put("r_hip_yaw",   new JointMapping("PelvYR", 6, -1.047f, 1.047f));
-        JOINT_MAP.put("l_hip_yaw",   new JointMapping("PelvYL", 7, -0.69f,  2.50f));
-        JOINT_MAP.put("r_hip_roll",  new JointMapping("PelvR",  8, -1.01f,  1.01f));
-        JOINT_MAP.put("l_hip_roll",  new JointMapping("PelvL",  9, -0.35f,  0.35f));
-
-        // 다리
-        JOINT_MAP.put("r_hip_pitch", new JointMapping("LegUpperR", 10, -2.50f, 0.87f));
-        JOINT_MAP.put("l_hip_pitch", new JointMapping("LegUpperL", 11, -2.50f, 0.87f));
-        JOINT_MAP.put("r_hip_roll",  new JointMapping("LegLowerR", 12, -0.35f, 0.35f));
-        JOINT_MAP.put("l_hip_roll",  new JointMapping("LegLowerL", 13, -0.35f, 0.35f));
-
-        JOINT_MAP.put("r_knee", new JointMapping("KneeR", 14, -0.1f, 2.09f));
-        JOINT_MAP.put("l_knee", new JointMapping("KneeL", 15, -0.1f, 2.09f));
-
-        JOINT_MAP.put("r_ank_pitch", new JointMapping("AnkleR", 14, -0.87f, 0.87f));
-        JOINT_MAP.put("l_ank_pitch", new JointMapping("AnkleL", 15, -1.39f, 1.22f));
-        JOINT_MAP.put("r_ank_roll",  new JointMapping("FootR",  16, -0.87f, 0.87f));
-        JOINT_MAP.put("l_ank_roll",  new JointMapping("FootL",  17, -0.87f, 0.87f));
-
-        // 역호환용 Webots 이름
-        JOINT_MAP.put("ShoulderR", new JointMapping("ShoulderR", 0, -1.57f, 0.52f));
-        JOINT_MAP.put("ShoulderL", new JointMapping("ShoulderL", 1, -1.57f, 0.52f));
-        JOINT_MAP.put("ArmUpperR", new JointMapping("ArmUpperR", 2, -0.68f, 2.30f));
-        JOINT_MAP.put("ArmUpperL", new JointMapping("ArmUpperL", 3, -2.25f, 0.77f));
-        JOINT_MAP.put("ArmLowerR", new JointMapping("ArmLowerR", 4, -1.57f, -0.10f));
-        JOINT_MAP.put("ArmLowerL", new JointMapping("ArmLowerL", 5, -1.57f, -0.10f));
-        JOINT_MAP.put("Neck",      new JointMapping("Neck",      18, -1.57f, 1.57f));
-        JOINT_MAP.put("Head",      new JointMapping("Head",      19, -0.52f, 0.52f));
-    }
+    // ------------ 미러 (같은 자세를 여러 Webots 에 복제, 주 컨트롤러만) ------------
+    private volatile WebotsFanout mirrors;
+
+    private final Options options;
 
     private WebotsController(String ip, int port) {
+        this(ip, port, Options.fromConfig(port), null, "Webots");
+        configureMirrorsFromConfig();
+    }
+
+    private WebotsController(String ip, int port, Options options) {
+        this(ip, port, options, null, "Webots");
+    }
+
+    /**
+     * @param sharedMap 주 컨트롤러와 같은 매핑 (미러용, null 이면 options 로 로드)
+     * @param label     로그/브레이커 이름
+     */
+    private WebotsController(String ip, int port, Options options, WebotsJointMap sharedMap, String label) {
+        this.options = options;
         this.robotIp = ip;
         this.robotPort = port;
         this.webotsUrl = String.format("http://%s:%d", ip, port);
@@ -102,12 +159,36 @@ public class WebotsController {
             t.setDaemon(true);
             return t;
         });
-
-        this.commandQueue = new LinkedBlockingQueue<>();
-        this.lastSent = new ConcurrentHashMap<>();
-
-        scheduler.scheduleAtFixedRate(this::processQueue, 0, 20, TimeUnit.MILLISECONDS);
+        this.breaker = new WebotsCircuitBreaker(label, BREAKER_FAILURE_THRESHOLD,
+                BREAKER_BASE_BACKOFF_MS, BREAKER_MAX_BACKOFF_MS, scheduler, this::probeServer,
+                this::onConnectionRestored);
+
+        WebotsJointMap map = sharedMap != null ? sharedMap
+                : WebotsJointMap.loadOrDefault(options.jointMapDir(), options.jointMapName());
+        this.jointMap = map;
+        this.motorCount = map.motorCount();
+        this.pendingValues = new float[motorCount];
+        this.lastSentValues = new float[motorCount];
+        Arrays.fill(lastSentValues, Float.NaN);
+        this.poseValues = new float[motorCount];
+        this.slotBits = new AtomicIntegerArray(motorCount);
+        this.slotStamp = new AtomicLongArray(motorCount);
+        this.streamValues = new float[motorCount];
+
+        // 스트리밍이면 stream_hz 주기, HTTP 면 20ms
+        long periodMicros = 20_000;
+        httpWindow = options.httpWindow();
+        if (options.streamTransport()) {
+            openStream(ip, options.streamPort());
+            periodMicros = 1_000_000L / options.streamHz();
+        }
+        scheduler.scheduleAtFixedRate(this::processQueue, 0, periodMicros, TimeUnit.MICROSECONDS);
+        scheduler.scheduleWithFixedDelay(this::pollServerStats, 0, STATS_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
         testConnection();
+        if (options.lockstep()) {
+            // 동기 HTTP 요청이므로 executor 에서 (생성자 블로킹 방지)
+            executor.submit(this::startLockstepFromOptions);
+        }
 
         LOGGER.info("✅ WebotsController initialized: {}", webotsUrl);
     }
@@ -130,6 +211,34 @@ public class WebotsController {
         return instance;
     }
 
+    /**
+     * 싱글톤/Config 와 무관한 독립 인스턴스 (목 서버 벤치마크 등 게임 밖 용도)
+     * - 사용 후 shutdown() 필요
+     */
+    public static WebotsController create(String ip, int port, Options options) {
+        return new WebotsController(ip, port, options);
+    }
+
+    /** WebotsFanout 엔드포인트: 변환된 값을 publishEncoded 로만 받음 */
+    static WebotsController createMirror(String ip, int port, Options options, WebotsJointMap sharedMap) {
+        return new WebotsController(ip, port, options, sharedMap, "Webots mirror " + ip + ":" + port);
+    }
+
+    /** 미러 목록 (처음 호출 시 생성) */
+    public synchronized WebotsFanout mirrors() {
+        if (mirrors == null) mirrors = new WebotsFanout(jointMap, options);
+        return mirrors;
+    }
+
+    private void configureMirrorsFromConfig() {
+        try {
+            String spec = WebotsConfigScreen.Config.getInstance().getMirrors();
+            if (!spec.isEmpty()) mirrors().setEndpoints(spec);
+        } catch (Exception | LinkageError e) {
+            LOGGER.warn("Failed to read Webots mirrors from config: {}", e.toString());
+        }
+    }
+
     /**
      * ✅ 개선: Config 저장 포함
      */
@@ -170,11 +279,28 @@ public class WebotsController {
         this.robotIp = ip;
         this.robotPort = port;
         this.webotsUrl = String.format("http://%s:%d", ip, port);
-        this.failureCount = 0;
-        this.connected = false;
 
-        commandQueue.clear();
-        lastSent.clear();
+        dirtyMask.set(0);
+        synchronized (pendingLock) {
+            pendingMask = 0;
+            frameOpen = false;
+            Arrays.fill(lastSentValues, Float.NaN);
+            poseMask = 0;
+        }
+        batchSupported = true;
+
+        if (stream != null) {
+            closeStream();
+            openStream(ip, options.streamPort());
+        }
+        stopLockstep();
+        synchronized (this) {
+            if (stateReceiver != null) {
+                URDFRobotModel robot = stateRobot;
+                unsubscribeState();
+                subscribeState(robot);
+            }
+        }
 
         testConnection();
         
@@ -187,154 +313,681 @@ public class WebotsController {
         }
     }
 
+    /** 연결 확인 = 브레이커를 처음부터 (OPEN → 즉시 probe → HALF_OPEN → 첫 전송 성공 시 CLOSED) */
     private void testConnection() {
-        executor.submit(() -> {
-            try {
-                String url = webotsUrl + "/?command=get_stats";
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .timeout(Duration.ofMillis(500))
-                        .GET()
-                        .build();
-
-                HttpResponse<String> response = httpClient.send(request,
-                        HttpResponse.BodyHandlers.ofString());
-
-                if (response.statusCode() == 200) {
-                    connected = true;
-                    failureCount = 0;
-                    LOGGER.info("✅ Connected to Webots: {}", webotsUrl);
-                } else {
-                    LOGGER.warn("⚠️  Webots returned status {}", response.statusCode());
-                }
+        breaker.restart();
+    }
 
-            } catch (Exception e) {
-                connected = false;
-                LOGGER.error("❌ Failed to connect to Webots: {}", e.getMessage());
-            }
-        });
+    /** 브레이커 probe: get_stats 에 200 이면 true (비동기, 실패는 false) */
+    private CompletableFuture<Boolean> probeServer() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(webotsUrl + "/?command=get_stats"))
+                    .timeout(Duration.ofMillis(PROBE_TIMEOUT_MS))
+                    .GET()
+                    .build();
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> error == null && response.statusCode() == 200);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(false);
+        }
     }
 
+    /**
+     * 관절 값 갱신 (현재 프레임에 누적)
+     * - beginFrame/flushFrame 사이에서 호출하면 한 번의 요청으로 묶여 전송
+     * - 프레임 밖에서 호출하면 다음 스케줄러 주기에 자동 flush
+     */
     public void setJoint(String jointName, float value) {
-        JointMapping mapping = JOINT_MAP.get(jointName);
-        if (mapping == null) {
+        int entry = jointMap.entryOf(jointName);
+        if (entry < 0) {
             if (stats.unknownJointWarnings.computeIfAbsent(jointName, k -> 0) < 3) {
                 LOGGER.warn("Unknown joint: {} (warning {} of 3)", jointName,
                            stats.unknownJointWarnings.merge(jointName, 1, Integer::sum));
             }
             return;
         }
-
-        // URDF → Webots 변환 (부호 반전 + 범위 매핑)
-        float webotsValue = convertUrdfToWebots(jointName, value);
-
-        Float last = lastSent.get(jointName);
-        if (last != null && Math.abs(webotsValue - last) < DELTA_THRESHOLD) {
-            stats.deltaSkipped++;
-            return;
+        synchronized (pendingLock) {
+            stageLocked(entry, value);
         }
+    }
 
-        float clamped = clamp(webotsValue, mapping.min, mapping.max);
-        if (Math.abs(clamped - value) > 0.001f) {
-            stats.rangeClamped++;
+    /**
+     * URDF 관절 배열을 한 번에 반영 (이름 조회/분기 없이 컴파일된 배열로 1패스)
+     * @param binding    getJointMap().bind(관절 이름 목록) 결과 (다른 매핑이면 무시)
+     * @param urdfValues binding 과 같은 순서의 URDF 관절 값
+     */
+    public void setJointPositions(WebotsJointMap.Binding binding, float[] urdfValues) {
+        if (binding.map() != jointMap) return;
+        int[] entries = binding.entries();
+        int n = Math.min(entries.length, urdfValues.length);
+        synchronized (pendingLock) {
+            for (int i = 0; i < n; i++) {
+                if (entries[i] >= 0) stageLocked(entries[i], urdfValues[i]);
+            }
         }
+    }
 
-        if (commandQueue.offer(new Command(mapping.index, clamped))) {
-            lastSent.put(jointName, clamped);
-            stats.queued++;
-        } else {
-            stats.queueFull++;
+    /** URDF → Webots 변환 (scale/offset + 범위 클램프) 후 pending 에 누적 (델타 판정은 게시 때 엔드포인트별로) */
+    private void stageLocked(int entry, float urdfValue) {
+        if (Float.isNaN(urdfValue)) return;
+        WebotsJointMap m = jointMap;
+        float raw = m.scale[entry] * urdfValue + m.offset[entry];
+        float value = raw < m.min[entry] ? m.min[entry] : Math.min(raw, m.max[entry]);
+        if (value != raw) {
+            stats.rangeClamped.increment();
         }
+
+        int motor = m.motor[entry];
+        pendingValues[motor] = value;
+        pendingMask |= 1L << motor;
     }
 
     public void setJoints(Map<String, Float> joints) {
+        beginFrame();
         joints.forEach(this::setJoint);
+        flushFrame();
     }
 
-    private void processQueue() {
-        Command cmd = commandQueue.poll();
-        if (cmd == null) return;
+    /** 프레임 시작: flushFrame 전까지 자동 flush 보류 */
+    public void beginFrame() {
+        synchronized (pendingLock) {
+            frameOpen = true;
+        }
+    }
+
+    public void flushFrame() {
+        flushFrame(0L);
+    }
+
+    /**
+     * 누적된 관절 값을 메일박스에 게시 (아직 안 보낸 이전 값은 덮어씀)
+     * @param originNanos 지연 추적 기준점 (VMC 패킷 수신 시각, 없으면 0)
+     */
+    public void flushFrame(long originNanos) {
+        synchronized (pendingLock) {
+            frameOpen = false;
+            if (pendingMask == 0) return;
+            publishPendingLocked(originNanos);
+        }
+    }
+
+    private void publishPendingLocked(long originNanos) {
+        // 변환된 값 그대로 미러에 (변환은 여기서 1회, 델타 판정은 각 엔드포인트가 자기 기준으로)
+        WebotsFanout f = mirrors;
+        if (f != null) f.publish(pendingMask, pendingValues, originNanos);
+        publishChangedLocked(pendingMask, pendingValues, originNanos);
+        pendingMask = 0;
+    }
+
+    /** WebotsFanout 에서 호출 (주 컨트롤러의 pendingLock 안, 엔드포인트당 게시자 1명) */
+    void publishEncoded(long mask, float[] motorValues, long originNanos) {
+        synchronized (pendingLock) {
+            publishChangedLocked(mask, motorValues, originNanos);
+        }
+    }
+
+    /**
+     * 델타 판정 후 바뀐 모터만 메일박스에 게시 (pendingLock 안)
+     * - 기준은 이 컨트롤러의 lastSentValues → 전송 실패로 잊은 모터는 엔드포인트마다 따로 다시 나감
+     */
+    private void publishChangedLocked(long mask, float[] motorValues, long originNanos) {
+        long changed = 0;
+        for (long m = mask; m != 0; m &= m - 1) {
+            int i = Long.numberOfTrailingZeros(m);
+            float value = motorValues[i];
+            if (Math.abs(value - lastSentValues[i]) < DELTA_THRESHOLD) {   // 기준 NaN 이면 false
+                stats.deltaSkipped.increment();
+                continue;
+            }
+            lastSentValues[i] = value;
+            changed |= 1L << i;
+        }
+        if (changed == 0) return;
+        stats.queued.add(Long.bitCount(changed));
+        publishToMailbox(changed, motorValues, originNanos);
+    }
 
-        executor.submit(() -> sendToWebots(cmd.index, cmd.value));
+    /** pendingLock 안에서 호출 */
+    private void publishToMailbox(long mask, float[] motorValues, long originNanos) {
+        long now = System.nanoTime();
+        for (long m = mask; m != 0; m &= m - 1) {
+            int i = Long.numberOfTrailingZeros(m);
+            slotBits.set(i, Float.floatToRawIntBits(motorValues[i]));
+            slotStamp.set(i, now);
+            poseValues[i] = motorValues[i];
+        }
+        poseMask |= mask;
+        latestOrigin = originNanos;
+        long prev = dirtyMask.getAndAccumulate(mask, (a, b) -> a | b);
+        stats.overwritten.add(Long.bitCount(prev & mask));
+        stats.framesPublished.increment();
     }
 
-    private void sendToWebots(int index, float value) {
-        if (!connected && failureCount > MAX_FAILURES) {
+    /** scheduleAtFixedRate 는 예외가 한 번만 새도 이후 실행을 영구히 취소 → 여기서 전부 잡음 */
+    private void processQueue() {
+        try {
+            sendPending();
+        } catch (RuntimeException e) {
+            long n = ++loopErrors;
+            if (n == 1 || n % 1000 == 0) LOGGER.error("Webots send loop error ({}x)", n, e);
+        }
+    }
+
+    private void sendPending() {
+        // 프레임 API 를 쓰지 않는 호출자(T-Pose 테스트 등) 대비 자동 flush
+        synchronized (pendingLock) {
+            if (!frameOpen && pendingMask != 0) publishPendingLocked(0L);
+        }
+        // 록스텝 중에는 행동이 step 요청으로만 나감 (메일박스 값은 기한 지나면 버려짐)
+        if (lockstep != null) return;
+        // 브레이커 OPEN: 아무것도 하지 않음 (값은 메일박스에 남았다가 기한 지나면 버려짐)
+        if (breaker.isOpen()) return;
+        publishKeyframeIfDue();
+        if (dirtyMask.get() == 0) return;
+
+        // 스트리밍: 스케줄러 스레드에서 바로 전송 (UDP 는 블로킹 없음)
+        if (stream != null) {
+            PoseFrame frame = drainMailbox();
+            if (frame == null) return;
+            if (!breaker.allowRequest()) {
+                republish(frame); // HALF_OPEN 시험 전송 중
+                return;
+            }
+            sendStream(frame);
             return;
         }
 
+        // HTTP: 비동기 파이프라인. 창이 가득 차면 이번 주기는 건너뜀 (값은 슬롯에 최신으로 남음)
+        // 관절별 폴백은 seq 가 없어 순서를 서버가 못 맞춤 → 프레임 1개씩
+        int window = batchSupported ? httpWindow : 1;
+        if (httpInFlight.get() >= window) {
+            stats.windowFull.increment();
+            return;
+        }
+        PoseFrame frame = drainMailbox();
+        if (frame == null) return;
+        if (!breaker.allowRequest()) {
+            republish(frame); // HALF_OPEN 시험 전송 중
+            return;
+        }
+
+        // 티켓/창 자리는 요청이 실제로 나간 뒤에 잡음 (동기 예외로 순서 대기열이 막히지 않게)
+        frame.issueNanos = System.nanoTime();
+        boolean batched = batchSupported;
+        CompletableFuture<Integer> future;
         try {
-            String url = String.format("%s/?command=set_joint&index=%d&value=%.4f",
-                                      webotsUrl, index, value);
+            future = sendFrameAsync(frame, batched);
+        } catch (RuntimeException e) {
+            onSendFailure(e);   // 잘못된 주소(URI) 등 → 브레이커가 열리고 probe 백오프
+            forget(frame.mask());
+            return;
+        }
+        int inFlightNow = httpInFlight.incrementAndGet();
+        stats.maxInFlight.accumulate(inFlightNow);
+        long ticket = nextIssueTicket++;
+        future.whenComplete((status, error) -> onHttpComplete(ticket, frame, batched, status, error));
+    }
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofMillis(100))
-                    .GET()
-                    .build();
+    /**
+     * 키프레임: 주기마다 마지막 게시 자세 전체를 메일박스에 다시 게시 (이미 대기 중인 모터는 제외)
+     * - 델타 판정으로 한 번만 나간 값이 UDP 손실/HTTP 실패로 유실돼도 다음 키프레임에 복구
+     */
+    private void publishKeyframeIfDue() {
+        long now = System.nanoTime();
+        if (!keyframeRequested && now - lastKeyframeNanos < KEYFRAME_INTERVAL_NANOS) return;
+        keyframeRequested = false;
+        lastKeyframeNanos = now;
+        synchronized (pendingLock) {
+            long mask = poseMask & ~dirtyMask.get();
+            if (mask == 0) return;
+            publishToMailbox(mask, poseValues, 0L);
+        }
+        stats.keyframes.increment();
+    }
 
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
+    /**
+     * 전송 못 한 모터의 델타 기준을 지움 (기한 초과/전송 실패)
+     * - 지우지 않으면 자세가 그대로일 때 델타 판정에 걸려 다시 보내지 않음
+     */
+    private void forget(long mask) {
+        if (mask == 0) return;
+        synchronized (pendingLock) {
+            for (long m = mask; m != 0; m &= m - 1) {
+                lastSentValues[Long.numberOfTrailingZeros(m)] = Float.NaN;
+            }
+        }
+    }
 
-            if (response.statusCode() == 200) {
-                stats.sent++;
-                failureCount = 0;
-                if (!connected) {
-                    connected = true;
-                    LOGGER.info("✅ Reconnected to Webots");
-                }
-            } else {
-                stats.failed++;
-                LOGGER.warn("⚠️  Webots returned status {}", response.statusCode());
+    /** 메일박스의 미전송 값을 하나의 프레임으로 수거 (기한 지난 값은 버림) */
+    private PoseFrame drainMailbox() {
+        long mask = dirtyMask.getAndSet(0);
+        if (mask == 0) return null;
+        long origin = latestOrigin;
+        long now = System.nanoTime();
+
+        int n = Long.bitCount(mask);
+        int[] indices = new int[n];
+        float[] values = new float[n];
+        int k = 0;
+        long oldest = now;
+        long dropped = 0;
+        for (long m = mask; m != 0; m &= m - 1) {
+            int i = Long.numberOfTrailingZeros(m);
+            long stamp = slotStamp.get(i);
+            if (now - stamp > COMMAND_DEADLINE_NANOS) {
+                stats.deadlineDropped.increment();
+                dropped |= 1L << i;
+                continue;
             }
+            if (stamp < oldest) oldest = stamp;
+            indices[k] = i;
+            values[k] = Float.intBitsToFloat(slotBits.get(i));
+            k++;
+        }
+        forget(dropped);
+        if (k == 0) return null;
+        stats.queueWait.record(now - oldest);
+        if (k < n) {
+            indices = Arrays.copyOf(indices, k);
+            values = Arrays.copyOf(values, k);
+        }
+        return new PoseFrame(++frameSeq, indices, values, origin, oldest);
+    }
 
-        } catch (Exception e) {
-            stats.failed++;
-            failureCount++;
-
-            if (failureCount == MAX_FAILURES) {
-                connected = false;
-                LOGGER.error("❌ Connection lost to Webots after {} failures", MAX_FAILURES);
-            } else if (failureCount % 50 == 0) {
-                LOGGER.warn("⚠️  Failed to send to Webots ({} failures): {}",
-                           failureCount, e.getMessage());
+    /**
+     * 측정 관절 상태 구독 시작 (브리지 UDP 포트 = stream_port)
+     * - 수신값은 robot.measuredState() 에 게시됨
+     */
+    public synchronized void subscribeState(URDFRobotModel robot) {
+        if (robot == null) return;
+        if (stateReceiver == null) {
+            try {
+                stateReceiver = new WebotsStateReceiver(robotIp, options.streamPort(), jointMap);
+            } catch (Exception e) {
+                LOGGER.warn("⚠️  Failed to open Webots state subscription: {}", e.getMessage());
+                return;
             }
         }
+        stateReceiver.bind(robot);
+        stateRobot = robot;
     }
 
-    public String getStatsJson() {
+    /** 핫 리로드로 로봇 모델이 바뀜: 측정 상태 구독 중이던 모델이면 새 모델로 다시 바인딩 */
+    public static void onRobotReplaced(URDFRobotModel oldRobot, URDFRobotModel newRobot) {
+        WebotsController c = instance;
+        if (c == null) return;
+        synchronized (c) {
+            if (c.stateReceiver == null || c.stateRobot != oldRobot) return;
+            c.stateReceiver.bind(newRobot);
+            c.stateRobot = newRobot;
+        }
+    }
+
+    public synchronized void unsubscribeState() {
+        if (stateReceiver != null) {
+            stateReceiver.close();
+            stateReceiver = null;
+        }
+        stateRobot = null;
+    }
+
+    public synchronized WebotsStateReceiver getStateReceiver() {
+        return stateReceiver;
+    }
+
+    /**
+     * 록스텝 시작 (이미 켜져 있으면 닫고 다시 시작)
+     * @param stepsPerAction 행동 1개당 Webots 스텝 수
+     * @param depth          미리 보낼 수 있는 step 요청 수 (1 = 엄격한 왕복)
+     * @throws IOException 브리지가 록스텝을 지원하지 않음 / 연결 실패
+     */
+    public synchronized WebotsLockstep startLockstep(int stepsPerAction, int depth)
+            throws IOException, InterruptedException {
+        // 이전 록스텝의 lockstep=off 가 새 lockstep=on 보다 늦게 도착하면 안 되므로 여기서는 동기로 닫음
+        WebotsLockstep prev = lockstep;
+        if (prev != null) prev.close();
+        WebotsLockstep ls = new WebotsLockstep(this, httpClient, webotsUrl, jointMap, stepsPerAction, depth);
+        ls.start();
+        lockstep = ls;
+        return ls;
+    }
+
+    private void startLockstepFromOptions() {
         try {
-            String url = webotsUrl + "/?command=get_stats";
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofMillis(200))
-                    .GET()
-                    .build();
+            startLockstep(options.lockstepSteps(), options.lockstepDepth());
+        } catch (Exception e) {
+            LOGGER.warn("⚠️  Failed to start Webots lockstep, using free-running mode: {}", e.getMessage());
+        }
+    }
+
+    /** 록스텝 종료 (브리지 요청은 executor 에서, 호출 스레드는 블로킹 없음) */
+    public void stopLockstep() {
+        WebotsLockstep ls = lockstep;
+        if (ls != null) ls.closeAsync(executor);
+    }
 
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
+    /** WebotsLockstep.close() 에서 호출 */
+    synchronized void onLockstepClosed(WebotsLockstep ls) {
+        if (lockstep != ls) return;
+        lockstep = null;
+        // 록스텝 동안 Webots 목표는 step 요청으로 바뀜 → 델타 기준을 지우고 전체 자세부터 다시
+        synchronized (pendingLock) {
+            Arrays.fill(lastSentValues, Float.NaN);
+        }
+    }
 
-            return response.body();
+    /** 켜져 있으면 현재 록스텝, 아니면 null */
+    public WebotsLockstep getLockstep() {
+        return lockstep;
+    }
 
+    private void openStream(String ip, int streamPort) {
+        try {
+            stream = new WebotsStreamTransport(ip, streamPort, motorCount);
+            LOGGER.info("✅ Webots binary stream: udp://{}:{}", ip, streamPort);
         } catch (Exception e) {
-            return String.format("{\"error\": \"%s\"}", e.getMessage());
+            stream = null;
+            LOGGER.warn("⚠️  Failed to open Webots stream (udp {}:{}), using HTTP: {}", ip, streamPort, e.getMessage());
         }
     }
 
+    private void closeStream() {
+        WebotsStreamTransport s = stream;
+        stream = null;
+        if (s == null) return;
+        try {
+            s.close();
+        } catch (Exception ignored) {}
+    }
+
+    /** 고정 길이 바이너리 프레임 1개 (미전송 모터 외에는 NaN = 변경 없음) */
+    private void sendStream(PoseFrame frame) {
+        WebotsStreamTransport s = stream;
+        if (s == null) return;
+        Arrays.fill(streamValues, Float.NaN);
+        for (int k = 0; k < frame.indices.length; k++) {
+            streamValues[frame.indices[k]] = frame.values[k];
+        }
+        try {
+            long t0 = System.nanoTime();
+            s.send(frame.seq, t0, streamValues);
+            long t1 = System.nanoTime();
+            stats.framesSent.increment();
+            stats.sent.add(frame.indices.length);
+            stats.sendLatency.record(t1 - t0);            // UDP: 소켓 write 비용 (응답 없음)
+            stats.endToEnd.record(t1 - frame.publishNanos);
+            PipelineTrace.record(PipelineTrace.Stage.WEBOTS_SEND, frame.originNanos);
+            streamFailures = 0;
+            onSendSuccess();
+        } catch (Exception e) {
+            onSendFailure(e);
+            forget(frame.mask());
+            // 스트림이 계속 실패하면 HTTP 로 폴백
+            if (++streamFailures >= MAX_STREAM_FAILURES) {
+                LOGGER.warn("⚠️  Webots stream failing, falling back to HTTP");
+                closeStream();
+                streamFailures = 0;
+            }
+        }
+    }
+
+    /**
+     * 전체 자세 1회 비동기 전송: /?command=set_joints&sid=S&seq=N&idx=0,1,..&val=0.1000,..
+     * - 서버는 모터별로 마지막 적용 seq 이하인 값을 버림 (늦게 도착한 옛 프레임이 새 값을 덮지 않게)
+     * - 서버가 set_joints 를 모르면 관절별 set_joint 요청을 하나씩 차례로 보냄 (앞 요청 응답 후 다음, 실패하면 중단)
+     * @return HTTP 상태 코드 (관절별 전송이면 첫 번째 실패 코드, 모두 성공이면 200)
+     */
+    private CompletableFuture<Integer> sendFrameAsync(PoseFrame frame, boolean batched) {
+        if (!batched) {
+            CompletableFuture<Integer> chain = CompletableFuture.completedFuture(200);
+            for (int k = 0; k < frame.indices.length; k++) {
+                String url = String.format(Locale.ROOT, "%s/?command=set_joint&index=%d&value=%.4f",
+                                          webotsUrl, frame.indices[k], frame.values[k]);
+                chain = chain.thenCompose(status -> status != 200
+                        ? CompletableFuture.completedFuture(status)
+                        : getAsync(url));
+            }
+            return chain;
+        }
+
+        StringBuilder url = new StringBuilder(64 + frame.indices.length * 12);
+        url.append(webotsUrl).append("/?command=set_joints&sid=").append(httpSession)
+                .append("&seq=").append(frame.seq).append("&idx=");
+        for (int k = 0; k < frame.indices.length; k++) {
+            if (k > 0) url.append(',');
+            url.append(frame.indices[k]);
+        }
+        url.append("&val=");
+        for (int k = 0; k < frame.values.length; k++) {
+            if (k > 0) url.append(',');
+            url.append(String.format(Locale.ROOT, "%.4f", frame.values[k]));
+        }
+        return getAsync(url.toString());
+    }
+
+    private CompletableFuture<Integer> getAsync(String url) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofMillis(100))
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    /** 응답 도착 (임의 순서, HttpClient 스레드) → 발행 순서대로 정렬해 처리 */
+    private void onHttpComplete(long ticket, PoseFrame frame, boolean batched, Integer status, Throwable error) {
+        long ackNanos = System.nanoTime();
+        httpInFlight.decrementAndGet();
+        synchronized (completionLock) {
+            if (ticket != nextCompletionTicket) stats.reordered.increment();
+            completions.put(ticket, new Completion(frame, batched, status != null ? status : -1, error, ackNanos));
+            Completion c;
+            while ((c = completions.remove(nextCompletionTicket)) != null) {
+                nextCompletionTicket++;
+                handleCompletion(c);
+            }
+        }
+    }
+
+    private void handleCompletion(Completion c) {
+        PoseFrame frame = c.frame;
+        if (c.error != null) {
+            onSendFailure(c.error instanceof CompletionException && c.error.getCause() != null
+                    ? c.error.getCause() : c.error);
+            forget(frame.mask());
+            return;
+        }
+        if (c.status == 200) {
+            stats.framesSent.increment();
+            stats.sent.add(frame.indices.length);
+            stats.sendLatency.record(c.ackNanos - frame.issueNanos);   // HTTP 왕복
+            stats.endToEnd.record(c.ackNanos - frame.publishNanos);
+            PipelineTrace.record(PipelineTrace.Stage.WEBOTS_SEND, frame.originNanos);
+            onSendSuccess();
+        } else if ((c.status == 400 || c.status == 404) && c.batched) {
+            if (batchSupported) {
+                batchSupported = false;
+                LOGGER.warn("⚠️  Webots server does not support set_joints (status {}), falling back to set_joint", c.status);
+            }
+            breaker.onSuccess(); // 서버는 응답함
+            republish(frame);
+        } else {
+            stats.failed.increment();
+            breaker.onFailure("HTTP " + c.status);
+            forget(frame.mask());
+            LOGGER.warn("⚠️  Webots returned status {}", c.status);
+        }
+    }
+
+    /** 전송 못 한 프레임을 메일박스에 되돌림 (그 사이 더 새 값이 있으면 그대로 둠) */
+    private void republish(PoseFrame frame) {
+        long now = System.nanoTime();
+        long mask = 0;
+        long dirty = dirtyMask.get();
+        for (int k = 0; k < frame.indices.length; k++) {
+            int i = frame.indices[k];
+            if ((dirty & (1L << i)) != 0) continue;
+            slotBits.set(i, Float.floatToRawIntBits(frame.values[k]));
+            slotStamp.set(i, now);
+            mask |= 1L << i;
+        }
+        dirtyMask.getAndAccumulate(mask, (a, b) -> a | b);
+    }
+
+    /**
+     * 브레이커 HALF_OPEN → CLOSED (끊긴 동안 Webots 가 재시작됐을 수 있음)
+     * - 델타 기준을 지우고 다음 주기에 전체 자세를 키프레임으로 재전송
+     */
+    private void onConnectionRestored() {
+        synchronized (pendingLock) {
+            Arrays.fill(lastSentValues, Float.NaN);
+        }
+        keyframeRequested = true;
+    }
+
+    private void onSendSuccess() {
+        breaker.onSuccess();
+    }
+
+    private void onSendFailure(Throwable e) {
+        stats.failed.increment();
+        breaker.onFailure(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+
+    /** 백그라운드 get_stats 폴링 (스케줄러에서 호출, 블로킹 없음) */
+    private void pollServerStats() {
+        if (breaker.isOpen()) return; // 끊긴 동안은 브레이커 probe 만
+        if (!statsPollInFlight.compareAndSet(false, true)) return;
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(webotsUrl + "/?command=get_stats"))
+                    .timeout(Duration.ofMillis(STATS_POLL_TIMEOUT_MS))
+                    .GET()
+                    .build();
+        } catch (Exception e) {
+            statsPollInFlight.set(false);
+            serverStats = new ServerStats(false, serverStats.json(), e.getMessage(), System.nanoTime());
+            return;
+        }
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            statsPollInFlight.set(false);
+            long now = System.nanoTime();
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                serverStats = new ServerStats(false, serverStats.json(), String.valueOf(cause.getMessage()), now);
+            } else if (response.statusCode() == 200) {
+                serverStats = new ServerStats(true, response.body(), null, now);
+            } else {
+                serverStats = new ServerStats(false, response.body(), "HTTP " + response.statusCode(), now);
+            }
+        });
+    }
+
+    /** 마지막 get_stats 폴링 결과 (즉시 반환) */
+    public ServerStats getServerStats() {
+        return serverStats;
+    }
+
+    /** 캐시된 서버 통계 JSON (즉시 반환, 실패 시 {"error": ...}) */
+    public String getStatsJson() {
+        ServerStats s = serverStats;
+        return s.ok() ? s.json() : String.format("{\"error\": \"%s\"}", s.error());
+    }
+
     public void printStats() {
         LOGGER.info("=== Webots Controller Stats ===");
-        LOGGER.info("  Target: {}:{} {}", robotIp, robotPort, connected ? "✅" : "❌");
-        LOGGER.info("  Queued: {} | Sent: {} | Failed: {}", stats.queued, stats.sent, stats.failed);
-        LOGGER.info("  Delta Skipped: {} | Range Clamped: {} | Queue Full: {}",
-                   stats.deltaSkipped, stats.rangeClamped, stats.queueFull);
-        LOGGER.info("  Queue Size: {} | Failure Count: {}", commandQueue.size(), failureCount);
+        LOGGER.info("  Target: {}:{} {}", robotIp, robotPort, isConnected() ? "✅" : "❌");
+        LOGGER.info("  Queued: {} | Sent: {} | Failed: {}", stats.queued.sum(), stats.sent.sum(), stats.failed.sum());
+        LOGGER.info("  Frames Published: {} | Frames Sent: {} | Transport: {}",
+                   stats.framesPublished.sum(), stats.framesSent.sum(), getTransportName());
+        LOGGER.info("  Delta Skipped: {} | Range Clamped: {}", stats.deltaSkipped.sum(), stats.rangeClamped.sum());
+        LOGGER.info("  Overwritten: {} | Deadline Dropped: {} | Keyframes: {}",
+                   stats.overwritten.sum(), stats.deadlineDropped.sum(), stats.keyframes.sum());
+        LOGGER.info("  HTTP In-Flight: {}/{} (max {}) | Window Full: {} | Reordered: {}",
+                   httpInFlight.get(), batchSupported ? httpWindow : 1, stats.maxInFlight.get(), stats.windowFull.sum(), stats.reordered.sum());
+        for (String line : latencySummaryLines(LATENCY_WINDOW_MS)) {
+            LOGGER.info("  {}", line);
+        }
+        LOGGER.info("  Pending Joints: {} | Breaker: {} (opened {}x, probes {}/{} failed)",
+                   Long.bitCount(dirtyMask.get()), breaker.state(), breaker.openedCount(),
+                   breaker.probeFailureCount(), breaker.probeCount());
+        WebotsStateReceiver receiver = getStateReceiver();
+        if (receiver != null) {
+            LOGGER.info("  State Feedback: {} frames | {} bad", receiver.framesReceived(), receiver.badFrames());
+        }
+
+        ServerStats server = serverStats;
+        LOGGER.info("  Server Stats ({}ms ago): {}", server.ageMillis(), getStatsJson());
+
+        WebotsFanout f = mirrors;
+        if (f != null && f.size() > 0) {
+            LOGGER.info("  Mirrors: {}/{} connected | {} frames fanned out", f.connectedCount(), f.size(), f.framesFannedOut());
+            for (WebotsFanout.EndpointStatus e : f.status(LATENCY_WINDOW_MS)) {
+                LOGGER.info("    {} {} [{}] frames {}/{} sent | failed {} | e2e p99 {}",
+                        e.address(), e.connected() ? "✅" : "❌ (retry in " + e.millisUntilRetry() + "ms)",
+                        e.transport(), e.stats().framesSent(), e.stats().framesPublished(), e.stats().failed(),
+                        e.stats().endToEnd().count() == 0 ? "-"
+                                : LatencyHistogram.formatMicros(e.stats().endToEnd().percentileMicros(99)));
+            }
+        }
+    }
+
+    /** 브리지 지연 요약 (최근 windowMillis, 기록 없는 항목은 생략) */
+    public List<String> latencySummaryLines(long windowMillis) {
+        List<String> lines = new ArrayList<>();
+        addLatencyLine(lines, "queue", stats.queueWait.snapshot(windowMillis));
+        addLatencyLine(lines, "send", stats.sendLatency.snapshot(windowMillis));
+        addLatencyLine(lines, "e2e", stats.endToEnd.snapshot(windowMillis));
+        return lines;
+    }
+
+    private static void addLatencyLine(List<String> lines, String label, LatencyHistogram.Snapshot snap) {
+        if (snap.count() == 0) return;
+        lines.add(String.format("%-6s p50 %s  p99 %s  max %s  (n=%d)", label,
+                LatencyHistogram.formatMicros(snap.percentileMicros(50)),
+                LatencyHistogram.formatMicros(snap.percentileMicros(99)),
+                LatencyHistogram.formatMicros(snap.maxMicros()),
+                snap.count()));
+    }
+
+    /** 통계 스냅샷 (벤치마크/외부 보고용, 지연은 최근 windowMillis) */
+    public StatsSnapshot statsSnapshot(long windowMillis) {
+        return new StatsSnapshot(stats.framesPublished.sum(), stats.framesSent.sum(), stats.sent.sum(),
+                stats.failed.sum(), stats.deadlineDropped.sum(), stats.overwritten.sum(),
+                stats.queueWait.snapshot(windowMillis), stats.sendLatency.snapshot(windowMillis),
+                stats.endToEnd.snapshot(windowMillis));
+    }
+
+    /** 전송 카운터 요약 1줄 (UI 용) */
+    public String counterSummary() {
+        return String.format("frames %d/%d sent | failed %d | dropped %d | overwritten %d",
+                stats.framesSent.sum(), stats.framesPublished.sum(), stats.failed.sum(),
+                stats.deadlineDropped.sum(), stats.overwritten.sum());
+    }
+
+    public void resetLatencyStats() {
+        stats.queueWait.reset();
+        stats.sendLatency.reset();
+        stats.endToEnd.reset();
+    }
 
-        String serverStats = getStatsJson();
-        LOGGER.info("  Server Stats: {}", serverStats);
+    public String getTransportName() {
+        WebotsStreamTransport s = stream;
+        if (s != null) return "udp " + s.target().getPort();
+        return batchSupported ? "http set_joints" : "http set_joint (fallback)";
     }
 
+    /** 브레이커가 OPEN 이 아니면 true (HALF_OPEN 은 시험 전송을 위해 연결로 봄) */
     public boolean isConnected() {
-        return connected;
+        return !breaker.isOpen();
+    }
+
+    /** 끊긴 상태면 다음 자동 재연결 시도까지 남은 시간 [ms], 연결 중이면 0 */
+    public long millisUntilRetry() {
+        return breaker.millisUntilProbe();
     }
 
     public String getRobotAddress() {
@@ -343,7 +996,12 @@ public class WebotsController {
 
     public void shutdown() {
         LOGGER.info("🛑 Shutting down WebotsController...");
+        WebotsFanout f = mirrors;
+        if (f != null) f.shutdown();
         scheduler.shutdown();
+        stopLockstep();
+        closeStream();
+        unsubscribeState();
         executor.shutdown();
         try {
             if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
@@ -357,87 +1015,135 @@ public class WebotsController {
 
     // ========== 내부 클래스 ==========
 
-    private static class Command {
-        final int index;
-        final float value;
-        final long timestamp;
+    public record StatsSnapshot(long framesPublished, long framesSent, long jointsSent, long failed,
+                                long deadlineDropped, long overwritten,
+                                LatencyHistogram.Snapshot queueWait,
+                                LatencyHistogram.Snapshot sendLatency,
+                                LatencyHistogram.Snapshot endToEnd) {}
 
-        Command(int index, float value) {
-            this.index = index;
-            this.value = value;
-            this.timestamp = System.currentTimeMillis();
+    /**
+     * 전송 설정 (생성 시 1회 적용)
+     * - 게임 안에서는 WebotsConfigScreen.Config 에서, 게임 밖(벤치마크)에서는 직접 지정
+     * @param jointMapDir 매핑 파일 폴더 (null 이면 내장 매핑만)
+     */
+    public record Options(boolean streamTransport, int streamPort, int streamHz, int httpWindow,
+                          File jointMapDir, String jointMapName,
+                          boolean lockstep, int lockstepSteps, int lockstepDepth) {
+
+        /** HTTP 전송, stream_port = port + 1, 내장 매핑 */
+        public static Options defaults(int port) {
+            return new Options(false, port + 1, 500, DEFAULT_HTTP_WINDOW,
+                    null, WebotsJointMap.DEFAULT_NAME, false, 1, 2);
         }
-    }
 
-    private static class JointMapping {
-        final String webotsName;
-        final int index;
-        final float min;
-        final float max;
+        public Options withStream(boolean on, int hz) {
+            return new Options(on, streamPort, hz, httpWindow, jointMapDir, jointMapName,
+                    lockstep, lockstepSteps, lockstepDepth);
+        }
 
-        JointMapping(String webotsName, int index, float min, float max) {
-            this.webotsName = webotsName;
-            this.index = index;
-            this.min = min;
-            this.max = max;
+        public Options withHttpWindow(int window) {
+            return new Options(streamTransport, streamPort, streamHz, window, jointMapDir, jointMapName,
+                    lockstep, lockstepSteps, lockstepDepth);
         }
-    }
 
-    private static class Stats {
-        long queued = 0;
-        long sent = 0;
-        long failed = 0;
-        long deltaSkipped = 0;
-        long rangeClamped = 0;
-        long queueFull = 0;
-        final Map<String, Integer> unknownJointWarnings = new ConcurrentHashMap<>();
-    }
+        /** 미러 엔드포인트: 같은 전송 설정, stream_port = port + 1, 록스텝 없음 */
+        Options forMirror(int port) {
+            return new Options(streamTransport, port + 1, streamHz, httpWindow, jointMapDir, jointMapName,
+                    false, lockstepSteps, lockstepDepth);
+        }
 
-    private static float clamp(float value, float min, float max) {
-        return Math.max(min, Math.min(max, value));
+        /** Config 에서 읽기 (Minecraft 밖이거나 실패하면 기본값) */
+        static Options fromConfig(int port) {
+            try {
+                WebotsConfigScreen.Config config = WebotsConfigScreen.Config.getInstance();
+                return new Options(config.isStreamTransport(), config.getStreamPort(), config.getStreamHz(),
+                        config.getHttpWindow(), config.getConfigDir(), config.getJointMapName(),
+                        config.isLockstep(), config.getLockstepSteps(), config.getLockstepDepth());
+            } catch (Exception | LinkageError e) {
+                LOGGER.warn("Failed to read Webots config, using defaults: {}", e.toString());
+                return defaults(port);
+            }
+        }
     }
 
-    // ========== 유틸리티 메서드 ==========
+    /**
+     * get_stats 폴링 스냅샷 (불변)
+     * @param json           서버 응답 본문 (실패 시 마지막 성공 값)
+     * @param error          실패 사유 (성공 시 null)
+     * @param fetchedAtNanos 폴링 완료 시각 (System.nanoTime, 아직 없으면 0)
+     */
+    public record ServerStats(boolean ok, String json, String error, long fetchedAtNanos) {
+        static final ServerStats NONE = new ServerStats(false, "{}", "not polled yet", 0L);
 
-    public static String[] getSupportedJoints() {
-        return JOINT_MAP.keySet().toArray(new String[0]);
+        /** 폴링 후 경과 시간 [ms] (아직 없으면 -1) */
+        public long ageMillis() {
+            return fetchedAtNanos == 0 ? -1 : (System.nanoTime() - fetchedAtNanos) / 1_000_000L;
+        }
     }
 
-    public static JointMapping getJointMapping(String jointName) {
-        return JOINT_MAP.get(jointName);
-    }
+    /** 도착한 HTTP 응답 (발행 순서 정렬 대기) */
+    private record Completion(PoseFrame frame, boolean batched, int status, Throwable error, long ackNanos) {}
+
+    /** 한 번에 전송할 자세 (미전송 모터만) */
+    private static class PoseFrame {
+        final long seq;
+        final int[] indices;
+        final float[] values;
+        final long originNanos;
+        /** 포함된 값 중 가장 오래된 게시 시각 */
+        final long publishNanos;
+        /** HTTP 발행 시각 (스케줄러 스레드에서 설정) */
+        long issueNanos;
+
+        PoseFrame(long seq, int[] indices, float[] values, long originNanos, long publishNanos) {
+            this.seq = seq;
+            this.indices = indices;
+            this.values = values;
+            this.originNanos = originNanos;
+            this.publishNanos = publishNanos;
+        }
 
-    public static Integer getMotorIndex(String jointName) {
-        JointMapping mapping = JOINT_MAP.get(jointName);
-        return mapping != null ? mapping.index : null;
+        long mask() {
+            long mask = 0;
+            for (int i : indices) mask |= 1L << i;
+            return mask;
+        }
     }
 
-    // ====================== URDF → Webots 변환기 (여기가 진짜 정답) ======================
-    private float convertUrdfToWebots(String jointName, float urdfValue) {
-        return switch (jointName) {
-            // 팔꿈치 (가장 큰 문제였던 부분)
-            case "r_el" -> map(urdfValue, 0.0f, 2.7925f, -0.10f, -1.57f);   // 양수 → 음수 반전
-            case "l_el" -> map(urdfValue, -2.7925f, 0.0f, -1.57f, -0.10f); // 음수 → 음수
+    /** 전송 통계 (여러 스레드에서 갱신 → LongAdder, 지연은 rolling 히스토그램) */
+    private static class Stats {
+        final LongAdder queued = new LongAdder();
+        final LongAdder sent = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder deltaSkipped = new LongAdder();
+        final LongAdder rangeClamped = new LongAdder();
+        final LongAdder framesPublished = new LongAdder();
+        final LongAdder framesSent = new LongAdder();
+        final LongAdder overwritten = new LongAdder();      // 전송 전에 새 값으로 덮어쓴 관절 수
+        final LongAdder deadlineDropped = new LongAdder();  // 기한 초과로 버린 관절 수
+        final LongAdder keyframes = new LongAdder();        // 주기적 전체 자세 재게시
+        final LongAdder windowFull = new LongAdder();       // HTTP 창이 가득 차 건너뛴 주기 (백프레셔)
+        final LongAdder reordered = new LongAdder();        // 발행 순서와 다르게 도착한 응답
+        final LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0);
+        final Map<String, Integer> unknownJointWarnings = new ConcurrentHashMap<>();
 
-            // 무릎 (역방향)
-            case "r_knee", "l_knee" -> map(urdfValue, -2.27f, 0.0f, 2.09f, -0.1f);
+        // 1초 slice × 60 → 최근 1분까지 창 조회 가능
+        final RollingLatencyHistogram queueWait = new RollingLatencyHistogram(1000, 60);   // 게시 → 송신 수거
+        final RollingLatencyHistogram sendLatency = new RollingLatencyHistogram(1000, 60); // HTTP 왕복 / UDP write
+        final RollingLatencyHistogram endToEnd = new RollingLatencyHistogram(1000, 60);    // 게시 → 전송 완료
+    }
 
-            // 머리 (Webots가 더 좁음)
-            case "head_pan"  -> clamp(urdfValue, -1.57f, 1.57f);
-            case "head_tilt" -> clamp(urdfValue, -0.52f, 0.52f);
+    // ========== 유틸리티 메서드 ==========
 
-            // 기타 미세 차이
-            case "l_ank_pitch" -> clamp(urdfValue, -1.39f, 1.22f);
-            case "r_hip_yaw"   -> clamp(urdfValue, -1.047f, 1.047f);
-            case "l_hip_yaw"   -> clamp(urdfValue, -0.69f, 2.50f);
+    public WebotsJointMap getJointMap() {
+        return jointMap;
+    }
 
-            default -> urdfValue; // 나머지는 1:1
-        };
+    public String[] getSupportedJoints() {
+        return jointMap.supportedJoints();
     }
 
-    private float map(float v, float fromLow, float fromHigh, float toLow, float toHigh) {
-        if (v <= fromLow) return toLow;
-        if (v >= fromHigh) return toHigh;
-        return toLow + (v - fromLow) * (toHigh - toLow) / (fromHigh - fromLow);
+    public int getMotorIndex(String jointName) {
+        return jointMap.motorOf(jointName);
     }
 }
@@ -0,0 +1,139 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 같은 자세 스트림을 여러 Webots 인스턴스에 복제 (도메인 랜덤화 시드별 시뮬레이터 등)
+ * - URDF → Webots 변환/클램프는 주 컨트롤러에서 프레임당 1회, 결과 모터 값(델타 판정 전)을 엔드포인트에 게시
+ * - 델타 판정은 엔드포인트마다 자기 마지막 전송 값 기준 (한 엔드포인트의 전송 실패가 다른 쪽에 영향 없음)
+ * - 엔드포인트마다 자체 메일박스/스케줄러/HTTP 창/서킷 브레이커/통계
+ *   → 느린 엔드포인트는 자기 메일박스 값만 덮어쓰고 다른 엔드포인트를 막지 않음
+ * - 게시는 원자 쓰기만 (블로킹 없음, 주 컨트롤러의 pendingLock 안에서 호출)
+ */
+public final class WebotsFanout {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final WebotsJointMap jointMap;
+    private final WebotsController.Options baseOptions;
+    private final CopyOnWriteArrayList<WebotsController> endpoints = new CopyOnWriteArrayList<>();
+    private final LongAdder framesFannedOut = new LongAdder();
+
+    /** 엔드포인트 1개 상태 (UI/로그용) */
+    public record EndpointStatus(String address, boolean connected, long millisUntilRetry, String transport,
+                                 WebotsController.StatsSnapshot stats) {}
+
+    WebotsFanout(WebotsJointMap jointMap, WebotsController.Options baseOptions) {
+        this.jointMap = jointMap;
+        this.baseOptions = baseOptions;
+    }
+
+    /** 주 컨트롤러에서 변환 끝난 모터 값 게시 (bit i 인 모터만 유효, 델타 판정 전) */
+    void publish(long mask, float[] motorValues, long originNanos) {
+        if (endpoints.isEmpty()) return;
+        for (WebotsController e : endpoints) {
+            e.publishEncoded(mask, motorValues, originNanos);
+        }
+        framesFannedOut.increment();
+    }
+
+    /**
+     * 엔드포인트 추가 (이미 있으면 기존 것 반환)
+     * - 전송 설정은 주 컨트롤러와 같고 stream_port = port + 1, 록스텝은 주 컨트롤러만
+     */
+    public synchronized WebotsController add(String ip, int port) {
+        WebotsController existing = find(ip + ":" + port);
+        if (existing != null) return existing;
+        WebotsController e = WebotsController.createMirror(ip, port, baseOptions.forMirror(port), jointMap);
+        endpoints.add(e);
+        LOGGER.info("✅ Webots mirror added: {}:{} ({} total)", ip, port, endpoints.size());
+        return e;
+    }
+
+    public synchronized boolean remove(String address) {
+        WebotsController e = find(address);
+        if (e == null) return false;
+        endpoints.remove(e);
+        e.shutdown();
+        LOGGER.info("🛑 Webots mirror removed: {}", address);
+        return true;
+    }
+
+    /**
+     * 목록 전체 교체: "host:port, host:port ..." (이미 있는 엔드포인트는 유지, 연결 끊지 않음)
+     * - 형식이 잘못된 항목은 경고 후 무시
+     */
+    public synchronized void setEndpoints(String spec) {
+        Map<String, Endpoint> wanted = new LinkedHashMap<>();
+        for (String item : spec.split("[,\\s]+")) {
+            if (item.isEmpty()) continue;
+            int colon = item.lastIndexOf(':');
+            try {
+                if (colon <= 0) throw new NumberFormatException("missing port");
+                int port = Integer.parseInt(item.substring(colon + 1));
+                if (port <= 0 || port > 65535) throw new NumberFormatException("port out of range");
+                Endpoint ep = new Endpoint(item.substring(0, colon), port);
+                wanted.put(ep.host() + ":" + ep.port(), ep);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("⚠️  Ignoring Webots mirror '{}': {}", item, e.getMessage());
+            }
+        }
+        for (WebotsController e : new ArrayList<>(endpoints)) {
+            if (!wanted.containsKey(e.getRobotAddress())) remove(e.getRobotAddress());
+        }
+        for (Endpoint ep : wanted.values()) add(ep.host(), ep.port());
+    }
+
+    private record Endpoint(String host, int port) {}
+
+    private WebotsController find(String address) {
+        for (WebotsController e : endpoints) {
+            if (e.getRobotAddress().equals(address)) return e;
+        }
+        return null;
+    }
+
+    public List<WebotsController> endpoints() {
+        return List.copyOf(endpoints);
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    public int connectedCount() {
+        int n = 0;
+        for (WebotsController e : endpoints) {
+            if (e.isConnected()) n++;
+        }
+        return n;
+    }
+
+    public long framesFannedOut() {
+        return framesFannedOut.sum();
+    }
+
+    /** 엔드포인트별 상태 (지연은 최근 windowMillis) */
+    public List<EndpointStatus> status(long windowMillis) {
+        List<EndpointStatus> out = new ArrayList<>(endpoints.size());
+        for (WebotsController e : endpoints) {
+            out.add(new EndpointStatus(e.getRobotAddress(), e.isConnected(), e.millisUntilRetry(),
+                    e.getTransportName(), e.statsSnapshot(windowMillis)));
+        }
+        return out;
+    }
+
+    public synchronized void shutdown() {
+        for (WebotsController e : endpoints) {
+            e.shutdown();
+        }
+        endpoints.clear();
+    }
+}
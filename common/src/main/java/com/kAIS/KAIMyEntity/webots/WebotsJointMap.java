@@ -0,0 +1,270 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * URDF 관절 → Webots 모터 매핑 (로봇별 properties 파일)
+ * - 로드 시 검증 후 항목별 배열(motor/scale/offset/min/max)로 컴파일 → 전송 시 이름 분기 없음
+ * - webots = clamp(scale * urdf + offset, min, max)
+ * - 찾는 순서: config/webots_jointmap/<name>.properties → 내장 assets/kaimyentity/webots/<name>.properties
+ *
+ * 파일 형식:
+ *   motors = ShoulderR, ShoulderL, ...        Webots 모터 이름 (순서 = 모터 인덱스, 최대 64)
+ *   joint.<urdf 관절> = <모터>, <min>, <max>[, <scale>, <offset>]   (min/max 는 Webots 라디안)
+ *   alias.<다른 이름> = <urdf 관절>            같은 모터를 다른 이름으로도 받음
+ * 모터 하나에는 joint 하나만 허용 (중복은 로드 오류, 같은 모터는 alias 로)
+ */
+public final class WebotsJointMap {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public static final String DEFAULT_NAME = "darwin-op";
+    /** 전송 마스크가 long 이므로 최대 64 모터 */
+    public static final int MAX_MOTORS = 64;
+    private static final String RESOURCE_DIR = "/assets/kaimyentity/webots/";
+
+    private final String name;
+    private final String[] motorNames;
+    private final Map<String, Integer> entryByName;  // 관절 이름 (별칭 포함) → 항목
+    private final String[] jointNames;               // 항목별 URDF 관절 이름
+
+    // 컴파일된 항목 배열 (항목 i = jointNames[i])
+    final int[] motor;
+    final float[] scale;
+    final float[] offset;
+    final float[] min;
+    final float[] max;
+    /** 역변환 결과 범위 (상태 피드백용, URDF 라디안) */
+    private final float[] urdfMin;
+    private final float[] urdfMax;
+
+    /** URDF 관절 목록에 대한 항목 번호 (-1 = 매핑 없음), bind() 1회 후 재사용 */
+    public record Binding(WebotsJointMap map, int[] entries) {}
+
+    private WebotsJointMap(String name, String[] motorNames, Map<String, Integer> entryByName,
+                           String[] jointNames, int[] motor, float[] scale, float[] offset,
+                           float[] min, float[] max) {
+        this.name = name;
+        this.motorNames = motorNames;
+        this.entryByName = entryByName;
+        this.jointNames = jointNames;
+        this.motor = motor;
+        this.scale = scale;
+        this.offset = offset;
+        this.min = min;
+        this.max = max;
+        this.urdfMin = new float[jointNames.length];
+        this.urdfMax = new float[jointNames.length];
+        for (int e = 0; e < jointNames.length; e++) {
+            float a = (min[e] - offset[e]) / scale[e];
+            float b = (max[e] - offset[e]) / scale[e];
+            urdfMin[e] = Math.min(a, b);
+            urdfMax[e] = Math.max(a, b);
+        }
+    }
+
+    // ==================== 로드 ====================
+
+    /** 설정 폴더 → 내장 리소스 순으로 찾고, 실패하면 내장 기본 매핑 */
+    public static WebotsJointMap loadOrDefault(File configDir, String name) {
+        try {
+            return load(configDir, name);
+        } catch (Exception e) {
+            LOGGER.error("❌ Invalid Webots joint map '{}': {}", name, e.getMessage());
+        }
+        if (!DEFAULT_NAME.equals(name)) {
+            try {
+                return load(null, DEFAULT_NAME);
+            } catch (Exception e) {
+                LOGGER.error("❌ Built-in Webots joint map broken: {}", e.getMessage());
+            }
+        }
+        throw new IllegalStateException("No usable Webots joint map");
+    }
+
+    public static WebotsJointMap load(File configDir, String name) throws IOException {
+        Properties props = new Properties();
+        File file = configDir != null ? new File(new File(configDir, "webots_jointmap"), name + ".properties") : null;
+        if (file != null && file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+            WebotsJointMap map = parse(name, props);
+            LOGGER.info("✅ Webots joint map '{}' from {} ({} joints, {} motors)",
+                    name, file, map.jointCount(), map.motorCount());
+            return map;
+        }
+        try (InputStream in = WebotsJointMap.class.getResourceAsStream(RESOURCE_DIR + name + ".properties")) {
+            if (in == null) throw new IOException("not found: " + name);
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        WebotsJointMap map = parse(name, props);
+        LOGGER.info("✅ Webots joint map '{}' (built-in, {} joints, {} motors)",
+                name, map.jointCount(), map.motorCount());
+        return map;
+    }
+
+    /**
+     * properties → 컴파일된 매핑
+     * @throws IllegalArgumentException 검증 실패 (모든 오류를 한 메시지로)
+     */
+    public static WebotsJointMap parse(String name, Properties props) {
+        List<String> errors = new ArrayList<>();
+
+        String motorsProp = props.getProperty("motors", "").trim();
+        String[] motorNames = motorsProp.isEmpty() ? new String[0] : motorsProp.split("\\s*,\\s*");
+        Map<String, Integer> motorIndex = new HashMap<>();
+        for (int i = 0; i < motorNames.length; i++) {
+            if (motorIndex.putIfAbsent(motorNames[i], i) != null) {
+                errors.add("duplicate motor '" + motorNames[i] + "'");
+            }
+        }
+        if (motorNames.length == 0) errors.add("'motors' is empty");
+        if (motorNames.length > MAX_MOTORS) errors.add("more than " + MAX_MOTORS + " motors");
+
+        // 키 정렬 → 파일 순서와 무관하게 항목 번호 고정
+        TreeSet<String> keys = new TreeSet<>(props.stringPropertyNames());
+        List<String> joints = new ArrayList<>();
+        List<float[]> params = new ArrayList<>();   // min, max, scale, offset
+        List<Integer> motors = new ArrayList<>();
+        String[] motorOwner = new String[motorNames.length];
+
+        for (String key : keys) {
+            if (!key.startsWith("joint.")) continue;
+            String joint = key.substring("joint.".length());
+            String[] f = props.getProperty(key).trim().split("\\s*,\\s*");
+            if (f.length != 3 && f.length != 5) {
+                errors.add(key + ": expected '<motor>, <min>, <max>[, <scale>, <offset>]'");
+                continue;
+            }
+            Integer m = motorIndex.get(f[0]);
+            if (m == null) {
+                errors.add(key + ": unknown motor '" + f[0] + "'");
+                continue;
+            }
+            if (motorOwner[m] != null) {
+                errors.add(key + ": motor '" + f[0] + "' already driven by joint." + motorOwner[m]
+                        + " (use alias." + joint + " = " + motorOwner[m] + ")");
+                continue;
+            }
+            float[] p = new float[4];
+            p[2] = 1f;
+            try {
+                p[0] = Float.parseFloat(f[1]);
+                p[1] = Float.parseFloat(f[2]);
+                if (f.length == 5) {
+                    p[2] = Float.parseFloat(f[3]);
+                    p[3] = Float.parseFloat(f[4]);
+                }
+            } catch (NumberFormatException e) {
+                errors.add(key + ": " + e.getMessage());
+                continue;
+            }
+            if (!(p[0] <= p[1]) || Float.isInfinite(p[0]) || Float.isInfinite(p[1])) {
+                errors.add(key + ": invalid range [" + f[1] + ", " + f[2] + "]");
+                continue;
+            }
+            if (p[2] == 0f || !Float.isFinite(p[2]) || !Float.isFinite(p[3])) {
+                errors.add(key + ": invalid scale/offset");
+                continue;
+            }
+            motorOwner[m] = joint;
+            joints.add(joint);
+            motors.add(m);
+            params.add(p);
+        }
+
+        Map<String, Integer> entryByName = new HashMap<>();
+        for (int e = 0; e < joints.size(); e++) entryByName.put(joints.get(e), e);
+        for (String key : keys) {
+            if (!key.startsWith("alias.")) continue;
+            String alias = key.substring("alias.".length());
+            String target = props.getProperty(key).trim();
+            Integer e = entryByName.get(target);
+            if (e == null) {
+                errors.add(key + ": unknown joint '" + target + "'");
+            } else if (joints.contains(alias)) {
+                errors.add(key + ": '" + alias + "' is already a joint");
+            } else {
+                entryByName.put(alias, e);
+            }
+        }
+        if (joints.isEmpty()) errors.add("no joint.* entries");
+
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(name + ": " + String.join("; ", errors));
+        }
+
+        int n = joints.size();
+        int[] motor = new int[n];
+        float[] scale = new float[n], offset = new float[n], min = new float[n], max = new float[n];
+        for (int e = 0; e < n; e++) {
+            float[] p = params.get(e);
+            motor[e] = motors.get(e);
+            min[e] = p[0];
+            max[e] = p[1];
+            scale[e] = p[2];
+            offset[e] = p[3];
+        }
+        return new WebotsJointMap(name, motorNames, Collections.unmodifiableMap(entryByName),
+                joints.toArray(new String[0]), motor, scale, offset, min, max);
+    }
+
+    // ==================== 조회 / 변환 ====================
+
+    public String name() { return name; }
+    public int motorCount() { return motorNames.length; }
+    public int jointCount() { return jointNames.length; }
+    public String motorName(int motorIndex) { return motorNames[motorIndex]; }
+
+    /** 관절 이름 (별칭 포함) → 항목 번호, 없으면 -1 */
+    public int entryOf(String jointName) {
+        Integer e = entryByName.get(jointName);
+        return e != null ? e : -1;
+    }
+
+    /** 관절 이름 → 모터 인덱스, 없으면 -1 */
+    public int motorOf(String jointName) {
+        int e = entryOf(jointName);
+        return e >= 0 ? motor[e] : -1;
+    }
+
+    /** 관절 이름 목록 → Binding (null 이름 = 보내지 않는 관절) */
+    public Binding bind(List<String> jointNames) {
+        int[] entries = new int[jointNames.size()];
+        for (int i = 0; i < entries.length; i++) {
+            String n = jointNames.get(i);
+            entries[i] = n != null ? entryOf(n) : -1;
+        }
+        return new Binding(this, entries);
+    }
+
+    public String[] supportedJoints() {
+        return entryByName.keySet().toArray(new String[0]);
+    }
+
+    /** Webots 위치 → URDF 위치 (toWebots 의 역변환, 클램프 구간은 경계값) */
+    public float toUrdf(int entry, float webotsValue) {
+        float v = (webotsValue - offset[entry]) / scale[entry];
+        return v < urdfMin[entry] ? urdfMin[entry] : Math.min(v, urdfMax[entry]);
+    }
+
+    /** Webots 속도 → URDF 속도 배율 */
+    public float velocityToUrdf(int entry) {
+        return 1f / scale[entry];
+    }
+}
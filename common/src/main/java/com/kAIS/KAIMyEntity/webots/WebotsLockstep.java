@@ -0,0 +1,303 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import com.kAIS.KAIMyEntity.urdf.URDFJointState;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 록스텝 모드 (RL 데이터 수집용): 제어 스텝 1회 = 시뮬레이션 N 스텝
+ * - 행동 프레임 전송 → Webots 가 N 스텝 진행 → 관측 프레임 응답 (HTTP command=step)
+ * - 브리지는 seq 순서대로 실행하고, 요청이 없으면 시뮬레이션을 멈추고 기다림
+ * - 최대 depth 개 요청을 미리 보냄 → 헤드리스 루프에서 왕복 지연을 숨기고 실시간보다 빠르게 진행
+ * - 켜져 있는 동안 WebotsController 의 일반 전송(set_joints/UDP)은 멈춤
+ *
+ * 관측 응답 본문 = 상태 프레임과 같은 바이너리 ('KAIS', WebotsStateReceiver 참고), 모터 인덱스 순
+ */
+public final class WebotsLockstep implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int HEADER_BYTES = 20;
+    private static final long STEP_TIMEOUT_MS = 5000;
+
+    /** 관측 1개 (Webots 모터 인덱스 순, imu/foot 은 없으면 null) */
+    public record Observation(long seq, long simNanos, float[] position, float[] velocity,
+                              float[] imu, float[] foot, long roundTripNanos) {}
+
+    /** 헤드리스 루프용 정책: 가장 최근 관측(처음엔 null)으로 다음 행동(URDF 값) 채움 */
+    @FunctionalInterface
+    public interface Policy {
+        void act(Observation latest, float[] urdfAction);
+    }
+
+    private final WebotsController owner;
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final WebotsJointMap jointMap;
+    private final int stepsPerAction;
+    private final int depth;
+    private final Semaphore window;
+
+    private final AtomicLong nextSeq = new AtomicLong(1);
+    private volatile Observation latest;
+    private volatile String failure;
+    private volatile boolean closed = false;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    WebotsLockstep(WebotsController owner, HttpClient httpClient, String baseUrl, WebotsJointMap jointMap,
+                   int stepsPerAction, int depth) {
+        this.owner = owner;
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.jointMap = jointMap;
+        this.stepsPerAction = Math.max(1, stepsPerAction);
+        this.depth = Math.max(1, depth);
+        this.window = new Semaphore(this.depth);
+    }
+
+    /** 브리지를 록스텝 모드로 전환 (동기) */
+    void start() throws IOException, InterruptedException {
+        int status = sendControl(true);
+        if (status != 200) {
+            throw new IOException("bridge rejected lockstep (status " + status + ")");
+        }
+        LOGGER.info("✅ Webots lockstep: {} sim steps per action, pipeline depth {}", stepsPerAction, depth);
+    }
+
+    /**
+     * 행동 1개 전송 (파이프라인 창이 가득 차면 빈 자리가 날 때까지 블로킹)
+     * @param binding    jointMap.bind(...) 결과
+     * @param urdfValues binding 순서의 URDF 관절 값 (NaN = 변경 없음)
+     */
+    public CompletableFuture<Observation> submit(WebotsJointMap.Binding binding, float[] urdfValues)
+            throws InterruptedException {
+        checkUsable(binding);
+        window.acquire();
+        return issue(binding, urdfValues);
+    }
+
+    /**
+     * 블로킹 없는 submit (틱/렌더 스레드용)
+     * @return 창이 가득 차 있으면 null (이번 행동은 건너뜀, skippedActions 에 집계)
+     */
+    public CompletableFuture<Observation> trySubmit(WebotsJointMap.Binding binding, float[] urdfValues) {
+        checkUsable(binding);
+        if (!window.tryAcquire()) {
+            skipped.increment();
+            return null;
+        }
+        return issue(binding, urdfValues);
+    }
+
+    private void checkUsable(WebotsJointMap.Binding binding) {
+        if (closed) throw new IllegalStateException("lockstep closed");
+        if (failure != null) throw new IllegalStateException("lockstep desynchronized: " + failure);
+        if (binding.map() != jointMap) throw new IllegalArgumentException("binding from another joint map");
+    }
+
+    /** 창 자리를 얻은 뒤 호출 */
+    private CompletableFuture<Observation> issue(WebotsJointMap.Binding binding, float[] urdfValues) {
+        // seq 는 창을 얻은 뒤 할당 (대기 중 인터럽트되어도 번호가 비지 않게)
+        String url = buildUrl(nextSeq.getAndIncrement(), binding, urdfValues);
+        long issued = System.nanoTime();
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(url))
+                    .timeout(Duration.ofMillis(STEP_TIMEOUT_MS))
+                    .GET()
+                    .build();
+        } catch (RuntimeException e) {
+            window.release();
+            throw fail(e.toString());
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    window.release();
+                    if (error != null) throw fail(error.getMessage());
+                    if (response.statusCode() != 200) throw fail("status " + response.statusCode());
+                    Observation obs = decode(response.body(), System.nanoTime() - issued);
+                    if (obs == null) throw fail("bad observation frame");
+                    completed.increment();
+                    Observation prev = latest;
+                    if (prev == null || obs.seq > prev.seq) latest = obs;
+                    return obs;
+                });
+    }
+
+    /** submit 후 관측까지 대기 (엄격한 록스텝) */
+    public Observation step(WebotsJointMap.Binding binding, float[] urdfValues)
+            throws InterruptedException, ExecutionException {
+        return submit(binding, urdfValues).get();
+    }
+
+    /**
+     * 헤드리스 가속 루프: controlSteps 번 행동 → 관측
+     * - 창(depth)만큼 앞서 보내므로 정책은 depth-1 스텝 전의 관측을 봄 (depth 1 이면 직전 관측)
+     * @return 마지막 관측
+     */
+    public Observation runHeadless(WebotsJointMap.Binding binding, Policy policy, long controlSteps)
+            throws InterruptedException, ExecutionException {
+        float[] action = new float[binding.entries().length];
+        ArrayDeque<CompletableFuture<Observation>> inFlight = new ArrayDeque<>(depth);
+        Observation obs = latest;
+        for (long k = 0; k < controlSteps; k++) {
+            if (inFlight.size() >= depth) obs = inFlight.poll().get();
+            Arrays.fill(action, Float.NaN);
+            policy.act(obs, action);
+            inFlight.add(submit(binding, action));
+        }
+        while (!inFlight.isEmpty()) obs = inFlight.poll().get();
+        return obs;
+    }
+
+    /** 관측(모터 순) → URDF 관절 순 위치/속도 (매핑 없는 관절은 NaN) */
+    public void toUrdf(WebotsJointMap.Binding binding, Observation obs, float[] outPosition, float[] outVelocity) {
+        int[] entries = binding.entries();
+        for (int i = 0; i < entries.length; i++) {
+            int e = entries[i];
+            int m = e >= 0 ? jointMap.motor[e] : -1;
+            if (m < 0 || m >= obs.position.length) {
+                outPosition[i] = Float.NaN;
+                if (outVelocity != null) outVelocity[i] = Float.NaN;
+                continue;
+            }
+            outPosition[i] = jointMap.toUrdf(e, obs.position[m]);
+            if (outVelocity != null) outVelocity[i] = obs.velocity[m] * jointMap.velocityToUrdf(e);
+        }
+    }
+
+    private String buildUrl(long seq, WebotsJointMap.Binding binding, float[] urdfValues) {
+        int[] entries = binding.entries();
+        StringBuilder idx = new StringBuilder(entries.length * 3);
+        StringBuilder val = new StringBuilder(entries.length * 8);
+        int n = Math.min(entries.length, urdfValues.length);
+        for (int i = 0; i < n; i++) {
+            int e = entries[i];
+            float v = urdfValues[i];
+            if (e < 0 || Float.isNaN(v)) continue;
+            float w = jointMap.scale[e] * v + jointMap.offset[e];
+            w = w < jointMap.min[e] ? jointMap.min[e] : Math.min(w, jointMap.max[e]);
+            if (idx.length() > 0) {
+                idx.append(',');
+                val.append(',');
+            }
+            idx.append(jointMap.motor[e]);
+            val.append(String.format(Locale.ROOT, "%.4f", w));
+        }
+        return baseUrl + "/?command=step&seq=" + seq + "&n=" + stepsPerAction
+                + "&flags=" + (WebotsStateReceiver.FLAG_IMU | WebotsStateReceiver.FLAG_FOOT)
+                + "&idx=" + idx + "&val=" + val;
+    }
+
+    private static Observation decode(byte[] data, long roundTripNanos) {
+        ByteBuffer bb = ByteBuffer.wrap(data);
+        if (data.length < HEADER_BYTES || bb.getInt(0) != WebotsStateReceiver.MAGIC_STATE) return null;
+        long seq = Integer.toUnsignedLong(bb.getInt(4));
+        long simNanos = bb.getLong(8);
+        int count = Short.toUnsignedInt(bb.getShort(16));
+        int flags = Short.toUnsignedInt(bb.getShort(18));
+        boolean hasImu = (flags & WebotsStateReceiver.FLAG_IMU) != 0;
+        boolean hasFoot = (flags & WebotsStateReceiver.FLAG_FOOT) != 0;
+        int need = HEADER_BYTES + 8 * count
+                + (hasImu ? 4 * URDFJointState.IMU_SIZE : 0)
+                + (hasFoot ? 4 * URDFJointState.FOOT_SIZE : 0);
+        if (data.length < need) return null;
+
+        bb.position(HEADER_BYTES);
+        float[] position = new float[count];
+        float[] velocity = new float[count];
+        for (int i = 0; i < count; i++) position[i] = bb.getFloat();
+        for (int i = 0; i < count; i++) velocity[i] = bb.getFloat();
+        float[] imu = null;
+        if (hasImu) {
+            imu = new float[URDFJointState.IMU_SIZE];
+            for (int k = 0; k < imu.length; k++) imu[k] = bb.getFloat();
+        }
+        float[] foot = null;
+        if (hasFoot) {
+            foot = new float[URDFJointState.FOOT_SIZE];
+            for (int k = 0; k < foot.length; k++) foot[k] = bb.getFloat();
+        }
+        return new Observation(seq, simNanos, position, velocity, imu, foot, roundTripNanos);
+    }
+
+    /** 요청이 하나라도 실패하면 브리지 seq 가 어긋나므로 이후 submit 은 거부 (close 후 다시 시작) */
+    private IllegalStateException fail(String reason) {
+        if (failure == null) {
+            failure = reason;
+            LOGGER.warn("⚠️  Webots lockstep failed: {}", reason);
+        }
+        return new IllegalStateException("lockstep step failed: " + reason);
+    }
+
+    private int sendControl(boolean on) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/?command=lockstep&on=" + (on ? 1 : 0)))
+                .timeout(Duration.ofMillis(1000))
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    public Observation latest() { return latest; }
+    public long completedSteps() { return completed.sum(); }
+    /** trySubmit 에서 창이 가득 차 건너뛴 행동 수 */
+    public long skippedActions() { return skipped.sum(); }
+    public int stepsPerAction() { return stepsPerAction; }
+    public int depth() { return depth; }
+    public String failure() { return failure; }
+    public boolean isHealthy() { return !closed && failure == null; }
+
+    /**
+     * close() 를 executor 에서 (sendControl 이 최대 1초 블로킹하므로 틱 스레드에서는 이쪽)
+     * - 여러 번 불러도 실제로 닫는 건 1번, executor 가 종료 중이면 호출 스레드에서 닫음
+     */
+    void closeAsync(Executor executor) {
+        if (closed) return;
+        try {
+            executor.execute(this::close);
+        } catch (RejectedExecutionException e) {
+            close();
+        }
+    }
+
+    /**
+     * 브리지를 자유 실행으로 되돌리고 일반 전송 재개 (동기)
+     * - 다른 스레드가 닫는 중이면 lockstep=off 응답까지 기다렸다가 반환 (바로 다시 시작해도 순서 보장)
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            try {
+                sendControl(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.warn("Failed to leave Webots lockstep: {}", e.getMessage());
+            }
+        }
+        // 컨트롤러 잠금은 이 객체 잠금 밖에서 (startLockstep 은 컨트롤러 잠금 안에서 close 를 부름)
+        owner.onLockstepClosed(this);
+        LOGGER.info("✅ Webots lockstep closed after {} steps", completed.sum());
+    }
+}
@@ -0,0 +1,201 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import com.kAIS.KAIMyEntity.urdf.URDFJoint;
+import com.kAIS.KAIMyEntity.urdf.URDFJointState;
+import com.kAIS.KAIMyEntity.urdf.URDFRobotModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Webots 상태 피드백 수신기 (UDP 구독)
+ * - 브리지 UDP 포트로 구독 패킷('KAIQ')을 1초마다 보내고, 브리지는 매 스텝 상태 프레임('KAIS')을 돌려줌
+ * - 수신 스레드에서 URDF 관절 인덱스로 변환해 URDFJointState 에 게시 (락 없음)
+ *
+ * 구독 패킷: magic u32 'KAIQ' | flags u16 (1 = IMU, 2 = 발 센서)
+ * 상태 프레임 (big-endian):
+ *   magic u32 'KAIS' | seq u32 | stamp i64 (시뮬레이션 시각 ns) | count u16 | flags u16
+ *   f32 position[count] | f32 velocity[count]     (Webots 모터 인덱스 순)
+ *   [flags & 1] f32 imu[9]  roll, pitch, yaw, gyro xyz, accel xyz
+ *   [flags & 2] f32 foot[2] left, right
+ */
+public final class WebotsStateReceiver implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public static final int MAGIC_STATE = 0x4B414953;     // "KAIS"
+    public static final int MAGIC_SUBSCRIBE = 0x4B414951; // "KAIQ"
+    static final int FLAG_IMU = 1;
+    static final int FLAG_FOOT = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final long RESUBSCRIBE_NANOS = 1_000_000_000L;
+
+    /** 로봇별 변환 테이블 (bind 시 1회 계산) */
+    private record Binding(URDFRobotModel robot, URDFJointState state,
+                           int[] webotsIndex, int[] entries, float[] velocityScale) {}
+
+    private final InetSocketAddress target;
+    private final WebotsJointMap jointMap;
+    private final DatagramSocket socket;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile Binding binding;
+
+    private volatile long frames = 0;
+    private volatile long badFrames = 0;
+    private volatile long lastReceiveNanos = 0;
+
+    public WebotsStateReceiver(String host, int port, WebotsJointMap jointMap) throws IOException {
+        this.target = new InetSocketAddress(host, port);
+        this.jointMap = jointMap;
+        this.socket = new DatagramSocket();
+        this.socket.connect(target);
+        this.socket.setSoTimeout(500);
+        this.thread = new Thread(this::receiveLoop, "Webots-State");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        LOGGER.info("✅ Webots state subscription: udp://{}:{}", host, port);
+    }
+
+    /** 측정값을 받을 로봇 지정 (이전 바인딩 대체) */
+    public void bind(URDFRobotModel robot) {
+        int n = robot.joints.size();
+        List<String> names = new ArrayList<>(n);
+        for (URDFJoint j : robot.joints) {
+            names.add(j.isMovable() ? j.name : null);
+        }
+        int[] entries = jointMap.bind(names).entries();
+        int[] webotsIndex = new int[n];
+        float[] velocityScale = new float[n];
+        for (int i = 0; i < n; i++) {
+            int e = entries[i];
+            webotsIndex[i] = e >= 0 ? jointMap.motor[e] : -1;
+            velocityScale[i] = e >= 0 ? jointMap.velocityToUrdf(e) : 0f;
+        }
+        binding = new Binding(robot, robot.measuredState(), webotsIndex, entries, velocityScale);
+    }
+
+    public URDFRobotModel boundRobot() {
+        Binding b = binding;
+        return b != null ? b.robot : null;
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[4096];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        long lastSubscribe = 0;
+
+        while (running) {
+            long now = System.nanoTime();
+            if (now - lastSubscribe > RESUBSCRIBE_NANOS) {
+                lastSubscribe = now;
+                sendSubscribe();
+            }
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                decode(buffer, packet.getLength(), System.nanoTime());
+            } catch (SocketTimeoutException e) {
+                // 구독 갱신 후 계속 대기
+            } catch (PortUnreachableException e) {
+                // 브리지 미기동: 다음 구독까지 대기
+                sleepQuietly(200);
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.warn("Webots state receive error: {}", e.getMessage());
+                    sleepQuietly(200);
+                }
+            }
+        }
+    }
+
+    private void sendSubscribe() {
+        ByteBuffer bb = ByteBuffer.allocate(6);
+        bb.putInt(MAGIC_SUBSCRIBE);
+        bb.putShort((short) (FLAG_IMU | FLAG_FOOT));
+        try {
+            socket.send(new DatagramPacket(bb.array(), bb.position()));
+        } catch (IOException e) {
+            // 다음 주기에 재시도
+        }
+    }
+
+    private void decode(byte[] data, int length, long receiveNanos) {
+        ByteBuffer bb = ByteBuffer.wrap(data, 0, length);
+        if (length < HEADER_BYTES || bb.getInt(0) != MAGIC_STATE) {
+            badFrames++;
+            return;
+        }
+        long seq = Integer.toUnsignedLong(bb.getInt(4));
+        int count = Short.toUnsignedInt(bb.getShort(16));
+        int flags = Short.toUnsignedInt(bb.getShort(18));
+        int velOffset = HEADER_BYTES + 4 * count;
+        int extOffset = velOffset + 4 * count;
+        int need = extOffset
+                + ((flags & FLAG_IMU) != 0 ? 4 * URDFJointState.IMU_SIZE : 0)
+                + ((flags & FLAG_FOOT) != 0 ? 4 * URDFJointState.FOOT_SIZE : 0);
+        if (length < need) {
+            badFrames++;
+            return;
+        }
+        frames++;
+        lastReceiveNanos = receiveNanos;
+
+        Binding b = binding;
+        if (b == null) return;
+
+        URDFJointState.Sample s = b.state.beginWrite();
+        for (int i = 0; i < b.entries.length; i++) {
+            int w = b.webotsIndex[i];
+            if (w < 0 || w >= count) {
+                s.valid[i] = false;
+                continue;
+            }
+            float pos = bb.getFloat(HEADER_BYTES + 4 * w);
+            float vel = bb.getFloat(velOffset + 4 * w);
+            s.position[i] = jointMap.toUrdf(b.entries[i], pos);
+            s.velocity[i] = vel * b.velocityScale[i];
+            s.valid[i] = !Float.isNaN(pos);
+        }
+        int off = extOffset;
+        s.hasImu = (flags & FLAG_IMU) != 0;
+        if (s.hasImu) {
+            for (int k = 0; k < URDFJointState.IMU_SIZE; k++) s.imu[k] = bb.getFloat(off + 4 * k);
+            off += 4 * URDFJointState.IMU_SIZE;
+        }
+        s.hasFoot = (flags & FLAG_FOOT) != 0;
+        if (s.hasFoot) {
+            for (int k = 0; k < URDFJointState.FOOT_SIZE; k++) s.foot[k] = bb.getFloat(off + 4 * k);
+        }
+        b.state.publish(seq, receiveNanos);
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long framesReceived() { return frames; }
+    public long badFrames() { return badFrames; }
+    public long lastReceiveNanos() { return lastReceiveNanos; }
+    public InetSocketAddress target() { return target; }
+
+    @Override
+    public void close() {
+        running = false;
+        socket.close();
+        thread.interrupt();
+    }
+}
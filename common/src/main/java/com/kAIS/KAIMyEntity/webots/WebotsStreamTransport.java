@@ -0,0 +1,69 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Webots 바이너리 스트리밍 전송 (UDP, 지속 소켓)
+ * - HTTP(set_joint/set_joints)는 폴백으로 유지, 이쪽은 고빈도(500Hz+) 자세 전송용
+ * - 참조 서버: tools/webots/kaimyentity_bridge.py
+ *
+ * 프레임 (big-endian, 고정 길이 = 20 + 4 * count):
+ *   magic  u32   'KAIW'
+ *   seq    u32   프레임 번호 (wrap 허용)
+ *   stamp  i64   송신 시각 nanos (송신측 단조 시계, 지연 측정용)
+ *   count  u16   관절 수 (모터 인덱스 0..count-1)
+ *   flags  u16   예약 (0)
+ *   values f32[count]  라디안, NaN = 변경 없음
+ */
+public final class WebotsStreamTransport implements Closeable {
+    public static final int MAGIC = 0x4B414957; // "KAIW"
+    public static final int HEADER_BYTES = 20;
+
+    private final InetSocketAddress target;
+    private final DatagramChannel channel;
+    private final ByteBuffer buffer;
+
+    public WebotsStreamTransport(String host, int port, int jointCount) throws IOException {
+        this.target = new InetSocketAddress(host, port);
+        this.channel = DatagramChannel.open();
+        this.channel.connect(target);
+        this.buffer = ByteBuffer.allocateDirect(frameBytes(jointCount)).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    public static int frameBytes(int jointCount) {
+        return HEADER_BYTES + 4 * jointCount;
+    }
+
+    /** values 를 buf 에 프레임으로 기록 (buf position 부터, 호출 후 flip 필요) */
+    public static void encode(ByteBuffer buf, long seq, long stampNanos, float[] values) {
+        buf.putInt(MAGIC);
+        buf.putInt((int) seq);
+        buf.putLong(stampNanos);
+        buf.putShort((short) values.length);
+        buf.putShort((short) 0);
+        for (float v : values) buf.putFloat(v);
+    }
+
+    /**
+     * 프레임 1개 전송 (수신 확인 없음)
+     * @throws IOException 소켓 오류 / ICMP port unreachable
+     */
+    public synchronized void send(long seq, long stampNanos, float[] values) throws IOException {
+        buffer.clear();
+        encode(buffer, seq, stampNanos, values);
+        buffer.flip();
+        channel.write(buffer);
+    }
+
+    public InetSocketAddress target() { return target; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
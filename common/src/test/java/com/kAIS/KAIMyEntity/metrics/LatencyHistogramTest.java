@@ -0,0 +1,130 @@
+package com.kAIS.KAIMyEntity.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    private static long micros(long us) {
+        return TimeUnit.MICROSECONDS.toNanos(us);
+    }
+
+    @Test
+    void emptySnapshotReportsZero() {
+        LatencyHistogram.Snapshot s = new LatencyHistogram().snapshot();
+        assertEquals(0, s.count());
+        assertEquals(0, s.percentileMicros(50));
+        assertEquals(0, s.percentileMicros(99));
+        assertEquals(0, LatencyHistogram.Snapshot.EMPTY.percentileMicros(99));
+    }
+
+    @Test
+    void bucketBoundsAreInclusiveUpperBounds() {
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(0, LatencyHistogram.bucketOf(micros(1)));
+        // 1µs 대는 반올림으로 상한이 겹침 (1, 1, 2, 2, ...) → 1µs 를 넘으면 다음 상한 2µs
+        assertEquals(2, LatencyHistogram.BOUNDS_US[LatencyHistogram.bucketOf(micros(1) + 1)]);
+        int b = LatencyHistogram.bucketOf(micros(1000));
+        assertEquals(1000, LatencyHistogram.BOUNDS_US[b]);
+        assertEquals(LatencyHistogram.BOUNDS_US.length - 1, LatencyHistogram.bucketOf(TimeUnit.SECONDS.toNanos(500)));
+    }
+
+    @Test
+    void percentilesUseBucketUpperBoundWithinRelativeError() {
+        LatencyHistogram h = new LatencyHistogram();
+        // 1..1000 µs 균등 → p50 ≈ 500µs, p90 ≈ 900µs, p99 ≈ 990µs
+        for (long us = 1; us <= 1000; us++) h.record(micros(us));
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(1000, s.count());
+        assertBucketOf(500, s.percentileMicros(50));
+        assertBucketOf(900, s.percentileMicros(90));
+        assertBucketOf(990, s.percentileMicros(99));
+        assertEquals(1000, s.percentileMicros(100));
+        assertEquals(1, s.percentileMicros(0));
+        assertEquals(500.5, s.meanMicros(), 1e-9);
+        assertEquals(1000.0, s.maxMicros(), 1e-9);
+    }
+
+    @Test
+    void percentileNeverExceedsRecordedMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(micros(1001));   // 버킷 상한은 1250µs
+        assertEquals(1001, h.snapshot().percentileMicros(50));
+        assertEquals(1001, h.snapshot().percentileMicros(99));
+    }
+
+    @Test
+    void tailPercentileSeesTheOutliers() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 980; i++) h.record(micros(100));
+        for (int i = 0; i < 20; i++) h.record(TimeUnit.MILLISECONDS.toNanos(50));
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(100, s.percentileMicros(50));
+        assertEquals(100, s.percentileMicros(98));
+        assertEquals(50_000, s.percentileMicros(99));
+    }
+
+    @Test
+    void negativeSamplesCountAsZeroAndResetClears() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        assertEquals(1, h.snapshot().count());
+        assertEquals(0, h.snapshot().percentileMicros(99));
+        h.reset();
+        assertEquals(0, h.snapshot().count());
+        assertEquals(0.0, h.snapshot().maxMicros());
+    }
+
+    @Test
+    void plusMergesCountsAndMax() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int i = 0; i < 50; i++) a.record(micros(10));
+        for (int i = 0; i < 50; i++) b.record(micros(2000));
+        LatencyHistogram.Snapshot s = a.snapshot().plus(b.snapshot());
+        assertEquals(100, s.count());
+        assertEquals(10, s.percentileMicros(50));
+        assertEquals(2000, s.percentileMicros(51));
+        assertEquals(2000.0, s.maxMicros(), 1e-9);
+    }
+
+    @Test
+    void concurrentRecordsAreNotLost() throws Exception {
+        LatencyHistogram h = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) h.record(micros(i % 500));
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(40_000, s.count());
+        long bucketed = 0;
+        for (int i = 0; i < s.bucketCount(); i++) bucketed += s.bucketCountAt(i);
+        assertEquals(40_000, bucketed);
+    }
+
+    @Test
+    void rollingWindowForgetsOldSlices() throws Exception {
+        RollingLatencyHistogram r = new RollingLatencyHistogram(50, 4);
+        r.record(micros(100));
+        Thread.sleep(300);   // 4 slice × 50ms 창을 지남
+        r.record(micros(200));
+        assertEquals(1, r.snapshot(200).count());
+        assertEquals(200, r.snapshot(200).percentileMicros(99));
+        assertEquals(2, r.total().count());
+    }
+
+    /** 보고값 = 값이 속한 버킷 상한 (로그 스케일 한 칸, 오차 ≤ 26%) */
+    private static void assertBucketOf(long expectedMicros, long reported) {
+        assertEquals(LatencyHistogram.BOUNDS_US[LatencyHistogram.bucketOf(micros(expectedMicros))], reported);
+        assertTrue(reported >= expectedMicros && reported <= expectedMicros * 1.26,
+                "reported " + reported + "µs for " + expectedMicros + "µs");
+    }
+}
@@ -0,0 +1,154 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelPackTest {
+    private static final byte[] URDF = "<robot name=\"r\"/>".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    File dir;
+
+    /** 이름/내용 쌍으로 zip 생성 (stored = true 면 STORED 항목) */
+    private File zip(String fileName, boolean stored, Object... nameAndData) throws IOException {
+        File f = new File(dir, fileName);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(f))) {
+            for (int i = 0; i < nameAndData.length; i += 2) {
+                byte[] data = (byte[]) nameAndData[i + 1];
+                ZipEntry e = new ZipEntry((String) nameAndData[i]);
+                if (stored) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    e.setMethod(ZipEntry.STORED);
+                    e.setSize(data.length);
+                    e.setCompressedSize(data.length);
+                    e.setCrc(crc.getValue());
+                }
+                out.putNextEntry(e);
+                out.write(data);
+                out.closeEntry();
+            }
+        }
+        return f;
+    }
+
+    private static byte[] bytes(int n, int seed) {
+        byte[] b = new byte[n];
+        for (int i = 0; i < n; i++) b[i] = (byte) (i * 31 + seed);
+        return b;
+    }
+
+    private static byte[] toArray(ByteBuffer b) {
+        byte[] a = new byte[b.remaining()];
+        b.get(a);
+        return a;
+    }
+
+    @Test
+    void normalizeResolvesDotsAndRejectsEscapes() {
+        assertEquals("a/c", ModelPack.normalize("a/./b/../c"));
+        assertEquals("a/b", ModelPack.normalize("//a//b/"));
+        assertNull(ModelPack.normalize("../robot.urdf"));
+        assertNull(ModelPack.normalize("a/../../b"));
+        assertNull(ModelPack.normalize("a/.."));
+        assertNull(ModelPack.normalize(""));
+    }
+
+    @Test
+    void indexesEntriesAndReadsStoredAndDeflated() throws IOException {
+        byte[] mesh = bytes(10_000, 1);
+        byte[] tex = bytes(777, 2);
+        for (boolean stored : new boolean[]{true, false}) {
+            File f = zip(stored ? "stored.zip" : "deflated.zip", stored,
+                    "robot.urdf", URDF, "meshes/Base.STL", mesh, "textures/t.png", tex);
+            try (ModelPack pack = ModelPack.open(f)) {
+                assertEquals(3, pack.getEntryCount());
+                assertEquals("robot.urdf", pack.urdfEntry());
+                assertTrue(pack.contains("meshes/Base.STL"));
+                assertArrayEquals(mesh, toArray(pack.read("meshes/Base.STL")));
+                try (InputStream in = pack.openStream("textures/t.png")) {
+                    assertArrayEquals(tex, in.readAllBytes());
+                }
+                assertThrows(FileNotFoundException.class, () -> pack.read("missing.stl"));
+            }
+        }
+    }
+
+    @Test
+    void skipsEntriesThatEscapeThePack() throws IOException {
+        File f = zip("evil.zip", false,
+                "robot.urdf", URDF,
+                "../evil.stl", bytes(8, 3),
+                "meshes/../../evil2.stl", bytes(8, 4),
+                "meshes/./ok/../a.stl", bytes(8, 5));
+        try (ModelPack pack = ModelPack.open(f)) {
+            assertEquals(2, pack.getEntryCount());
+            assertTrue(pack.contains("meshes/a.stl"));
+            assertFalse(pack.contains("evil.stl"));
+            assertFalse(pack.contains("evil2.stl"));
+            assertNull(pack.resolveMesh("../evil.stl"));
+        }
+    }
+
+    @Test
+    void findsRobotUrdfInOneTopLevelFolder() throws IOException {
+        File f = zip("folder.zip", false, "myrobot/robot.urdf", URDF, "myrobot/meshes/a.stl", bytes(4, 6));
+        try (ModelPack pack = ModelPack.open(f)) {
+            assertEquals("myrobot/robot.urdf", pack.urdfEntry());
+            assertEquals("myrobot/meshes/a.stl", pack.resolveMesh("meshes/a.stl"));
+        }
+
+        File none = zip("none.zip", false, "a/b/robot.urdf", URDF);
+        assertThrows(FileNotFoundException.class, () -> ModelPack.open(none));
+        File ambiguous = zip("ambiguous.zip", false, "a/robot.urdf", URDF, "b/robot.urdf", URDF);
+        assertThrows(FileNotFoundException.class, () -> ModelPack.open(ambiguous));
+    }
+
+    @Test
+    void resolvesMeshesInParserOrder() throws IOException {
+        File f = zip("meshes.zip", false,
+                "robot.urdf", URDF,
+                "parts/arm.stl", bytes(4, 7),
+                "meshes/leg.stl", bytes(4, 8),
+                "deep/nested/Head.STL", bytes(4, 9));
+        try (ModelPack pack = ModelPack.open(f)) {
+            assertEquals("parts/arm.stl", pack.resolveMesh("parts/arm.stl"));
+            assertEquals("parts/arm.stl", pack.resolveMesh("package://robot_description/parts/arm.stl"));
+            assertEquals("meshes/leg.stl", pack.resolveMesh("package://robot_description/other/leg.stl"));
+            assertEquals("deep/nested/Head.STL", pack.resolveMesh("head.stl"));
+            assertEquals("meshes/leg.stl", pack.resolveMesh("parts\\..\\meshes\\leg.stl"));
+            assertNull(pack.resolveMesh("/abs/arm.stl"));
+            assertNull(pack.resolveMesh("file:///abs/arm.stl"));
+            assertNull(pack.resolveMesh("missing.stl"));
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotZips() throws IOException {
+        File f = new File(dir, "bad.zip");
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(bytes(100, 10));
+        }
+        assertThrows(IOException.class, () -> ModelPack.open(f));
+        assertTrue(ModelPack.isPack(f));
+        assertFalse(ModelPack.isPack(new File(dir, "robot.urdf")));
+    }
+}
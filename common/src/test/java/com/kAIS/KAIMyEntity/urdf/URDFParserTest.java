@@ -0,0 +1,132 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * StAX 파서 ↔ 예전 DOM 파서 결과 비교
+ * - *.dump 는 예전 DOM 파서로 같은 픽스처를 읽어 만든 덤프 (픽스처 폴더 = $DIR)
+ */
+class URDFParserTest {
+
+    private static File fixture(String name) throws URISyntaxException {
+        return new File(URDFParserTest.class.getResource("/urdf/" + name).toURI());
+    }
+
+    private static String expected(String name) throws IOException, URISyntaxException {
+        return Files.readString(fixture(name).toPath(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+    }
+
+    private static String parseAndDump(String name) throws URISyntaxException {
+        File file = fixture(name);
+        URDFRobotModel m = URDFParser.parse(file);
+        assertNotNull(m, name);
+        String dir = file.getParentFile().getAbsolutePath();
+        return dump(m).replace(dir, "$DIR").replace('\\', '/');
+    }
+
+    @Test
+    void matchesDomParserOnEdgeCases() throws Exception {
+        // 네임스페이스 접두사, 대소문자 섞인 태그, 중복 visual, 텍스트 자식 joint, 이름 없는 요소, xacro 매크로
+        assertEquals(expected("tricky.dump"), parseAndDump("tricky.urdf"));
+    }
+
+    @Test
+    void matchesDomParserOnGeneratedChain() throws Exception {
+        assertEquals(expected("chain.dump"), parseAndDump("chain.urdf"));
+    }
+
+    @Test
+    void acceptsUnboundXacroPrefixAndSkipsTransmissionJoints() throws Exception {
+        // 예전 DOM 파서는 바인딩 안 된 xacro: 접두사에서 실패, transmission 안 <joint> 를 관절로 읽었음
+        URDFRobotModel m = URDFParser.parse(fixture("unbound.urdf"));
+        assertNotNull(m);
+        assertEquals("u", m.name);
+        assertEquals("a", m.rootLinkName);
+        assertEquals(2, m.links.size());
+        assertEquals(1, m.joints.size());
+        URDFJoint j = m.joints.get(0);
+        assertEquals("j", j.name);
+        assertEquals("a", j.parentLinkName);
+        assertEquals("b", j.childLinkName);
+    }
+
+    @Test
+    void returnsNullForMissingOrBrokenFiles() throws Exception {
+        assertNull(URDFParser.parse(new File(fixture("tricky.urdf").getParentFile(), "missing.urdf")));
+        File broken = File.createTempFile("broken", ".urdf");
+        try {
+            Files.writeString(broken.toPath(), "<robot name=\"x\"><link name=\"a\">", StandardCharsets.UTF_8);
+            assertNull(URDFParser.parse(broken));
+        } finally {
+            broken.delete();
+        }
+    }
+
+    // ==================== 덤프 (DOM 파서 덤프와 같은 형식) ====================
+
+    private static String dump(URDFRobotModel m) {
+        StringBuilder sb = new StringBuilder("robot " + m.name + " root=" + m.rootLinkName + "\n");
+        for (URDFLink l : m.links) {
+            sb.append("L ").append(l.name);
+            if (l.visual != null) {
+                sb.append(" V[").append(o(l.visual.origin)).append(' ').append(g(l.visual.geometry)).append(" mat=");
+                URDFLink.Material mat = l.visual.material;
+                if (mat == null) {
+                    sb.append("null");
+                } else {
+                    sb.append(mat.name).append('/')
+                            .append(mat.color == null ? "null" : mat.color.x + "," + mat.color.w)
+                            .append('/').append(mat.textureFilename);
+                }
+                sb.append(']');
+            }
+            if (l.collision != null) {
+                sb.append(" C[").append(o(l.collision.origin)).append(' ').append(g(l.collision.geometry)).append(']');
+            }
+            if (l.inertial != null) {
+                sb.append(" I[").append(o(l.inertial.origin)).append(' ')
+                        .append(l.inertial.mass == null ? "null" : l.inertial.mass.value).append(' ')
+                        .append(l.inertial.inertia == null ? "null"
+                                : l.inertial.inertia.ixx + "," + l.inertial.inertia.iyy + "," + l.inertial.inertia.izz)
+                        .append(']');
+            }
+            sb.append('\n');
+        }
+        for (URDFJoint j : m.joints) {
+            sb.append("J ").append(j.name).append(' ').append(j.type).append(' ')
+                    .append(j.parentLinkName).append("->").append(j.childLinkName)
+                    .append(" o=").append(v(j.origin.xyz)).append('/').append(v(j.origin.rpy))
+                    .append(" ax=").append(v(j.axis.xyz))
+                    .append(" lim=").append(j.limit == null ? "null"
+                            : j.limit.lower + "," + j.limit.upper + "," + j.limit.effort + "," + j.limit.velocity)
+                    .append(" dyn=").append(j.dynamics == null ? "null" : j.dynamics.damping + "," + j.dynamics.friction)
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String v(Vector3f f) {
+        return f == null ? "null" : f.x + "," + f.y + "," + f.z;
+    }
+
+    private static String o(URDFLink.Origin o) {
+        return o == null ? "null" : v(o.xyz) + "/" + v(o.rpy);
+    }
+
+    private static String g(URDFLink.Geometry g) {
+        if (g == null) return "null";
+        return g.type + "|" + g.meshFilename + "|" + v(g.scale) + "|" + v(g.boxSize) + "|"
+                + g.cylinderRadius + "|" + g.cylinderLength + "|" + g.sphereRadius;
+    }
+}
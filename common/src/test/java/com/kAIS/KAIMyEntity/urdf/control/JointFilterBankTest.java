@@ -0,0 +1,110 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JointFilterBankTest {
+    /** 60Hz 샘플 간격 */
+    private static final long STEP_NANOS = 16_666_667L;
+
+    private static JointFilterBank bank(JointFilterBank.Type type) {
+        JointFilterBank.Spec d = JointFilterBank.Spec.DEFAULT;
+        return new JointFilterBank(new JointFilterBank.Spec[]{
+                new JointFilterBank.Spec(type, d.minCutoff(), d.beta(), d.dCutoff(), d.frequency(), d.q(), d.r())});
+    }
+
+    @Test
+    void noneAndNullSpecPassThrough() {
+        JointFilterBank f = new JointFilterBank(new JointFilterBank.Spec[]{JointFilterBank.Spec.NONE, null});
+        assertEquals(0.7f, f.apply(0, 0.7f, 0));
+        assertEquals(-0.3f, f.apply(1, -0.3f, STEP_NANOS));
+    }
+
+    @Test
+    void firstSampleAndLongGapReturnRawValue() {
+        for (JointFilterBank.Type type : new JointFilterBank.Type[]{
+                JointFilterBank.Type.ONE_EURO, JointFilterBank.Type.CRITICAL_DAMPED, JointFilterBank.Type.KALMAN}) {
+            JointFilterBank f = bank(type);
+            assertEquals(0f, f.apply(0, 0f, 0), type.name());
+            assertTrue(f.apply(0, 1f, STEP_NANOS) < 1f, type + " should filter a step");
+            // 0.5초 넘게 끊겼다가 다시 오면 상태 리셋
+            assertEquals(2f, f.apply(0, 2f, STEP_NANOS + 1_000_000_000L), type.name());
+        }
+    }
+
+    @Test
+    void everyFilterConvergesToAConstantTarget() {
+        for (JointFilterBank.Type type : new JointFilterBank.Type[]{
+                JointFilterBank.Type.ONE_EURO, JointFilterBank.Type.CRITICAL_DAMPED, JointFilterBank.Type.KALMAN}) {
+            JointFilterBank f = bank(type);
+            f.apply(0, 0f, 0);
+            float out = 0f;
+            for (int i = 1; i <= 120; i++) out = f.apply(0, 1f, i * STEP_NANOS);
+            assertEquals(1f, out, 1e-3f, type.name());
+        }
+    }
+
+    @Test
+    void criticallyDampedStepDoesNotOvershoot() {
+        JointFilterBank f = bank(JointFilterBank.Type.CRITICAL_DAMPED);
+        f.apply(0, 0f, 0);
+        float prev = 0f;
+        for (int i = 1; i <= 240; i++) {
+            float out = f.apply(0, 1f, i * STEP_NANOS);
+            assertTrue(out <= 1f, "overshoot at sample " + i + ": " + out);
+            assertTrue(out >= prev, "not monotonic at sample " + i);
+            prev = out;
+        }
+    }
+
+    @Test
+    void oneEuroReducesJitterOnAStillJoint() {
+        JointFilterBank f = bank(JointFilterBank.Type.ONE_EURO);
+        Random rnd = new Random(42);
+        double inVar = 0, outVar = 0;
+        int n = 600;
+        f.apply(0, 0.5f, 0);
+        for (int i = 1; i <= n; i++) {
+            float noise = (float) (rnd.nextGaussian() * 0.01);
+            float out = f.apply(0, 0.5f + noise, i * STEP_NANOS);
+            inVar += noise * noise;
+            outVar += (out - 0.5f) * (out - 0.5f);
+        }
+        assertTrue(outVar < inVar * 0.5, "output variance " + outVar / n + " vs input " + inVar / n);
+    }
+
+    @Test
+    void channelsAreIndependent() {
+        JointFilterBank.Spec d = JointFilterBank.Spec.DEFAULT;
+        JointFilterBank f = new JointFilterBank(new JointFilterBank.Spec[]{d, d});
+        f.apply(0, 0f, 0);
+        f.apply(1, 5f, 0);
+        f.apply(0, 1f, STEP_NANOS);
+        assertEquals(5f, f.apply(1, 5f, STEP_NANOS), 1e-6f);
+    }
+
+    @Test
+    void specParseKeepsBaseValuesForOmittedOptions() {
+        JointFilterBank.Spec base = JointFilterBank.Spec.DEFAULT;
+        JointFilterBank.Spec s = JointFilterBank.Spec.parse("kalman, q=10, r=0.01", base, "test");
+        assertEquals(JointFilterBank.Type.KALMAN, s.type());
+        assertEquals(10f, s.q());
+        assertEquals(0.01f, s.r());
+        assertEquals(base.minCutoff(), s.minCutoff());
+        assertEquals(base.frequency(), s.frequency());
+
+        JointFilterBank.Spec t = JointFilterBank.Spec.parse(", beta=0.2, freq=4, bogus=1, mincutoff=x", base, "test");
+        assertEquals(base.type(), t.type());
+        assertEquals(0.2f, t.beta());
+        assertEquals(4f, t.frequency());
+        assertEquals(base.minCutoff(), t.minCutoff());
+
+        assertEquals(JointFilterBank.Type.CRITICAL_DAMPED, JointFilterBank.Spec.parse("spring", base, "test").type());
+        assertEquals(JointFilterBank.Type.NONE, JointFilterBank.Spec.parse("off", base, "test").type());
+        assertEquals(base.type(), JointFilterBank.Spec.parse("butterworth", base, "test").type());
+    }
+}
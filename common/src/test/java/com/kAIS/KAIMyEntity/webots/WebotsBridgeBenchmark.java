@@ -0,0 +1,127 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import com.kAIS.KAIMyEntity.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 브리지 오프라인 벤치마크 (Minecraft/Webots 없이)
+ * - WebotsMockServer 를 띄우고 WebotsController 를 점점 높은 자세 게시 속도로 구동
+ * - 속도별 처리량(게시/전송/서버 수신 프레임/s)과 지연(queue/send/e2e p50·p99) 출력
+ *
+ * 실행: ./gradlew :common:webotsBenchmark --args="[옵션]"
+ *   --transport http|udp   (기본 http)     --rates 50,100,200,500,1000
+ *   --seconds N            속도별 측정 시간 (기본 5)
+ *   --latency MS --jitter MS --loss P --fail P --no-batch   목 서버 장애 주입
+ *   --stream-hz N          udp 전송 주기 (기본 500)   --window N   HTTP 동시 요청 수
+ */
+public final class WebotsBridgeBenchmark {
+    private WebotsBridgeBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        String transport = "http";
+        int[] rates = {50, 100, 200, 500, 1000};
+        int seconds = 5;
+        int latency = 0, jitter = 0, streamHz = 500, window = 4;
+        double loss = 0, fail = 0;
+        boolean batch = true;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--transport" -> transport = args[++i];
+                case "--rates" -> rates = parseRates(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--latency" -> latency = Integer.parseInt(args[++i]);
+                case "--jitter" -> jitter = Integer.parseInt(args[++i]);
+                case "--loss" -> loss = Double.parseDouble(args[++i]);
+                case "--fail" -> fail = Double.parseDouble(args[++i]);
+                case "--no-batch" -> batch = false;
+                case "--stream-hz" -> streamHz = Integer.parseInt(args[++i]);
+                case "--window" -> window = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        WebotsJointMap map = WebotsJointMap.load(null, WebotsJointMap.DEFAULT_NAME);
+        List<String> report = new ArrayList<>();
+        report.add(String.format(Locale.ROOT, "transport=%s latency=%d+%dms loss=%.2f fail=%.2f batch=%s",
+                transport, latency, jitter, loss, fail, batch));
+        report.add(String.format(Locale.ROOT, "%7s %9s %9s %9s %8s | %-17s | %-17s | %-17s",
+                "rate", "publish/s", "sent/s", "recv/s", "failed", "queue p50/p99", "send p50/p99", "e2e p50/p99"));
+
+        try (WebotsMockServer mock = new WebotsMockServer(0, map.motorCount(), 16)) {
+            mock.setLatency(latency, jitter).setLossRate(loss).setFailureRate(fail).setBatchSupported(batch);
+            WebotsController.Options options = new WebotsController.Options(
+                    "udp".equals(transport), mock.udpPort(), streamHz, window,
+                    null, WebotsJointMap.DEFAULT_NAME, false, 1, 2);
+            for (int rate : rates) {
+                report.add(runRate(mock, options, map, rate, seconds));
+            }
+        }
+        report.forEach(System.out::println);
+    }
+
+    private static String runRate(WebotsMockServer mock, WebotsController.Options options, WebotsJointMap map,
+                                  int rate, int seconds) throws InterruptedException {
+        WebotsController controller = WebotsController.create("127.0.0.1", mock.httpPort(), options);
+        try {
+            Thread.sleep(300); // 연결 확인 대기
+            List<String> names = new ArrayList<>();
+            for (String joint : map.supportedJoints()) {
+                if (map.entryOf(joint) >= 0) names.add(joint);
+            }
+            WebotsJointMap.Binding binding = controller.getJointMap().bind(names);
+            float[] pose = new float[names.size()];
+
+            long serverBefore = mock.httpFrames() + mock.httpCommands() + mock.udpFrames();
+            long period = TimeUnit.SECONDS.toNanos(1) / rate;
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            long next = start;
+            long published = 0;
+            while (next < end) {
+                // 매 프레임 모든 관절이 델타 임계값 이상 움직이는 자세
+                double t = (next - start) / 1e9;
+                for (int i = 0; i < pose.length; i++) {
+                    pose[i] = (float) (0.5 * Math.sin(2 * Math.PI * (t + i * 0.05)) + 0.02 * (published & 1));
+                }
+                controller.beginFrame();
+                controller.setJointPositions(binding, pose);
+                controller.flushFrame(System.nanoTime());
+                published++;
+                next += period;
+                long sleep = next - System.nanoTime();
+                if (sleep > 0) TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+            Thread.sleep(500); // 전송 중인 프레임 마무리
+            double elapsed = (System.nanoTime() - start) / 1e9 - 0.5;
+
+            WebotsController.StatsSnapshot s = controller.statsSnapshot(TimeUnit.SECONDS.toMillis(seconds + 1));
+            long received = mock.httpFrames() + mock.httpCommands() + mock.udpFrames() - serverBefore;
+            return String.format(Locale.ROOT, "%7d %9.1f %9.1f %9.1f %8d | %-17s | %-17s | %-17s",
+                    rate, published / elapsed, s.framesSent() / elapsed, received / elapsed, s.failed(),
+                    pct(s.queueWait()), pct(s.sendLatency()), pct(s.endToEnd()));
+        } finally {
+            controller.shutdown();
+        }
+    }
+
+    private static String pct(LatencyHistogram.Snapshot snap) {
+        if (snap.count() == 0) return "-";
+        return LatencyHistogram.formatMicros(snap.percentileMicros(50)) + " / "
+                + LatencyHistogram.formatMicros(snap.percentileMicros(99));
+    }
+
+    private static int[] parseRates(String csv) {
+        String[] parts = csv.split(",");
+        int[] out = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) out[i] = Integer.parseInt(parts[i].trim());
+        return out;
+    }
+}
@@ -0,0 +1,175 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * WebotsController ↔ WebotsMockServer (HTTP 경로)
+ * - set_joints 404 → set_joint 폴백, 브레이커 열림/자동 복구, 전송 실패한 값 재전송
+ * - 창 안에서 순서가 뒤바뀌어 늦게 도착한 프레임은 서버가 버림
+ */
+class WebotsControllerTest {
+    private static final long TIMEOUT_MS = 10_000;
+
+    private WebotsMockServer mock;
+    private WebotsController controller;
+    private String joint;
+    private int motor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mock = new WebotsMockServer(0, WebotsJointMap.load(null, WebotsJointMap.DEFAULT_NAME).motorCount(), 5);
+        controller = WebotsController.create("127.0.0.1", mock.httpPort(),
+                WebotsController.Options.defaults(mock.httpPort()));
+        joint = controller.getSupportedJoints()[0];
+        motor = controller.getMotorIndex(joint);
+        await("initial connection", controller::isConnected);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (controller != null) controller.shutdown();
+        if (mock != null) mock.close();
+    }
+
+    @Test
+    void fallsBackToPerJointCommandsWhenBatchIsMissing() {
+        mock.setBatchSupported(false);
+        float expected = encoded(0.05f);
+
+        controller.setJoint(joint, 0.05f);
+
+        await("target via set_joint", () -> mock.targets()[motor] == expected);
+        assertTrue(controller.getTransportName().contains("fallback"), controller.getTransportName());
+        assertTrue(mock.httpCommands() > 0);
+        assertEquals(0, mock.httpFrames());
+        assertTrue(controller.isConnected(), "404 on set_joints must not count as a failure");
+    }
+
+    @Test
+    void fallbackSendsPerJointCommandsOneAtATime() {
+        mock.setBatchSupported(false);
+        controller.setJoint(joint, 0.05f);
+        await("fallback active", () -> controller.getTransportName().contains("fallback"));
+        mock.setLatency(10, 0);
+
+        String[] joints = controller.getSupportedJoints();
+        for (int round = 0; round < 5; round++) {
+            float v = round % 2 == 0 ? 0.02f : -0.02f;
+            for (String j : joints) controller.setJoint(j, v);
+            sleep(30);
+        }
+        float expected = encoded(0.02f);     // 마지막 라운드 (round 4)
+        await("last round applied", () -> near(mock.targets()[motor], expected));
+        assertEquals(1, mock.maxConcurrentCommands(), "set_joint requests must not overlap");
+    }
+
+    @Test
+    void breakerOpensOnFailuresAndRecoversByItself() {
+        mock.setFailureRate(1.0);
+        for (int i = 0; i < 40 && controller.isConnected(); i++) {
+            controller.setJoint(joint, i % 2 == 0 ? 0.05f : -0.05f);
+            sleep(20);
+        }
+        assertFalse(controller.isConnected(), "breaker should open after repeated HTTP 500");
+
+        mock.setFailureRate(0);
+        await("breaker closed again", () -> {
+            controller.setJoint(joint, 0.05f);
+            return controller.isConnected();
+        });
+    }
+
+    @Test
+    void valueLostWhileDisconnectedIsResentWithoutNewInput() {
+        mock.setFailureRate(1.0);
+        controller.setJoint(joint, 0.05f);   // 이 값만 보내고 이후 입력 없음
+        sleep(400);                                // 실패 → 브레이커 OPEN → 메일박스 기한 초과
+        assertTrue(Float.isNaN(mock.targets()[motor]));
+
+        mock.setFailureRate(0);
+        float expected = encoded(0.05f);
+        await("lost value resent", () -> mock.targets()[motor] == expected);
+    }
+
+    @Test
+    void olderFrameArrivingLateDoesNotOverwriteNewerValue() {
+        float older = encoded(0.05f);
+        float newer = encoded(-0.05f);
+        // 브레이커가 CLOSED 가 될 때까지 (HALF_OPEN 에서는 요청 1개씩만 나감)
+        controller.setJoint(joint, 0f);
+        await("breaker closed", () -> near(mock.targets()[motor], encoded(0f)));
+        sleep(100);
+
+        mock.holdNextFrame(90);              // 클라이언트 요청 타임아웃(100ms) 안
+        controller.setJoint(joint, 0.05f);   // 이 프레임은 서버에서 늦게 적용됨
+        sleep(30);
+        controller.setJoint(joint, -0.05f);  // 창 안에서 먼저 도착
+
+        await("newer target", () -> near(mock.targets()[motor], newer));
+        sleep(200);                          // 보류된 프레임 처리 끝
+        assertTrue(near(mock.targets()[motor], newer), "late frame overwrote the newer value");
+        assertTrue(mock.httpStale() > 0);
+        assertFalse(near(older, newer));
+    }
+
+    @Test
+    void mirrorResendsWhatOnlyItFailedToReceive() throws Exception {
+        try (WebotsMockServer mirrorMock = new WebotsMockServer(0, mock.targets().length, 5)) {
+            WebotsController mirror = controller.mirrors().add("127.0.0.1", mirrorMock.httpPort());
+            await("mirror connection", mirror::isConnected);
+            mirrorMock.setFailureRate(1.0);
+            float expected = encoded(0.05f);
+            for (int i = 0; i < 20; i++) {
+                controller.setJoint(joint, 0.05f);
+                sleep(20);
+            }
+            await("primary target", () -> mock.targets()[motor] == expected);
+            assertTrue(Float.isNaN(mirrorMock.targets()[motor]));
+
+            mirrorMock.setFailureRate(0);
+            await("mirror target", () -> {
+                controller.setJoint(joint, 0.05f);   // 주 컨트롤러 기준으로는 변화 없음
+                return mirrorMock.targets()[motor] == expected;
+            });
+        }
+    }
+
+    /** 컨트롤러가 보낼 Webots 값 (scale/offset + 클램프) */
+    private float encoded(float urdfValue) {
+        WebotsJointMap m = controller.getJointMap();
+        int e = m.entryOf(joint);
+        float v = m.scale[e] * urdfValue + m.offset[e];
+        return v < m.min[e] ? m.min[e] : Math.min(v, m.max[e]);
+    }
+
+    /** 전송 값은 소수 4자리로 보냄 */
+    private static boolean near(float actual, float expected) {
+        return Math.abs(actual - expected) < 1e-3f;
+    }
+
+    private static void await(String what, BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT_MS * 1_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("timed out waiting for " + what);
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+}
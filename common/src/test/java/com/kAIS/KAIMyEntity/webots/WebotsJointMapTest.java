@@ -0,0 +1,139 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebotsJointMapTest {
+
+    private static Properties props(String... kv) {
+        Properties p = new Properties();
+        for (int i = 0; i < kv.length; i += 2) p.setProperty(kv[i], kv[i + 1]);
+        return p;
+    }
+
+    private static String parseError(Properties p) {
+        return assertThrows(IllegalArgumentException.class, () -> WebotsJointMap.parse("test", p)).getMessage();
+    }
+
+    @Test
+    void parsesJointsAliasesAndDefaults() {
+        WebotsJointMap m = WebotsJointMap.parse("test", props(
+                "motors", "A, B , C",
+                "joint.a", "A, -1, 1",
+                "joint.c", "C, -1.5, -0.1, -0.5, -0.1",
+                "alias.Cee", "c"));
+
+        assertEquals("test", m.name());
+        assertEquals(3, m.motorCount());
+        assertEquals(2, m.jointCount());
+        assertEquals("B", m.motorName(1));
+        assertEquals(0, m.motorOf("a"));
+        assertEquals(2, m.motorOf("c"));
+        assertEquals(m.entryOf("c"), m.entryOf("Cee"));
+        assertEquals(-1, m.entryOf("b"));
+
+        // scale/offset 생략 → 1, 0
+        int a = m.entryOf("a");
+        assertEquals(1f, m.scale[a]);
+        assertEquals(0f, m.offset[a]);
+        int c = m.entryOf("c");
+        assertEquals(-0.5f, m.scale[c]);
+        assertEquals(-0.1f, m.offset[c]);
+        assertEquals(-1.5f, m.min[c]);
+        assertEquals(-0.1f, m.max[c]);
+    }
+
+    @Test
+    void entryNumbersDoNotDependOnFileOrder() {
+        WebotsJointMap m = WebotsJointMap.parse("test", props(
+                "motors", "A, B",
+                "joint.z", "A, -1, 1",
+                "joint.b", "B, -1, 1"));
+        assertEquals(0, m.entryOf("b"));
+        assertEquals(1, m.entryOf("z"));
+    }
+
+    @Test
+    void rejectsTwoJointsOnOneMotor() {
+        String msg = parseError(props(
+                "motors", "A, B",
+                "joint.a", "A, -1, 1",
+                "joint.b", "A, -1, 1"));
+        assertTrue(msg.contains("joint.b: motor 'A' already driven by joint.a"), msg);
+        assertTrue(msg.contains("alias.b = a"), msg);
+    }
+
+    @Test
+    void rejectsDuplicateMotorNames() {
+        String msg = parseError(props(
+                "motors", "A, B, A",
+                "joint.a", "A, -1, 1"));
+        assertTrue(msg.contains("duplicate motor 'A'"), msg);
+    }
+
+    @Test
+    void reportsEveryErrorInOneMessage() {
+        String msg = parseError(props(
+                "motors", "A, B, C, D, E",
+                "joint.unknown", "X, -1, 1",
+                "joint.fields", "A, -1",
+                "joint.number", "B, -1, one",
+                "joint.range", "C, 1, -1",
+                "joint.scale", "D, -1, 1, 0, 0",
+                "alias.ghost", "nobody",
+                "alias.range", "number"));
+        for (String part : List.of("unknown motor 'X'", "joint.fields: expected", "joint.number:",
+                "joint.range: invalid range", "joint.scale: invalid scale/offset",
+                "alias.ghost: unknown joint 'nobody'", "no joint.* entries")) {
+            assertTrue(msg.contains(part), part + " missing in: " + msg);
+        }
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedMotorLists() {
+        assertTrue(parseError(props("joint.a", "A, -1, 1")).contains("'motors' is empty"));
+
+        StringBuilder motors = new StringBuilder("M0");
+        for (int i = 1; i <= WebotsJointMap.MAX_MOTORS; i++) motors.append(", M").append(i);
+        String msg = parseError(props("motors", motors.toString(), "joint.a", "M0, -1, 1"));
+        assertTrue(msg.contains("more than " + WebotsJointMap.MAX_MOTORS + " motors"), msg);
+    }
+
+    @Test
+    void aliasMayNotShadowAJoint() {
+        String msg = parseError(props(
+                "motors", "A, B",
+                "joint.a", "A, -1, 1",
+                "joint.b", "B, -1, 1",
+                "alias.b", "a"));
+        assertTrue(msg.contains("alias.b: 'b' is already a joint"), msg);
+    }
+
+    @Test
+    void toUrdfInvertsScaleAndClampsToRange() {
+        WebotsJointMap m = WebotsJointMap.parse("test", props(
+                "motors", "A",
+                "joint.a", "A, -1.5, -0.1, -0.5, -0.1"));
+        int e = m.entryOf("a");
+        assertEquals(1.0f, m.toUrdf(e, -0.6f), 1e-6f);
+        // 범위 밖 Webots 값 → URDF 경계값 [0, 2.8]
+        assertEquals(2.8f, m.toUrdf(e, -3f), 1e-6f);
+        assertEquals(0f, m.toUrdf(e, 1f), 1e-6f);
+        assertEquals(-2f, m.velocityToUrdf(e));
+    }
+
+    @Test
+    void builtInMapLoads() throws IOException {
+        WebotsJointMap m = WebotsJointMap.load(null, WebotsJointMap.DEFAULT_NAME);
+        assertEquals(20, m.motorCount());
+        assertEquals(m.motorOf("head_pan"), m.motorOf("Neck"));
+        assertTrue(m.jointCount() > 0);
+    }
+}
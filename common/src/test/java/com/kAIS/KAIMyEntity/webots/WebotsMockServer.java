@@ -0,0 +1,564 @@
+package com.kAIS.KAIMyEntity.webots;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Webots 없이 WebotsController 를 돌려보기 위한 테스트용 목 서버 (tools/webots/kaimyentity_bridge.py 와 같은 프로토콜)
+ * - HTTP :port    set_joint / set_joints / get_stats / lockstep / step (JDK HttpServer)
+ * - UDP  :port+1  바이너리 자세 프레임('KAIW') 수신, 구독('KAIQ') 시 상태 프레임('KAIS') 송신
+ * - 모터는 1차 지연으로 목표를 따라감 (stepMillis 주기, 록스텝이면 step 요청마다)
+ * - set_joints 는 모터별로 마지막 적용 seq 이하인 값을 버림 (sid 가 바뀌면 처음부터)
+ * - 장애 주입: 응답 지연(+지터), 손실, 실패(500), set_joints 미지원(404), 다음 set_joints 1개 보류 — 실행 중에도 변경 가능
+ *
+ * 손실: UDP 는 버림, HTTP 는 응답하지 않고 연결을 끊음 (클라이언트 쪽에서는 실패)
+ */
+public final class WebotsMockServer implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int HEADER_BYTES = 20;
+    /** 1차 지연 시정수 [s] */
+    private static final float MOTOR_TAU = 0.03f;
+    /** 같은 송신자에서 seq 가 이보다 크게 뒤로 가면 송신측 재시작으로 보고 받아들임 */
+    private static final long SEQ_REWIND = 1024;
+
+    private final int motorCount;
+    private final int stepMillis;
+    private final HttpServer http;
+    private final ExecutorService httpExecutor;
+    private final DatagramSocket udp;
+    private final Thread udpThread;
+    private final Thread simThread;
+    private volatile boolean running = true;
+
+    // 장애 주입
+    private volatile int latencyMillis = 0;
+    private volatile int jitterMillis = 0;
+    private volatile double lossRate = 0;
+    private volatile double failureRate = 0;
+    private volatile boolean batchSupported = true;
+    private final AtomicInteger holdNextFrameMillis = new AtomicInteger();
+
+    // 시뮬레이션 상태 (simLock)
+    private final Object simLock = new Object();
+    private final float[] target;
+    private final float[] position;
+    private final float[] velocity;
+    private long simNanos = 0;
+    private long lastPoseSeq = -1;
+    private SocketAddress poseSource;
+    private final long[] httpSeq;      // 모터별 마지막 적용 set_joints seq (-1 = 없음)
+    private String httpSession;
+    private boolean lockstep = false;
+    private long nextStepSeq = 1;
+    private final Map<Long, StepRequest> stepRequests = new HashMap<>();
+
+    private volatile SocketAddress subscriber;
+    private volatile long subscriberSeenNanos;
+    private long stateSeq = 0;
+
+    // 통계
+    private final LongAdder httpCommands = new LongAdder();
+    private final LongAdder httpFrames = new LongAdder();
+    private final LongAdder httpDropped = new LongAdder();
+    private final LongAdder httpFailed = new LongAdder();
+    private final LongAdder httpStale = new LongAdder();
+    private final AtomicInteger activeCommands = new AtomicInteger();      // 처리 중인 set_joint
+    private final AtomicInteger maxActiveCommands = new AtomicInteger();
+    private final LongAdder httpSeqResets = new LongAdder();
+    private final LongAdder udpFrames = new LongAdder();
+    private final LongAdder udpDropped = new LongAdder();
+    private final LongAdder udpBad = new LongAdder();
+    private final LongAdder udpOutOfOrder = new LongAdder();
+    private final LongAdder udpSeqResets = new LongAdder();
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder stateFrames = new LongAdder();
+
+    private static final class StepRequest {
+        final int n;
+        final int[] indices;
+        final float[] values;
+        byte[] payload;
+        boolean done;
+
+        StepRequest(int n, int[] indices, float[] values) {
+            this.n = n;
+            this.indices = indices;
+            this.values = values;
+        }
+    }
+
+    /**
+     * @param port       HTTP 포트 (UDP 는 port + 1), 0 이면 임의 포트 (UDP 도 임의)
+     * @param motorCount 모터 수
+     * @param stepMillis 시뮬레이션 스텝 [ms]
+     */
+    public WebotsMockServer(int port, int motorCount, int stepMillis) throws IOException {
+        this.motorCount = motorCount;
+        this.stepMillis = Math.max(1, stepMillis);
+        this.target = new float[motorCount];
+        this.position = new float[motorCount];
+        this.velocity = new float[motorCount];
+        Arrays.fill(target, Float.NaN);
+        this.httpSeq = new long[motorCount];
+        Arrays.fill(httpSeq, -1);
+
+        // 작은 응답에서 Nagle + delayed ACK 로 ~40ms 가 붙는 것 방지 (HttpServer 최초 사용 전에만 유효)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.http = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 64);
+        this.httpExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "WebotsMock-HTTP");
+            t.setDaemon(true);
+            return t;
+        });
+        http.setExecutor(httpExecutor);
+        http.createContext("/", this::handle);
+        this.udp = new DatagramSocket(port == 0 ? 0 : port + 1);
+
+        this.udpThread = new Thread(this::udpLoop, "WebotsMock-UDP");
+        this.udpThread.setDaemon(true);
+        this.simThread = new Thread(this::simLoop, "WebotsMock-Sim");
+        this.simThread.setDaemon(true);
+
+        http.start();
+        udpThread.start();
+        simThread.start();
+        LOGGER.info("✅ Webots mock server: http :{} udp :{} ({} motors, {}ms step)",
+                httpPort(), udpPort(), motorCount, this.stepMillis);
+    }
+
+    public int httpPort() { return http.getAddress().getPort(); }
+    public int udpPort() { return udp.getLocalPort(); }
+
+    // ==================== 장애 주입 ====================
+
+    /** HTTP 응답 지연 = latency + [0, jitter) ms */
+    public WebotsMockServer setLatency(int latencyMillis, int jitterMillis) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        return this;
+    }
+
+    /** 요청/프레임 손실 확률 (0..1) */
+    public WebotsMockServer setLossRate(double lossRate) {
+        this.lossRate = lossRate;
+        return this;
+    }
+
+    /** HTTP 500 응답 확률 (0..1) */
+    public WebotsMockServer setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /** false 면 set_joints 에 404 (클라이언트 관절별 폴백 확인용) */
+    public WebotsMockServer setBatchSupported(boolean batchSupported) {
+        this.batchSupported = batchSupported;
+        return this;
+    }
+
+    /** 다음 set_joints 요청 1개를 millis 만큼 더 늦게 적용 (뒤따른 프레임이 먼저 도착하는 상황) */
+    public WebotsMockServer holdNextFrame(int millis) {
+        holdNextFrameMillis.set(Math.max(0, millis));
+        return this;
+    }
+
+    // ==================== HTTP ====================
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            if (lossRate > 0 && rnd.nextDouble() < lossRate) {
+                httpDropped.increment();
+                return; // 응답 없이 닫음
+            }
+            boolean command = ex.getRequestURI().getRawQuery() != null
+                    && ex.getRequestURI().getRawQuery().contains("command=set_joint&");
+            if (command) maxActiveCommands.accumulateAndGet(activeCommands.incrementAndGet(), Math::max);
+            int delay = latencyMillis + (jitterMillis > 0 ? rnd.nextInt(jitterMillis) : 0);
+            try {
+                if (delay > 0) sleepQuietly(delay);
+            } finally {
+                if (command) activeCommands.decrementAndGet();
+            }
+            if (failureRate > 0 && rnd.nextDouble() < failureRate) {
+                httpFailed.increment();
+                reply(ex, 500, "{\"error\":\"injected failure\"}");
+                return;
+            }
+
+            Map<String, String> q = parseQuery(ex.getRequestURI().getRawQuery());
+            String cmd = q.getOrDefault("command", "");
+            try {
+                switch (cmd) {
+                    case "set_joint" -> {
+                        applyTargets(new int[]{Integer.parseInt(q.get("index"))},
+                                new float[]{Float.parseFloat(q.get("value"))});
+                        httpCommands.increment();
+                        reply(ex, 200, "{\"ok\":true}");
+                    }
+                    case "set_joints" -> {
+                        if (!batchSupported) {
+                            reply(ex, 404, "{\"error\":\"unknown command: set_joints\"}");
+                            return;
+                        }
+                        int hold = holdNextFrameMillis.getAndSet(0);
+                        if (hold > 0) sleepQuietly(hold);
+                        applyFrame(q.get("sid"), Long.parseLong(q.getOrDefault("seq", "-1")),
+                                parseInts(q.get("idx")), parseFloats(q.get("val")));
+                        httpFrames.increment();
+                        reply(ex, 200, "{\"ok\":true}");
+                    }
+                    case "get_stats" -> reply(ex, 200, statsJson());
+                    case "lockstep" -> {
+                        setLockstep("1".equals(q.getOrDefault("on", "1")));
+                        reply(ex, 200, "{\"ok\":true,\"lockstep\":" + lockstep + "}");
+                    }
+                    case "step" -> handleStep(ex, q);
+                    default -> reply(ex, 400, "{\"error\":\"unknown command: " + cmd + "\"}");
+                }
+            } catch (RuntimeException e) {
+                reply(ex, 400, "{\"error\":\"" + e.getClass().getSimpleName() + "\"}");
+            }
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void handleStep(HttpExchange ex, Map<String, String> q) throws IOException {
+        long seq = Long.parseLong(q.get("seq"));
+        StepRequest req = new StepRequest(Math.max(1, Integer.parseInt(q.getOrDefault("n", "1"))),
+                parseInts(q.get("idx")), parseFloats(q.get("val")));
+        byte[] payload;
+        synchronized (simLock) {
+            if (!lockstep || seq < nextStepSeq) {
+                payload = null;
+            } else {
+                stepRequests.put(seq, req);
+                // 순서대로 실행 가능한 요청은 이 스레드에서 바로 처리
+                runReadyStepsLocked();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (!req.done && lockstep && System.nanoTime() < deadline) {
+                    try {
+                        simLock.wait(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                payload = req.payload;
+            }
+        }
+        if (payload == null) {
+            reply(ex, lockstep ? 504 : 409, "{\"error\":\"step " + seq + " not executed\"}");
+            return;
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        ex.sendResponseHeaders(200, payload.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(payload);
+        }
+    }
+
+    private void runReadyStepsLocked() {
+        StepRequest req;
+        while ((req = stepRequests.remove(nextStepSeq)) != null) {
+            applyTargetsLocked(req.indices, req.values);
+            for (int k = 0; k < req.n; k++) stepLocked();
+            req.payload = stateFrameLocked(nextStepSeq);
+            req.done = true;
+            nextStepSeq++;
+        }
+        simLock.notifyAll();
+    }
+
+    private void setLockstep(boolean on) {
+        synchronized (simLock) {
+            lockstep = on;
+            stepRequests.clear();
+            nextStepSeq = 1;
+            simLock.notifyAll();
+        }
+    }
+
+    private static void reply(HttpExchange ex, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private String statsJson() {
+        return "{\"http_commands\":" + httpCommands.sum()
+                + ",\"http_frames\":" + httpFrames.sum()
+                + ",\"http_dropped\":" + httpDropped.sum()
+                + ",\"http_failed\":" + httpFailed.sum()
+                + ",\"http_stale\":" + httpStale.sum()
+                + ",\"http_seq_resets\":" + httpSeqResets.sum()
+                + ",\"udp_frames\":" + udpFrames.sum()
+                + ",\"udp_dropped\":" + udpDropped.sum()
+                + ",\"udp_bad\":" + udpBad.sum()
+                + ",\"udp_out_of_order\":" + udpOutOfOrder.sum()
+                + ",\"udp_seq_resets\":" + udpSeqResets.sum()
+                + ",\"steps\":" + steps.sum()
+                + ",\"state_frames\":" + stateFrames.sum() + "}";
+    }
+
+    // ==================== UDP ====================
+
+    private void udpLoop() {
+        byte[] buffer = new byte[4096];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (running) {
+            try {
+                packet.setLength(buffer.length);
+                udp.receive(packet);
+                onDatagram(ByteBuffer.wrap(buffer, 0, packet.getLength()), packet.getLength(),
+                        packet.getSocketAddress());
+            } catch (SocketException e) {
+                if (running) LOGGER.warn("Mock UDP error: {}", e.getMessage());
+            } catch (IOException e) {
+                LOGGER.warn("Mock UDP error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void onDatagram(ByteBuffer bb, int length, SocketAddress from) {
+        if (length >= 6 && bb.getInt(0) == WebotsStateReceiver.MAGIC_SUBSCRIBE) {
+            subscriber = from;
+            subscriberSeenNanos = System.nanoTime();
+            return;
+        }
+        if (length < HEADER_BYTES || bb.getInt(0) != WebotsStreamTransport.MAGIC) {
+            udpBad.increment();
+            return;
+        }
+        int count = Short.toUnsignedInt(bb.getShort(16));
+        if (length < HEADER_BYTES + 4 * count) {
+            udpBad.increment();
+            return;
+        }
+        if (lossRate > 0 && ThreadLocalRandom.current().nextDouble() < lossRate) {
+            udpDropped.increment();
+            return;
+        }
+        long seq = Integer.toUnsignedLong(bb.getInt(4));
+        synchronized (simLock) {
+            // seq 는 u32 wrap: 뒤처진 프레임은 버림
+            // 새 송신자(클라이언트 재시작/컨트롤러 재생성 = 새 소켓)나 큰 역행이면 seq 를 처음부터
+            if (!from.equals(poseSource)) {
+                if (poseSource != null) udpSeqResets.increment();
+                poseSource = from;
+            } else if (lastPoseSeq >= 0 && ((seq - lastPoseSeq) & 0xFFFFFFFFL) >= 0x80000000L) {
+                if (((lastPoseSeq - seq) & 0xFFFFFFFFL) <= SEQ_REWIND) {
+                    udpOutOfOrder.increment();
+                    return;
+                }
+                udpSeqResets.increment();
+            }
+            lastPoseSeq = seq;
+            for (int i = 0; i < Math.min(count, motorCount); i++) {
+                float v = bb.getFloat(HEADER_BYTES + 4 * i);
+                if (!Float.isNaN(v)) target[i] = v;
+            }
+        }
+        udpFrames.increment();
+    }
+
+    // ==================== 시뮬레이션 ====================
+
+    private void simLoop() {
+        long period = TimeUnit.MILLISECONDS.toNanos(stepMillis);
+        long next = System.nanoTime();
+        while (running) {
+            next += period;
+            byte[] state = null;
+            synchronized (simLock) {
+                if (!lockstep) {
+                    stepLocked();
+                    if (subscriber != null) state = stateFrameLocked(++stateSeq);
+                }
+            }
+            if (state != null) sendState(state);
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                sleepQuietly(TimeUnit.NANOSECONDS.toMillis(sleep));
+            } else {
+                next = System.nanoTime(); // 밀리면 따라잡지 않음
+            }
+        }
+    }
+
+    private void stepLocked() {
+        float dt = stepMillis / 1000f;
+        float alpha = 1f - (float) Math.exp(-dt / MOTOR_TAU);
+        for (int i = 0; i < motorCount; i++) {
+            if (Float.isNaN(target[i])) {
+                velocity[i] = 0f;
+                continue;
+            }
+            float next = position[i] + alpha * (target[i] - position[i]);
+            velocity[i] = (next - position[i]) / dt;
+            position[i] = next;
+        }
+        simNanos += TimeUnit.MILLISECONDS.toNanos(stepMillis);
+        steps.increment();
+    }
+
+    private void sendState(byte[] state) {
+        SocketAddress to = subscriber;
+        if (to == null) return;
+        if (System.nanoTime() - subscriberSeenNanos > TimeUnit.SECONDS.toNanos(3)) {
+            subscriber = null;
+            return;
+        }
+        try {
+            udp.send(new DatagramPacket(state, state.length, to));
+            stateFrames.increment();
+        } catch (IOException e) {
+            subscriber = null;
+        }
+    }
+
+    /** 상태 프레임 ('KAIS', IMU/발 센서 없음) */
+    private byte[] stateFrameLocked(long seq) {
+        ByteBuffer bb = ByteBuffer.allocate(HEADER_BYTES + 8 * motorCount);
+        bb.putInt(WebotsStateReceiver.MAGIC_STATE);
+        bb.putInt((int) seq);
+        bb.putLong(simNanos);
+        bb.putShort((short) motorCount);
+        bb.putShort((short) 0);
+        for (int i = 0; i < motorCount; i++) bb.putFloat(position[i]);
+        for (int i = 0; i < motorCount; i++) bb.putFloat(velocity[i]);
+        return bb.array();
+    }
+
+    /**
+     * set_joints 적용: 모터별로 마지막 적용 seq 이하면 버림 (창 안의 요청이 뒤바뀌어 도착해도 새 값 유지)
+     * - sid 가 바뀌면 (클라이언트 재시작) seq 를 처음부터, seq 없으면 그대로 적용
+     */
+    private void applyFrame(String sid, long seq, int[] indices, float[] values) {
+        synchronized (simLock) {
+            if (seq < 0) {
+                applyTargetsLocked(indices, values);
+                return;
+            }
+            if (sid != null && !sid.equals(httpSession)) {
+                if (httpSession != null) httpSeqResets.increment();
+                httpSession = sid;
+                Arrays.fill(httpSeq, -1);
+            }
+            boolean stale = false;
+            for (int k = 0; k < Math.min(indices.length, values.length); k++) {
+                int i = indices[k];
+                if (i < 0 || i >= motorCount) continue;
+                long last = httpSeq[i];
+                if (last >= 0 && seq <= last && last - seq <= SEQ_REWIND) {
+                    stale = true;
+                    continue;
+                }
+                httpSeq[i] = seq;
+                if (!Float.isNaN(values[k])) target[i] = values[k];
+            }
+            if (stale) httpStale.increment();
+        }
+    }
+
+    private void applyTargets(int[] indices, float[] values) {
+        synchronized (simLock) {
+            applyTargetsLocked(indices, values);
+        }
+    }
+
+    private void applyTargetsLocked(int[] indices, float[] values) {
+        for (int k = 0; k < Math.min(indices.length, values.length); k++) {
+            int i = indices[k];
+            if (i >= 0 && i < motorCount && !Float.isNaN(values[k])) target[i] = values[k];
+        }
+    }
+
+    // ==================== 유틸리티 ====================
+
+    /** 현재 목표값 (검증용 복사본, NaN = 아직 명령 없음) */
+    public float[] targets() {
+        synchronized (simLock) {
+            return target.clone();
+        }
+    }
+
+    public long httpCommands() { return httpCommands.sum(); }
+    public long httpFrames() { return httpFrames.sum(); }
+    public long httpStale() { return httpStale.sum(); }
+    /** 동시에 처리 중이던 set_joint 요청 수의 최댓값 */
+    public int maxConcurrentCommands() { return maxActiveCommands.get(); }
+    public long udpFrames() { return udpFrames.sum(); }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> q = new HashMap<>();
+        if (raw == null) return q;
+        for (String part : raw.split("&")) {
+            int eq = part.indexOf('=');
+            if (eq <= 0) continue;
+            q.put(URLDecoder.decode(part.substring(0, eq), StandardCharsets.UTF_8),
+                  URLDecoder.decode(part.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return q;
+    }
+
+    private static int[] parseInts(String csv) {
+        if (csv == null || csv.isEmpty()) return new int[0];
+        return Arrays.stream(csv.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static float[] parseFloats(String csv) {
+        if (csv == null || csv.isEmpty()) return new float[0];
+        String[] parts = csv.split(",");
+        float[] out = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) out[i] = Float.parseFloat(parts[i]);
+        return out;
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        http.stop(0);
+        httpExecutor.shutdownNow();
+        udp.close();
+        simThread.interrupt();
+        LOGGER.info("✅ Webots mock server closed");
+    }
+}
@@ -7,6 +7,7 @@ public final class KAIMyEntityConfig {
     public static ForgeConfigSpec.BooleanValue openGLEnableLighting;
     public static ForgeConfigSpec.IntValue modelPoolMaxCount;
     public static ForgeConfigSpec.BooleanValue isMMDShaderEnabled;
+    public static ForgeConfigSpec.BooleanValue hotReload;
 
     static {
         ForgeConfigSpec.Builder builder = new ForgeConfigSpec.Builder();
@@ -14,6 +15,7 @@ public final class KAIMyEntityConfig {
         openGLEnableLighting = builder.define("openGLEnableLighting", true);
         modelPoolMaxCount = builder.defineInRange("modelPoolMaxCount", 20, 0, 100);
         isMMDShaderEnabled = builder.define("isMMDShaderEnabled", false);
+        hotReload = builder.define("hotReload", true);
         builder.pop();
         config = builder.build();
     }
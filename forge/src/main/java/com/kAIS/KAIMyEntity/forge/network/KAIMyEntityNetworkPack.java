@@ -57,7 +57,7 @@ public class KAIMyEntityNetworkPack {
             return;
         switch (opCode) {
             case 1: {
-                MMDModelManager.Model m = MMDModelManager.GetModel("EntityPlayer_" + MCinstance.player.getName().getString());
+                MMDModelManager.Model m = MMDModelManager.GetModelNonBlocking("EntityPlayer_" + MCinstance.player.getName().getString());
                 assert MCinstance.level != null;
                 Player target = MCinstance.level.getPlayerByUUID(playerUUID);
                 if (m != null && target != null)
@@ -65,7 +65,7 @@ public class KAIMyEntityNetworkPack {
                 break;
             }
             case 2: {
-                MMDModelManager.Model m = MMDModelManager.GetModel("EntityPlayer_" + MCinstance.player.getName().getString());
+                MMDModelManager.Model m = MMDModelManager.GetModelNonBlocking("EntityPlayer_" + MCinstance.player.getName().getString());
                 assert MCinstance.level != null;
                 Player target = MCinstance.level.getPlayerByUUID(playerUUID);
                 if (m != null && target != null)
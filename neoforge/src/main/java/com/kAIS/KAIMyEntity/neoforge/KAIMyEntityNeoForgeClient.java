@@ -4,6 +4,8 @@ import com.kAIS.KAIMyEntity.KAIMyEntity;
 import com.kAIS.KAIMyEntity.KAIMyEntityClient;
 import com.kAIS.KAIMyEntity.neoforge.config.KAIMyEntityConfig;
 import com.kAIS.KAIMyEntity.neoforge.register.KAIMyEntityRegisterClient;
+import com.kAIS.KAIMyEntity.renderer.MMDModelManager;
+import com.kAIS.KAIMyEntity.renderer.ModelHotReloader;
 
 import net.neoforged.api.distmarker.Dist;
 import net.neoforged.bus.api.SubscribeEvent;
@@ -17,6 +19,9 @@ public class KAIMyEntityNeoForgeClient {
     public static void clientSetup(FMLClientSetupEvent event) {
         KAIMyEntityClient.logger.info("KAIMyEntity InitClient begin...");
         KAIMyEntityClient.initClient();
+        MMDModelManager.setPoolMaxCount(KAIMyEntityConfig.modelPoolMaxCount.get());
+        MMDModelManager.Preload(); // ✅ 첫 렌더 전에 백그라운드 로드
+        if (KAIMyEntityConfig.hotReload.get()) ModelHotReloader.start(); // ✅ 바뀐 모델만 다시 로드
         KAIMyEntityRegisterClient.Register();
         KAIMyEntityClient.logger.info("KAIMyEntity InitClient successful (URDF only).");
     }
@@ -7,6 +7,7 @@ public final class KAIMyEntityConfig {
     public static ModConfigSpec.BooleanValue openGLEnableLighting;
     public static ModConfigSpec.IntValue modelPoolMaxCount;
     public static ModConfigSpec.BooleanValue isMMDShaderEnabled;
+    public static ModConfigSpec.BooleanValue hotReload;
 
     static {
         ModConfigSpec.Builder builder = new ModConfigSpec.Builder();
@@ -14,6 +15,7 @@ public final class KAIMyEntityConfig {
         openGLEnableLighting = builder.define("openGLEnableLighting", true);
         modelPoolMaxCount = builder.defineInRange("modelPoolMaxCount", 20, 0, 100);
         isMMDShaderEnabled = builder.define("isMMDShaderEnabled", false);
+        hotReload = builder.define("hotReload", true);
         builder.pop();
         config = builder.build();
     }
@@ -52,7 +52,7 @@ public record KAIMyEntityNetworkPack(int opCode, GameProfile profile, int custom
         switch (pack.opCode) {
             case 1: {
                 RenderSystem.recordRenderCall(()->{
-                MMDModelManager.Model m = MMDModelManager.GetModel("EntityPlayer_" + targetPlayer.getName().getString());
+                MMDModelManager.Model m = MMDModelManager.GetModelNonBlocking("EntityPlayer_" + targetPlayer.getName().getString());
                 if (m != null)
                     KAIMyEntityRendererPlayerHelper.CustomAnim(targetPlayer, Integer.toString(pack.customAnimId));
                 });
@@ -60,7 +60,7 @@ public record KAIMyEntityNetworkPack(int opCode, GameProfile profile, int custom
             }
             case 2: {
                 RenderSystem.recordRenderCall(()->{
-                MMDModelManager.Model m = MMDModelManager.GetModel("EntityPlayer_" + targetPlayer.getName().getString());
+                MMDModelManager.Model m = MMDModelManager.GetModelNonBlocking("EntityPlayer_" + targetPlayer.getName().getString());
                 if (m != null)
                     KAIMyEntityRendererPlayerHelper.ResetPhysics(targetPlayer);
                 });
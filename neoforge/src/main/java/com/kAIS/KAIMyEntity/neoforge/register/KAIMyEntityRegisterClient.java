@@ -2,6 +2,7 @@ package com.kAIS.KAIMyEntity.neoforge.register;
 
 import com.kAIS.KAIMyEntity.renderer.KAIMyEntityRendererPlayerHelper;
 import com.kAIS.KAIMyEntity.renderer.MMDModelManager;
+import com.kAIS.KAIMyEntity.renderer.ModelBindings;
 
 // URDF 쪽
 import com.kAIS.KAIMyEntity.neoforge.ClientTickLoop;
@@ -42,7 +43,7 @@ import java.util.Objects;
  * - Ctrl+G: URDF 리로드 + 자동 로드 시도
  * - H: 물리 리셋
  * - K: VMC 매핑 에디터 열기
- * - T: Webots 통계 출력 (디버깅용)
+ * - T: Webots / 모델 풀 통계 출력 (디버깅용)
  * - Y: Webots T-Pose 테스트
  * - U: Webots 설정 GUI ✅ 추가
  */
@@ -131,7 +132,7 @@ public class KAIMyEntityRegisterClient {
 
         // ==== H: 물리 리셋 ====
         if (keyResetPhysics.isDown()) {
-            var m = MMDModelManager.GetModel("EntityPlayer_" + player.getName().getString());
+            var m = MMDModelManager.GetModelNonBlocking("EntityPlayer_" + player.getName().getString());
             if (m != null) {
                 KAIMyEntityRendererPlayerHelper.ResetPhysics(player);
                 net.neoforged.neoforge.network.PacketDistributor.sendToServer(
@@ -144,6 +145,7 @@ public class KAIMyEntityRegisterClient {
         if (keyWebotsStats.consumeClick()) {
             try {
                 WebotsController.getInstance().printStats();
+                MMDModelManager.logPoolStats();
                 MC.gui.getChat().addMessage(Component.literal("§a[Webots] Stats printed to console"));
             } catch (Exception e) {
                 MC.gui.getChat().addMessage(Component.literal("§c[Webots] Error: " + e.getMessage()));
@@ -163,7 +165,7 @@ public class KAIMyEntityRegisterClient {
 
     // === 커스텀 애니메이션 처리 ===
     private static void handleCustomAnim(LocalPlayer player) {
-        var m = MMDModelManager.GetModel("EntityPlayer_" + player.getName().getString());
+        var m = MMDModelManager.GetModelNonBlocking("EntityPlayer_" + player.getName().getString());
         if (m == null) return;
         if (keyCustomAnim1.isDown()) sendAnim(player, 1);
         if (keyCustomAnim2.isDown()) sendAnim(player, 2);
@@ -182,7 +184,8 @@ public class KAIMyEntityRegisterClient {
         try {
             var webots = WebotsController.getInstance();
             
-            // T-Pose 자세 전송
+            // T-Pose 자세 전송 (한 프레임)
+            webots.beginFrame();
             webots.setJoint("r_sho_pitch", 0.3f);   // 오른쪽 어깨 앞으로 약간
             webots.setJoint("r_sho_roll", 1.57f);   // 오른팔 벌리기 (90도)
             webots.setJoint("r_el", -0.1f);         // 팔꿈치 살짝 구부림
@@ -190,6 +193,7 @@ public class KAIMyEntityRegisterClient {
             webots.setJoint("l_sho_pitch", 0.3f);   // 왼쪽 어깨
             webots.setJoint("l_sho_roll", -1.57f);  // 왼팔 벌리기
             webots.setJoint("l_el", -0.1f);
+            webots.flushFrame();
             
             mc.gui.getChat().addMessage(Component.literal("§a[Webots] T-Pose sent! Check Webots simulation."));
             
@@ -219,6 +223,7 @@ public class KAIMyEntityRegisterClient {
             return;
         }
         ClientTickLoop.renderer = r;
+        ModelBindings.setActiveRenderer(r); // 플레이어 렌더 믹스인이 리플렉션 없이 참조
         mc.gui.getChat().addMessage(Component.literal("[URDF] Active renderer set: " + urdf.getName()));
     }
 
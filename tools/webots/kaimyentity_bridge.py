@@ -0,0 +1,391 @@
+"""
+KAIMyEntity <-> Webots bridge (reference robot controller)
+
+Run as the controller of a Darwin-OP robot in Webots. It listens on:
+  - HTTP  :PORT       ?command=set_joint&index=I&value=V
+                      ?command=set_joints&sid=S&seq=N&idx=I,I,..&val=V,V,..
+                      ?command=get_stats
+                      ?command=lockstep&on=1|0
+                      ?command=step&seq=N&n=STEPS&flags=F&idx=..&val=..
+  - UDP   :PORT+1     binary pose frames (WebotsStreamTransport)
+                      state subscription (WebotsStateReceiver)
+
+UDP pose frame (big-endian):
+  magic u32 'KAIW' | seq u32 | stamp i64 | count u16 | flags u16 | f32[count]
+  NaN = leave that motor unchanged. Frames older than the last one are dropped;
+  a new sender address or a backward jump of more than SEQ_REWIND starts the
+  sequence over. The client resends its full pose as a keyframe every second,
+  so a lost frame is repaired without a retransmit.
+
+HTTP set_joints: the client keeps several requests in flight over separate
+connections, so they can arrive out of order. A motor value whose seq is not
+newer than the last one applied to that motor is dropped (stats http_stale).
+A new sid (client session) starts the sequence over.
+
+State subscription: the client sends magic u32 'KAIQ' | flags u16 at least every
+few seconds; every simulation step the bridge answers with
+  magic u32 'KAIS' | seq u32 | sim time ns i64 | count u16 | flags u16
+  f32 position[count] | f32 velocity[count]
+  [flags & 1] f32 imu[9] roll pitch yaw, gyro xyz, accel xyz
+  [flags & 2] f32 foot[2] left right
+
+Lockstep: while on, the simulation only advances on step requests. Each step
+applies its action, runs n simulation steps and answers with one state frame
+(same layout as above, application/octet-stream). Requests are executed in seq
+order starting at 1, so clients may pipeline several ahead.
+
+Usage (controllerArgs in the .wbt): kaimyentity_bridge.py [port]
+"""
+
+import json
+import math
+import socket
+import struct
+import sys
+import threading
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+from urllib.parse import parse_qs, urlparse
+
+from controller import Robot
+
+MOTOR_NAMES = [
+    "ShoulderR", "ShoulderL", "ArmUpperR", "ArmUpperL", "ArmLowerR", "ArmLowerL",
+    "PelvYR", "PelvYL", "PelvR", "PelvL",
+    "LegUpperR", "LegUpperL", "LegLowerR", "LegLowerL",
+    "AnkleR", "AnkleL", "FootR", "FootL",
+    "Neck", "Head",
+]
+
+MAGIC = 0x4B414957
+MAGIC_STATE = 0x4B414953
+MAGIC_SUBSCRIBE = 0x4B414951
+HEADER = struct.Struct(">IIqHH")
+FLAG_IMU = 1
+FLAG_FOOT = 2
+SUBSCRIPTION_TIMEOUT = 3.0
+# 같은 송신자에서 seq 가 이보다 크게 뒤로 가면 송신측이 다시 시작한 것으로 보고 받아들임
+SEQ_REWIND = 1024
+STEP_TIMEOUT = 10.0
+
+
+def optional_device(robot, name):
+    for i in range(robot.getNumberOfDevices()):
+        if robot.getDeviceByIndex(i).getName() == name:
+            return robot.getDeviceByIndex(i)
+    return None
+
+
+class StepRequest:
+    def __init__(self, seq, n, flags, indices, values):
+        self.seq = seq
+        self.n = n
+        self.flags = flags
+        self.indices = indices
+        self.values = values
+        self.payload = None
+        self.done = threading.Event()
+
+
+class Bridge:
+    def __init__(self, robot):
+        self.robot = robot
+        self.motors = [robot.getDevice(n) for n in MOTOR_NAMES]
+        self.lock = threading.Lock()
+        self.targets = [None] * len(MOTOR_NAMES)
+        time_step = int(robot.getBasicTimeStep())
+        self.sensors = []
+        for m in self.motors:
+            ps = m.getPositionSensor()
+            if ps is not None:
+                ps.enable(time_step)
+            self.sensors.append(ps)
+        self.inertial = optional_device(robot, "InertialUnit")
+        self.gyro = optional_device(robot, "Gyro")
+        self.accel = optional_device(robot, "Accelerometer")
+        self.feet = [optional_device(robot, "TouchSensorL"), optional_device(robot, "TouchSensorR")]
+        for d in [self.inertial, self.gyro, self.accel] + self.feet:
+            if d is not None:
+                d.enable(time_step)
+        self.prev_positions = None
+        self.sock = None
+        self.subscriber = None
+        self.subscriber_flags = 0
+        self.subscriber_seen = 0.0
+        self.pose_source = None
+        self.http_session = None
+        self.http_seq = [-1] * len(MOTOR_NAMES)
+        self.state_seq = 0
+        self.positions = [0.0] * len(self.motors)
+        self.velocities = [0.0] * len(self.motors)
+        self.lockstep = False
+        self.step_cv = threading.Condition()
+        self.step_requests = {}
+        self.next_step_seq = 1
+        self.stats = {
+            "http_commands": 0,
+            "http_frames": 0,
+            "udp_frames": 0,
+            "udp_bad": 0,
+            "udp_out_of_order": 0,
+            "udp_seq_resets": 0,
+            "http_stale": 0,
+            "http_seq_resets": 0,
+            "last_seq": -1,
+            "steps": 0,
+            "state_frames": 0,
+            "lockstep_actions": 0,
+        }
+
+    # ---- 입력 ----
+    def set_target(self, index, value):
+        if 0 <= index < len(self.motors) and not math.isnan(value):
+            self.targets[index] = value
+
+    def apply_frame(self, indices, values):
+        with self.lock:
+            for i, v in zip(indices, values):
+                self.set_target(i, v)
+
+    def apply_http_frame(self, sid, seq, indices, values):
+        # 여러 연결로 동시에 온 set_joints: 모터별로 마지막 적용 seq 이하면 버림 (늦게 온 옛 프레임)
+        # sid 가 바뀌면 (클라이언트 재시작) seq 를 처음부터
+        with self.lock:
+            if sid is not None and sid != self.http_session:
+                if self.http_session is not None:
+                    self.stats["http_seq_resets"] += 1
+                self.http_session = sid
+                self.http_seq = [-1] * len(self.motors)
+            stale = False
+            for i, v in zip(indices, values):
+                if not 0 <= i < len(self.motors):
+                    continue
+                last = self.http_seq[i]
+                if last >= 0 and seq <= last and last - seq <= SEQ_REWIND:
+                    stale = True
+                    continue
+                self.http_seq[i] = seq
+                self.set_target(i, v)
+            if stale:
+                self.stats["http_stale"] += 1
+
+    def on_datagram(self, data, addr):
+        if len(data) >= 6 and struct.unpack_from(">I", data)[0] == MAGIC_SUBSCRIBE:
+            self.subscriber = addr
+            self.subscriber_flags = struct.unpack_from(">H", data, 4)[0]
+            self.subscriber_seen = time.monotonic()
+            return
+        if len(data) < HEADER.size:
+            self.stats["udp_bad"] += 1
+            return
+        magic, seq, _stamp, count, _flags = HEADER.unpack_from(data)
+        if magic != MAGIC or len(data) < HEADER.size + 4 * count:
+            self.stats["udp_bad"] += 1
+            return
+        # seq 는 u32 wrap: 뒤처진 프레임은 버림
+        # 새 송신자(클라이언트 재시작/컨트롤러 재생성 = 새 소켓)나 큰 역행이면 seq 를 처음부터
+        last = self.stats["last_seq"]
+        if addr != self.pose_source:
+            if self.pose_source is not None:
+                self.stats["udp_seq_resets"] += 1
+            self.pose_source = addr
+        elif last >= 0 and ((seq - last) & 0xFFFFFFFF) >= 0x80000000:
+            if ((last - seq) & 0xFFFFFFFF) <= SEQ_REWIND:
+                self.stats["udp_out_of_order"] += 1
+                return
+            self.stats["udp_seq_resets"] += 1
+        self.stats["last_seq"] = seq
+        values = struct.unpack_from(">%df" % count, data, HEADER.size)
+        with self.lock:
+            for i, v in enumerate(values):
+                self.set_target(i, v)
+        self.stats["udp_frames"] += 1
+
+    # ---- 시뮬레이션 스텝 ----
+    def step(self, time_step):
+        with self.lock:
+            pending = self.targets
+            self.targets = [None] * len(self.motors)
+        for motor, v in zip(self.motors, pending):
+            if v is not None:
+                motor.setPosition(v)
+        self.stats["steps"] += 1
+        result = self.robot.step(time_step)
+        self.sample_state(time_step)
+        self.send_state()
+        return result
+
+    # ---- 상태 피드백 ----
+    def sample_state(self, time_step):
+        positions = [ps.getValue() if ps is not None else float("nan") for ps in self.sensors]
+        dt = time_step / 1000.0
+        if self.prev_positions is None:
+            self.velocities = [0.0] * len(positions)
+        else:
+            self.velocities = [(p - q) / dt for p, q in zip(positions, self.prev_positions)]
+        self.prev_positions = positions
+        self.positions = positions
+
+    def state_payload(self, seq, want_flags):
+        flags = 0
+        extra = []
+        if want_flags & FLAG_IMU and self.gyro is not None and self.accel is not None:
+            rpy = self.inertial.getRollPitchYaw() if self.inertial is not None else [0.0, 0.0, 0.0]
+            extra += list(rpy) + list(self.gyro.getValues()) + list(self.accel.getValues())
+            flags |= FLAG_IMU
+        if want_flags & FLAG_FOOT and all(f is not None for f in self.feet):
+            extra += [f.getValue() for f in self.feet]
+            flags |= FLAG_FOOT
+        count = len(self.positions)
+        sim_ns = int(self.robot.getTime() * 1e9)
+        payload = HEADER.pack(MAGIC_STATE, seq & 0xFFFFFFFF, sim_ns, count, flags)
+        payload += struct.pack(">%df" % (2 * count + len(extra)), *(self.positions + self.velocities + extra))
+        return payload
+
+    def send_state(self):
+        if self.subscriber is None or self.sock is None:
+            return
+        if time.monotonic() - self.subscriber_seen > SUBSCRIPTION_TIMEOUT:
+            self.subscriber = None
+            return
+        self.state_seq = (self.state_seq + 1) & 0xFFFFFFFF
+        try:
+            self.sock.sendto(self.state_payload(self.state_seq, self.subscriber_flags), self.subscriber)
+            self.stats["state_frames"] += 1
+        except OSError:
+            self.subscriber = None
+
+    # ---- 록스텝 ----
+    def set_lockstep(self, on):
+        with self.step_cv:
+            self.lockstep = on
+            # 대기 중인 요청은 실패 처리 (payload None), 번호는 1부터 다시
+            for req in self.step_requests.values():
+                req.done.set()
+            self.step_requests.clear()
+            self.next_step_seq = 1
+            self.step_cv.notify_all()
+
+    def submit_step(self, req):
+        with self.step_cv:
+            if not self.lockstep or req.seq < self.next_step_seq:
+                return None
+            self.step_requests[req.seq] = req
+            self.step_cv.notify_all()
+        req.done.wait(STEP_TIMEOUT)
+        return req.payload
+
+    def next_step(self, timeout):
+        with self.step_cv:
+            req = self.step_requests.pop(self.next_step_seq, None)
+            if req is None:
+                self.step_cv.wait(timeout)
+                req = self.step_requests.pop(self.next_step_seq, None)
+            if req is not None:
+                self.next_step_seq += 1
+            return req
+
+    def run_step(self, req, time_step):
+        """행동 적용 → n 스텝 → 관측. 시뮬레이션이 끝나면 False"""
+        self.apply_frame(req.indices, req.values)
+        alive = True
+        for _ in range(req.n):
+            if self.step(time_step) == -1:
+                alive = False
+                break
+        req.payload = self.state_payload(req.seq, req.flags)
+        self.stats["lockstep_actions"] += 1
+        req.done.set()
+        return alive
+
+
+def make_handler(bridge):
+    class Handler(BaseHTTPRequestHandler):
+        def log_message(self, *args):
+            pass
+
+        def reply(self, code, body):
+            payload = json.dumps(body).encode()
+            self.send_response(code)
+            self.send_header("Content-Type", "application/json")
+            self.send_header("Content-Length", str(len(payload)))
+            self.end_headers()
+            self.wfile.write(payload)
+
+        def do_GET(self):
+            q = parse_qs(urlparse(self.path).query)
+            cmd = q.get("command", [""])[0]
+            try:
+                if cmd == "set_joint":
+                    bridge.apply_frame([int(q["index"][0])], [float(q["value"][0])])
+                    bridge.stats["http_commands"] += 1
+                    self.reply(200, {"ok": True})
+                elif cmd == "set_joints":
+                    idx = [int(x) for x in q["idx"][0].split(",") if x]
+                    val = [float(x) for x in q["val"][0].split(",") if x]
+                    if "seq" in q:
+                        bridge.apply_http_frame(q.get("sid", [None])[0], int(q["seq"][0]), idx, val)
+                    else:
+                        bridge.apply_frame(idx, val)
+                    bridge.stats["http_frames"] += 1
+                    self.reply(200, {"ok": True})
+                elif cmd == "get_stats":
+                    self.reply(200, bridge.stats)
+                elif cmd == "lockstep":
+                    bridge.set_lockstep(q.get("on", ["1"])[0] == "1")
+                    self.reply(200, {"ok": True, "lockstep": bridge.lockstep})
+                elif cmd == "step":
+                    idx = [int(x) for x in q.get("idx", [""])[0].split(",") if x]
+                    val = [float(x) for x in q.get("val", [""])[0].split(",") if x]
+                    req = StepRequest(int(q["seq"][0]), max(1, int(q.get("n", ["1"])[0])),
+                                      int(q.get("flags", ["0"])[0]), idx, val)
+                    payload = bridge.submit_step(req)
+                    if payload is None:
+                        self.reply(409 if not bridge.lockstep else 504, {"error": "step %d not executed" % req.seq})
+                    else:
+                        self.send_response(200)
+                        self.send_header("Content-Type", "application/octet-stream")
+                        self.send_header("Content-Length", str(len(payload)))
+                        self.end_headers()
+                        self.wfile.write(payload)
+                else:
+                    self.reply(400, {"error": "unknown command: " + cmd})
+            except (KeyError, ValueError) as e:
+                self.reply(400, {"error": str(e)})
+
+    return Handler
+
+
+def udp_loop(bridge, port):
+    sock = socket.socket(socket.AF_INET, socket.SOCK_DGRAM)
+    sock.bind(("0.0.0.0", port))
+    bridge.sock = sock
+    while True:
+        data, addr = sock.recvfrom(2048)
+        bridge.on_datagram(data, addr)
+
+
+def main():
+    port = int(sys.argv[1]) if len(sys.argv) > 1 else 8080
+    robot = Robot()
+    time_step = int(robot.getBasicTimeStep())
+    bridge = Bridge(robot)
+
+    http = ThreadingHTTPServer(("0.0.0.0", port), make_handler(bridge))
+    threading.Thread(target=http.serve_forever, daemon=True).start()
+    threading.Thread(target=udp_loop, args=(bridge, port + 1), daemon=True).start()
+    print("[bridge] http :%d  udp :%d  step %dms" % (port, port + 1, time_step))
+
+    while True:
+        if bridge.lockstep:
+            # 요청이 없으면 스텝하지 않음 → 시뮬레이션 정지 상태로 대기
+            req = bridge.next_step(0.1)
+            if req is not None and not bridge.run_step(req, time_step):
+                break
+        elif bridge.step(time_step) == -1:
+            break
+    http.shutdown()
+
+
+if __name__ == "__main__":
+    main()